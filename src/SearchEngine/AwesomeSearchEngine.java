@@ -19,10 +19,20 @@ import java.io.File;
 import java.io.FileNotFoundException;
 
 import java.io.IOException;
+import java.net.InetSocketAddress;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
 
 import org.apache.commons.io.FilenameUtils;
 
@@ -32,9 +42,15 @@ import indexing.citations.CitationIndexReader;
 import indexing.contents.ContentsIndexReader;
 import indexing.documentmap.DocumentMapReader;
 import indexing.invertedindex.InvertedIndexReader;
+import indexing.segments.Segment;
+import indexing.segments.SegmentManifest;
+import indexing.segments.SegmentMerger;
+import io.index.codecs.IndexCodec;
+import io.index.codecs.IndexCodecs;
 import parsing.PatentContentLookup;
 import querying.QueryProcessor;
 import querying.queries.QueryParser;
+import querying.server.QueryServer;
 import querying.ranking.DocumentRanker;
 import querying.ranking.PageRankCalculator;
 import querying.results.RankedQueryResult;
@@ -50,12 +66,47 @@ public class AwesomeSearchEngine extends SearchEngine {
 	 * Contains the file name pattern for documents supported by this search engine. 
 	 */
 	private static final String DOCUMENT_FILE_PATTERN = "ipg\\d+.xml";
+	
+	/**
+	 * Determines, whether frequency and positional index should be mapped into memory instead of being read directly from disk.
+	 */
+	private static final boolean MEMORY_MAPPED_INVERTED_INDEX = true;
+	
+	/**
+	 * Contains the number of threads, that are used to parse and invert documents while indexing.
+	 */
+	private static final int INDEXING_THREADS_COUNT = Runtime.getRuntime().availableProcessors();
+	
+	/**
+	 * Contains the number of threads, that are used to search multiple index segments in parallel.
+	 */
+	private static final int QUERYING_THREADS_COUNT = Runtime.getRuntime().availableProcessors();
+	
+	/**
+	 * Contains the approximate number of bytes, that in-memory indexes may occupy while indexing, before they are written to temporary files.
+	 */
+	private static final long INDEXING_MEMORY_BUDGET = 1024L * 1024L * 1024L;
+	
+	/**
+	 * Contains the maximum number of temporary index files, that are merged at once while indexing.
+	 */
+	private static final int INDEXING_MERGE_FACTOR = 32;
+	
+	/**
+	 * Contains the number of index segments of similar size, that are merged into a single segment in the background.
+	 */
+	private static final int SEGMENT_MERGE_FACTOR = 4;
+	
+	/**
+	 * Contains the codec, that is used to encode the compressed index. Since index files describe their codec in their headers, 
+	 * indexes are always loaded using the codec, they have been written with.
+	 */
+	private static final IndexCodec COMPRESSED_INDEX_CODEC = IndexCodecs.PFOR_DELTA;
 
 	/**
 	 * Contain instances of necessary services.
 	 */
 	private TextPreprocessor textPreprocessor;
-	private DocumentIndexer documentIndexer;
 	private QueryParser queryParser;
 	private QueryProcessor queryProcessor;
 	private DamerauLevenshteinCalculator levenshteinCalculator;
@@ -74,11 +125,27 @@ public class AwesomeSearchEngine extends SearchEngine {
 	private ContentsIndexReader contentsIndexReader;
 	private CitationIndexReader citationIndexReader;
 	
+	/**
+	 * Contains the segments, that are opened by the index reader services.
+	 */
+	private List<Segment> openSegments = Collections.emptyList();
+	
+	/**
+	 * Contains the manifest, that lists the segments of the index.
+	 */
+	private SegmentManifest segmentManifest;
+	
+	/**
+	 * Contains the executor, that merges index segments in the background, and the result of the last scheduled merge.
+	 */
+	private ExecutorService segmentMergeExecutor;
+	private Future<Void> segmentMergeResult;
+	
 	/**
 	 * Determines, whether the index has already been read into memory.
 	 */
 	private boolean isLoaded = false;
-	
+
 	/**
 	 * Contain necessary directory paths.
 	 */
@@ -86,17 +153,8 @@ public class AwesomeSearchEngine extends SearchEngine {
 	private final Path dataDirectoryPath = Paths.get(dataDirectory);
 	
 	/**
-	 *  Contain the necessary index files.
+	 *  Contain the necessary files.
 	 */
-	private final File frequencyIndexFile = this.teamDirectoryPath.resolve("frequency_index.bin").toFile();
-	private final File positionalIndexFile = this.teamDirectoryPath.resolve("positional_index.bin").toFile();
-	private final File frequencyIndexSeekListFile = this.teamDirectoryPath.resolve("frequency_index_seek_list.bin").toFile();
-	private final File documentMapFile = this.teamDirectoryPath.resolve("document_map.bin").toFile();
-	private final File documentMapSeekListFile = this.teamDirectoryPath.resolve("document_map_seek_list.bin").toFile();
-	private final File contentsIndexFile = this.teamDirectoryPath.resolve("contents_index.bin").toFile();
-	private final File contentsIndexSeekListFile = this.teamDirectoryPath.resolve("contents_index_seek_list.bin").toFile();
-	private final File citationIndexFile = this.teamDirectoryPath.resolve("citation_index.bin").toFile();
-	private final File citationIndexSeekListFile = this.teamDirectoryPath.resolve("citation_index_seek_list.bin").toFile();
 	private final File stopWordsFile = this.teamDirectoryPath.resolve("stop_words.txt").toFile();
 	
 	/**
@@ -125,28 +183,57 @@ public class AwesomeSearchEngine extends SearchEngine {
     }
     
     /**
-     * Returns the current document indexer.
-     * @param compress
+     * Creates a new document indexer, that writes the index files of the given segment.
+     * @param segment
+     * @param codec
+     * @return
+     */
+    private DocumentIndexer createDocumentIndexer(Segment segment, IndexCodec codec) {
+    	return new DocumentIndexer(
+    				this.getTextPreprocessor(), 
+    				this.getPageRankCalculator(),
+    				segment.getFrequencyIndexFile(), 
+    				segment.getPositionalIndexFile(),
+    				segment.getFrequencyIndexSeekListFile(), 
+    				segment.getDocumentMapFile(), 
+    				segment.getDocumentMapSeekListFile(), 
+    				segment.getContentsIndexFile(),
+    				segment.getContentsIndexSeekListFile(),
+    				segment.getCitationIndexFile(),
+    				segment.getCitationIndexSeekListFile(),
+    				codec,
+    				INDEXING_THREADS_COUNT,
+    				INDEXING_MEMORY_BUDGET,
+    				INDEXING_MERGE_FACTOR);
+    }
+    
+    /**
+     * Returns the manifest of the index segments. Returns null, if there is no manifest.
+     * @return
+     * @throws IOException
+     */
+    private SegmentManifest getSegmentManifest() throws IOException {
+    	if(this.segmentManifest == null) {
+    		this.segmentManifest = SegmentManifest.load(this.teamDirectoryPath.toFile());
+    	}
+    	
+    	return this.segmentManifest;
+    }
+    
+    /**
+     * Returns the executor, that merges index segments in the background.
      * @return
      */
-    private DocumentIndexer getDocumentIndexer(boolean compress) {
-    	if(this.documentIndexer == null) {
-    		this.documentIndexer = new DocumentIndexer(
-    						this.getTextPreprocessor(), 
-    						this.getPageRankCalculator(),
-    						this.frequencyIndexFile, 
-    						this.positionalIndexFile,
-    						this.frequencyIndexSeekListFile, 
-    						this.documentMapFile, 
-    						this.documentMapSeekListFile, 
-    						this.contentsIndexFile,
-    						this.contentsIndexSeekListFile,
-    						this.citationIndexFile,
-    						this.citationIndexSeekListFile,
-    						compress);
+    private ExecutorService getSegmentMergeExecutor() {
+    	if(this.segmentMergeExecutor == null) {
+    		this.segmentMergeExecutor = Executors.newSingleThreadExecutor(runnable -> {
+    			Thread thread = new Thread(runnable, "segment-merger");
+    			thread.setDaemon(true);
+    			return thread;
+    		});
     	}
     	
-    	return this.documentIndexer;
+    	return this.segmentMergeExecutor;
     }
     
     private QueryParser getQueryParser() {
@@ -171,7 +258,8 @@ public class AwesomeSearchEngine extends SearchEngine {
 					this.getTextPreprocessor(),
 					this.getSpellingCorrector(),
 					new DocumentRanker(this.documentMapReader),
-					this.getSnippetGenerator());
+					this.getSnippetGenerator(),
+					QUERYING_THREADS_COUNT);
 			} catch (FileNotFoundException e) {
 				System.err.println(e.getMessage());
 				System.exit(1);
@@ -276,24 +364,38 @@ public class AwesomeSearchEngine extends SearchEngine {
 
     @Override
     public void index() {
-    	this.index(false);
+    	this.index(IndexCodecs.UNCOMPRESSED);
     }
 
     @Override
     public boolean loadIndex() {
-    	return this.loadIndex(false);
+    	return this.openIndex();
     }
     
     @Override
     public void compressIndex() {
-    	this.index(true);
+    	this.index(COMPRESSED_INDEX_CODEC);
     }
 
     @Override
     boolean loadCompressedIndex() {
-    	return this.loadIndex(true);
+    	return this.openIndex();
+    }
+    
+    /**
+     * Adds all documents files, that have not been indexed yet, to the index as a new segment.
+     */
+    public void updateIndex() {
+    	this.updateIndex(IndexCodecs.UNCOMPRESSED);
     }
     
+    /**
+     * Adds all documents files, that have not been indexed yet, to the compressed index as a new segment.
+     */
+    public void updateCompressedIndex() {
+    	this.updateIndex(COMPRESSED_INDEX_CODEC);
+    }
+
     @Override
     public ArrayList<String> search(String query, int topK) {
     	if(this.isLoaded) {    	
@@ -310,6 +412,122 @@ public class AwesomeSearchEngine extends SearchEngine {
     	
 		return new ArrayList<String>();
     }
+    
+    /**
+     * Searches for all given queries and returns their results in the same order. 
+     * Postings of tokens, that occur in multiple queries, are read only once for the whole batch.
+     * @param queries
+     * @param topK
+     * @return
+     */
+    public List<ArrayList<String>> searchBatch(List<String> queries, int topK) {
+    	List<ArrayList<String>> results = new ArrayList<ArrayList<String>>(queries.size());
+    	if(this.isLoaded) {
+	    	try {
+	    		for(RankedQueryResult result: this.getQueryProcessor().searchBatch(queries, topK)) {
+	    			results.add(this.getResultFormatter().format(result));
+	    		}
+	    		return results;
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+    	}
+    	else {
+			System.err.println("Index has to be loaded first. ");
+		}
+    	
+    	results.clear();
+    	queries.forEach(query -> results.add(new ArrayList<String>()));
+		return results;
+    }
+    
+    /**
+     * Searches for all given queries in parallel using the given executor and returns their results in the same order.
+     * Queries share the index readers, which are safe to be read concurrently. Tasks must not be cancelled by interrupting them, 
+     * since interrupting a thread, that reads a file channel, closes the channel.
+     * @param queries
+     * @param topK
+     * @param executor
+     * @return
+     */
+    public List<ArrayList<String>> search(List<String> queries, int topK, ExecutorService executor) {
+    	List<ArrayList<String>> results = new ArrayList<ArrayList<String>>(queries.size());
+    	if(!this.isLoaded) {
+			System.err.println("Index has to be loaded first. ");
+			queries.forEach(query -> results.add(new ArrayList<String>()));
+			return results;
+    	}
+    	
+    	// Create services before, since they are initialized lazily
+    	QueryProcessor queryProcessor = this.getQueryProcessor();
+    	ResultFormatter resultFormatter = this.getResultFormatter();
+    	
+    	// Submit a task per query
+    	List<Future<ArrayList<String>>> futures = new ArrayList<Future<ArrayList<String>>>(queries.size());
+    	for(String query: queries) {
+    		futures.add(executor.submit(() -> resultFormatter.format(queryProcessor.search(query, topK))));
+    	}
+    	
+    	// Collect results in order of the queries
+    	for(Future<ArrayList<String>> future: futures) {
+    		try {
+				results.add(future.get());
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				results.add(new ArrayList<String>());
+			} catch (ExecutionException e) {
+				e.getCause().printStackTrace();
+				results.add(new ArrayList<String>());
+			}
+    	}
+    	
+    	return results;
+    }
+    
+    /**
+     * Starts an HTTP server, that serves queries on the given port. At most 'concurrency' requests are evaluated at once,
+     * at most 'queueCapacity' further requests wait for evaluation and any more are rejected. A batch of queries counts as one request. Returns null, if the server could not be started.
+     * @param port
+     * @param concurrency
+     * @param queueCapacity
+     * @return
+     */
+    public QueryServer startQueryServer(int port, int concurrency, int queueCapacity) {
+    	if(!this.isLoaded) {
+			System.err.println("Index has to be loaded first. ");
+			return null;
+    	}
+    	
+    	try {
+    		QueryServer server = new QueryServer(this.getQueryProcessor(), new InetSocketAddress(port), concurrency, queueCapacity);
+    		server.start();
+    		return server;
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+    	
+    	return null;
+    }
+    
+    /**
+     * Describes the plan, that is used to evaluate the given query, without evaluating it.
+     * @param query
+     * @return
+     */
+    public String explain(String query) {
+    	if(this.isLoaded) {
+	    	try {
+	    		return this.getQueryProcessor().explain(query).explain();
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+    	}
+    	else {
+			System.err.println("Index has to be loaded first. ");
+		}
+    	
+		return "";
+    }
 
 
 	@Override
@@ -319,20 +537,69 @@ public class AwesomeSearchEngine extends SearchEngine {
 	
     
     /**
-     * Indexes all documents of a given directory. Argument compress determines, whether the index should be compressed.
-     * @param documentDirectory
-     * @param compress
+     * Indexes all documents of a given directory using the given codec.
+     * All existing index segments are replaced by a single segment.
+     * @param codec
      */
-    private void index(boolean compress) {
+    private void index(IndexCodec codec) {
     	try {
         	// Get xml files inside given directory
-    		String[] documentFiles = Files.walk(this.dataDirectoryPath)
-    				.map(path -> path.toString())
-    				.filter(path -> FilenameUtils.getName(path).matches(DOCUMENT_FILE_PATTERN))
-    				.toArray(String[]::new);
+    		String[] documentFiles = this.getDocumentFiles();
+    		
+    		// Delete existing segments
+    		this.awaitSegmentMerges();
+    		if(this.getSegmentManifest() != null) {
+    			this.segmentManifest.deleteAll();
+    		}
     		
     		// Build index
-			this.getDocumentIndexer(compress).indexDocumentFiles(documentFiles);
+    		Segment segment = SegmentManifest.getBaseSegment(this.teamDirectoryPath.toFile(), this.getFileNames(documentFiles));
+    		int documentsCount = this.createDocumentIndexer(segment, codec).indexDocumentFiles(documentFiles);
+    		
+    		this.segmentManifest = new SegmentManifest(this.teamDirectoryPath.toFile(), codec);
+    		this.segmentManifest.add(segment.withDocumentsCount(documentsCount));
+		} catch (IOException e) {
+			e.printStackTrace();
+			System.exit(1);
+		}
+    }
+    
+    /**
+     * Indexes all documents of a given directory, that are not contained in the index yet, into a new segment. 
+     * Afterwards, small segments are merged in the background. If there is no segmented index using the same codec yet, 
+     * the whole index is built.
+     * Page ranks only take citations within a segment into account, so they equal those of a full rebuild, 
+     * once all segments have been merged into one.
+     * @param codec
+     */
+    private void updateIndex(IndexCodec codec) {
+    	try {
+    		SegmentManifest manifest = this.getSegmentManifest();
+    		if(manifest == null || manifest.getCodec() != codec) {
+    			this.index(codec);
+    			return;
+    		}
+    		
+    		// Get xml files, that have not been indexed yet
+    		Set<String> indexedFileNames = manifest.getDocumentFileNames();
+    		String[] documentFiles = Arrays.stream(this.getDocumentFiles())
+    				.filter(path -> !indexedFileNames.contains(FilenameUtils.getName(path)))
+    				.toArray(String[]::new);
+    		if(documentFiles.length == 0) {
+    			return;
+    		}
+    		
+    		// Build index of new segment
+    		Segment segment = manifest.newSegment(this.getFileNames(documentFiles));
+    		int documentsCount = this.createDocumentIndexer(segment, codec).indexDocumentFiles(documentFiles);
+    		manifest.add(segment.withDocumentsCount(documentsCount));
+    		
+    		// Merge small segments in the background
+    		SegmentMerger segmentMerger = new SegmentMerger(manifest, SEGMENT_MERGE_FACTOR, this.getPageRankCalculator());
+    		this.segmentMergeResult = this.getSegmentMergeExecutor().submit(() -> {
+    			segmentMerger.mergeSegments();
+    			return null;
+    		});
 		} catch (IOException e) {
 			e.printStackTrace();
 			System.exit(1);
@@ -340,17 +607,68 @@ public class AwesomeSearchEngine extends SearchEngine {
     }
     
     /**
-     * Loads the index from disk to memory.
-     * @param compress
+     * Waits for background merges of index segments to be finished. Merged segments are used by the next call of loadIndex.
+     * @throws IOException
+     */
+    public void awaitSegmentMerges() throws IOException {
+    	if(this.segmentMergeResult != null) {
+    		try {
+				this.segmentMergeResult.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IOException("Waiting for segment merges was interrupted.", e);
+			} catch (ExecutionException e) {
+				throw new IOException(e.getCause());
+			}
+    	}
+    }
+    
+    /**
+     * Gets the paths of all xml files inside the data directory.
+     * @return
+     * @throws IOException
+     */
+    private String[] getDocumentFiles() throws IOException {
+    	return Files.walk(this.dataDirectoryPath)
+    			.map(path -> path.toString())
+    			.filter(path -> FilenameUtils.getName(path).matches(DOCUMENT_FILE_PATTERN))
+    			.toArray(String[]::new);
+    }
+    
+    /**
+     * Gets the file names of the given paths.
+     * @param paths
      * @return
      */
-    private boolean loadIndex(boolean compress) { 	
+    private List<String> getFileNames(String[] paths) {
+    	return Arrays.stream(paths)
+    			.map(path -> FilenameUtils.getName(path))
+    			.collect(Collectors.toList());
+    }
+
+    /**
+     * Loads the index from disk to memory. The codec of each index file is determined by its header.
+     * Readers of a previously loaded index are closed, so query servers started on it have to be restarted.
+     * @return
+     */
+    private boolean openIndex() { 	
     	try {
-    		this.invertedIndexReader = new InvertedIndexReader(this.frequencyIndexFile, this.positionalIndexFile, this.frequencyIndexSeekListFile, compress);
-    		this.documentMapReader = new DocumentMapReader(this.documentMapFile, this.documentMapSeekListFile, compress);
-    		this.contentsIndexReader = new ContentsIndexReader(this.contentsIndexFile, this.contentsIndexSeekListFile, compress);
-    		this.citationIndexReader = new CitationIndexReader(this.citationIndexFile, this.citationIndexSeekListFile, compress);
+    		// Close previously loaded index, so that segments, which have been replaced by merges meanwhile, can be deleted
+    		this.closeIndex();
     		
+    		// Determine segments of the index, an index without manifest consists of the base segment only.
+    		// The manifest is shared with background merges, so that both see the same segments and segment ids.
+    		List<Segment> segments = Collections.singletonList(SegmentManifest.getBaseSegment(this.teamDirectoryPath.toFile(), Collections.emptyList()));
+    		if(this.getSegmentManifest() != null) {
+    			segments = this.segmentManifest.acquireSegments();
+    		}
+    		this.openSegments = segments;
+    		
+    		this.invertedIndexReader = new InvertedIndexReader(segments, MEMORY_MAPPED_INVERTED_INDEX);
+    		this.documentMapReader = new DocumentMapReader(segments);
+    		this.contentsIndexReader = new ContentsIndexReader(segments);
+    		this.citationIndexReader = new CitationIndexReader(segments);
+
     		this.patentContentLookup = new PatentContentLookup(this.contentsIndexReader);
     		this.spellingCorrector = new SpellingCorrector(this.getLevenshteinCalculator(), this.invertedIndexReader);
 		} catch (IOException e) {
@@ -364,4 +682,43 @@ public class AwesomeSearchEngine extends SearchEngine {
         
         return true;
     }
+    
+    /**
+     * Closes the index reader services and releases their segments. Services depending on the readers are discarded, 
+     * so that they are created again for the next loaded index.
+     * @throws IOException
+     */
+    private void closeIndex() throws IOException {
+    	this.isLoaded = false;
+    	if(this.queryProcessor != null) {
+    		this.queryProcessor.close();
+    		this.queryProcessor = null;
+    	}
+    	this.spellingCorrector = null;
+    	this.patentContentLookup = null;
+    	this.snippetGenerator = null;
+    	this.resultFormatter = null;
+    	
+    	if(this.invertedIndexReader != null) {
+    		this.invertedIndexReader.close();
+    		this.invertedIndexReader = null;
+    	}
+    	if(this.documentMapReader != null) {
+    		this.documentMapReader.close();
+    		this.documentMapReader = null;
+    	}
+    	if(this.contentsIndexReader != null) {
+    		this.contentsIndexReader.close();
+    		this.contentsIndexReader = null;
+    	}
+    	if(this.citationIndexReader != null) {
+    		this.citationIndexReader.close();
+    		this.citationIndexReader = null;
+    	}
+    	
+    	if(this.segmentManifest != null) {
+    		this.segmentManifest.releaseSegments(this.openSegments);
+    	}
+    	this.openSegments = Collections.emptyList();
+    }
 }
@@ -1,9 +1,17 @@
 package indexing;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 
 import javax.xml.stream.XMLStreamException;
 
@@ -24,6 +32,7 @@ import indexing.documentmap.DocumentMapSeekList;
 import indexing.invertedindex.InvertedIndexConstructor;
 import indexing.invertedindex.InvertedIndexMerger;
 import indexing.invertedindex.InvertedIndexSeekList;
+import io.index.codecs.IndexCodec;
 import parsing.PatentDocumentParser;
 import postings.ContentType;
 import querying.ranking.PageRankCalculator;
@@ -35,11 +44,6 @@ import java.nio.file.Paths;
 
 public class DocumentIndexer {
 	
-	/**
-	 * Determines the memory limit. If this limit is exceeded, memory index has to be written to file.
-	 */
-	private static final int MEMORY_LIMIT = 2000000000;
-	
 	/**
 	 * Contains the prefix for temporary index files.
 	 */
@@ -59,11 +63,9 @@ public class DocumentIndexer {
 	private PageRankCalculator pageRankCalculator;
 		
 	/**
-	 * Contain the constructors for the several indexes.
+	 * Contain the constructors for the several indexes. Inverted index and contents index are constructed by the indexing workers.
 	 */
-	private InvertedIndexConstructor invertedIndexConstructor;
 	private DocumentMapConstructor documentMapConstructor;
-	private ContentsIndexConstuctor contentsIndexConstructor;
 	private CitationIndexConstructor citationIndexConstructor;
 	
 	/**
@@ -80,9 +82,25 @@ public class DocumentIndexer {
 	private final File citationIndexSeekListFile;
 	
 	/**
-	 * Determines, whether the index should be compressed or not.
+	 * Contains the codec, that is used to encode the index.
+	 */
+	private final IndexCodec codec;
+	
+	/**
+	 * Contains the number of threads, that parse and invert document files concurrently.
 	 */
-	private boolean compress;
+	private final int threadsCount;
+	
+	/**
+	 * Contains the approximate number of bytes, that the in-memory indexes of all workers may occupy. 
+	 * If a worker exceeds its share, its in-memory indexes are written to temporary files.
+	 */
+	private final long memoryBudget;
+	
+	/**
+	 * Contains the policy, that reduces the number of temporary index files before the final merge.
+	 */
+	private final MergePolicy mergePolicy;
 	
 	
 	/**
@@ -91,10 +109,10 @@ public class DocumentIndexer {
 	private Map<PatentDocument, TIntList> linkedDocuments = new HashMap<PatentDocument, TIntList>();
 	
 	/**
-	 * Contains all created temporary index files.
+	 * Contains all created temporary index files. Since they are written by multiple indexing workers, the lists are synchronized.
 	 */
-	private List<Pair<File, File>> tempInvertedIndexFiles = new ArrayList<Pair<File, File>>();
-	private List<File> tempContentsIndexFiles = new ArrayList<File>();
+	private List<Pair<File, File>> tempInvertedIndexFiles = Collections.synchronizedList(new ArrayList<Pair<File, File>>());
+	private List<File> tempContentsIndexFiles = Collections.synchronizedList(new ArrayList<File>());
 	
 	/**
 	 * Creates a new DocumentIndexer instance.
@@ -106,12 +124,15 @@ public class DocumentIndexer {
 	 * @param documentMapSeekListFile
 	 * @param citationIndexFile
 	 * @param citationIndexSeekListFile
-	 * @param compress
+	 * @param codec
+	 * @param threadsCount
+	 * @param memoryBudget
+	 * @param mergeFactor
 	 */
 	public DocumentIndexer(TextPreprocessor textProcessor, PageRankCalculator pageRankCalculator, 
 			File frequencyIndexFile, File positionalIndexFile, File frequencyIndexSeekListFile, 
 			File documentMapFile, File documentMapSeekListFile, File contentsIndexFile, File contentsIndexSeekListFile, 
-			File citationIndexFile, File citationIndexSeekListFile, boolean compress) {
+			File citationIndexFile, File citationIndexSeekListFile, IndexCodec codec, int threadsCount, long memoryBudget, int mergeFactor) {
 		this.textPreprocessor = textProcessor;
 		this.pageRankCalculator = pageRankCalculator;
 		
@@ -124,36 +145,28 @@ public class DocumentIndexer {
 		this.contentsIndexSeekListFile = contentsIndexSeekListFile;
 		this.citationIndexFile = citationIndexFile;
 		this.citationIndexSeekListFile = citationIndexSeekListFile;
-		this.compress = compress;
+		this.codec = codec;
+		this.threadsCount = Math.max(1, threadsCount);
+		this.memoryBudget = memoryBudget;
+		this.mergePolicy = new MergePolicy(mergeFactor, this.threadsCount);
 		
-		this.invertedIndexConstructor = new InvertedIndexConstructor(this.compress, new InvertedIndexSeekList());
-		this.documentMapConstructor = new DocumentMapConstructor(this.compress, new DocumentMapSeekList());
-		this.contentsIndexConstructor = new ContentsIndexConstuctor(compress, new ContentsIndexSeekList());
-		this.citationIndexConstructor = new CitationIndexConstructor(compress, new CitationIndexSeekList());
+		this.documentMapConstructor = new DocumentMapConstructor(this.codec, new DocumentMapSeekList());
+		this.citationIndexConstructor = new CitationIndexConstructor(this.codec, new CitationIndexSeekList());
 	}
 	
 	
 	/**
-	 * Indexes the given XML documents. Old index files are overwritten.
+	 * Indexes the given XML documents and returns the number of indexed documents. Old index files are overwritten.
 	 * @param documentPaths
+	 * @return
 	 * @throws IOException
 	 */
-	public void indexDocumentFiles(String[] documentPaths) throws IOException {
+	public int indexDocumentFiles(String[] documentPaths) throws IOException {
 		// Delete existing indexes
 		this.deleteIndexFiles();
 
-		// Parse and index documents
-		for(int i = 0; i < documentPaths.length; i++) {
-			System.out.println(String.format("Index document %d/%d...", i + 1, documentPaths.length));
-			
-			String documentPath = documentPaths[i];
-			try {
-				this.indexSingleDocumentFile(documentPath);
-			} catch (XMLStreamException e) {
-				String fileName = Paths.get(documentPath).getFileName().toString();
-				System.out.println(String.format("File '%s' could not be parsed and was skipped.", fileName));
-			}
-		}
+		// Parse and index documents concurrently
+		List<IndexingWorker> workers = this.indexConcurrently(documentPaths);
 		
 		// Calculate page ranks
 		List<PatentDocument> documents = this.pageRankCalculator.calculate(this.linkedDocuments);
@@ -163,82 +176,57 @@ public class DocumentIndexer {
 		this.constructCitationIndex();
 		
 		// Write constructed inverted index to file
-		this.writeFinalInvertedIndex();
+		this.writeFinalInvertedIndex(workers);
 		
 		// Write constructed contents index to file
-		this.writeFinalContentsIndex();
+		this.writeFinalContentsIndex(workers);
 		
 		// Delete temporary files
 		this.clearTemporaryIndexes();
+		
+		return documents.size();
 	}
 	
 	/**
-	 * Indexes a single document. 
-	 * @param documentFilePath
-	 * @throws XMLStreamException
-	 * @throws IOException
-	 */
-	private void indexSingleDocumentFile(String documentFilePath) throws XMLStreamException, IOException {
-		PatentDocumentParser patentParser = new PatentDocumentParser(documentFilePath);
-		for(PatentContentDocument document: patentParser) {
-			// Add all tokens from document to memory index
-			this.addTokens(document);
-			
-			// Adds contents to the index
-			this.contentsIndexConstructor.put(document, CONTENT_TYPES_TO_STORE);
-			
-			// Add document linked document map
-			this.linkedDocuments.put(document.withoutContent(), new TIntArrayList(document.getLinkedDocumentIds()));
-			
-			// If memory consumption is too high, write inverted and contents index to new temporary file and clean memory.
-			if(this.getFreeMemory() < MEMORY_LIMIT) {
-				System.out.println("Write temp files...");
-				this.writeTemporaryContentsIndex();
-				this.writeTemporaryInvertedIndex();
-				
-				// Run garbage collector
-				System.gc();
-				System.runFinalization();
-			}
-		}
-	}
-	
-	/**
-	 * Gets the amount of free memory in bytes.
-	 * @return
-	 */
-	private long getFreeMemory() {
-		return Runtime.getRuntime().maxMemory() - (Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory());
-	}
-	
-	/**
-	 * Adds all tokens from document to memory index and return number of inserted tokens.
-	 * @param document
+	 * Parses and inverts the given XML documents using multiple threads. Each worker builds its own in-memory runs, 
+	 * which are written to temporary files, if they exceed the worker's share of the memory budget. Returns the workers, which contain their last runs.
+	 * @param documentPaths
 	 * @return
 	 * @throws IOException
 	 */
-	private void addTokens(PatentContentDocument document) throws IOException{
-		Map<ContentType, Integer> tokenCounts = new HashMap<ContentType, Integer>();
-		for(ContentType contentType: ContentType.values()) {
-			// Tokenize, stem and remove stop-words from content, and add single tokens to index
-			List<String> tokens = this.textPreprocessor.tokenize(document.getContent(contentType));
-			for(int position = 0; position < tokens.size(); position++) {
-				String token = tokens.get(position);
-				if(!this.textPreprocessor.isStopWord(token)) {
-					// Stem token
-					token = this.textPreprocessor.stem(token);
-					
-					// Add posting to memory index
-					if(!token.isEmpty()) {
-						this.invertedIndexConstructor.add(document.getId(), token, contentType, position);
-					}
-				}
+	private List<IndexingWorker> indexConcurrently(String[] documentPaths) throws IOException {
+		// Create workers, that share the queue of document files
+		AtomicInteger nextDocumentIndex = new AtomicInteger(0);
+		int threadsCount = Math.max(1, Math.min(this.threadsCount, documentPaths.length));
+		List<IndexingWorker> workers = new ArrayList<IndexingWorker>(threadsCount);
+		for(int i = 0; i < threadsCount; i++) {
+			workers.add(new IndexingWorker(documentPaths, nextDocumentIndex, this.memoryBudget / threadsCount));
+		}
+		
+		// Run workers and wait for them to finish
+		ExecutorService executor = Executors.newFixedThreadPool(threadsCount);
+		try {
+			for(Future<Void> future: executor.invokeAll(workers)) {
+				future.get();
 			}
-			
-			tokenCounts.put(contentType, tokens.size());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Indexing was interrupted.", e);
+		} catch (ExecutionException e) {
+			if(e.getCause() instanceof IOException) {
+				throw (IOException)e.getCause();
+			}
+			throw new IOException(e.getCause());
+		} finally {
+			executor.shutdownNow();
 		}
 		
-		document.setTokensCount(tokenCounts);
+		// Collect linked documents of all workers
+		for(IndexingWorker worker: workers) {
+			this.linkedDocuments.putAll(worker.linkedDocuments);
+		}
+		
+		return workers;
 	}
 	
 	
@@ -273,29 +261,6 @@ public class DocumentIndexer {
 	}
 	
 	
-	/**
-	 * Write inverted index from memory to temporary index files.
-	 * @throws IOException
-	 */	
-	private void writeTemporaryInvertedIndex() throws IOException {
-		File frequencyIndexFile = this.createTempFile(TEMP_FREQUENCY_INDEX_PREFIX);
-		File positionalIndexFile = this.createTempFile(TEMP_POSITIONAL_INDEX_PREFIX);
-		this.tempInvertedIndexFiles.add(Pair.of(frequencyIndexFile, positionalIndexFile));		
-		this.invertedIndexConstructor.save(frequencyIndexFile, positionalIndexFile);
-		this.invertedIndexConstructor.clear();
-	}
-	
-	/**
-	 * Write contents index from memory to temporary index files.
-	 * @throws IOException
-	 */	
-	private void writeTemporaryContentsIndex() throws IOException {
-		File contentsIndexFile = this.createTempFile(TEMP_CONTENTS_INDEX_PREFIX);
-		this.tempContentsIndexFiles.add(contentsIndexFile);
-		this.contentsIndexConstructor.save(contentsIndexFile);
-		this.contentsIndexConstructor.clear();
-	}
-	
 	/**
 	 * Creates a temporary file with the given prefix.
 	 * @param prefix
@@ -307,42 +272,75 @@ public class DocumentIndexer {
 	}
 	
 	/**
-	 * Write inverted index from memory to final index file. 
+	 * Write inverted index from memory to final index file. If there are multiple runs, they are merged.
+	 * @param workers
 	 * @throws IOException
 	 */
-	private void writeFinalInvertedIndex() throws IOException {
-		if(this.tempInvertedIndexFiles.isEmpty()) {
-			this.invertedIndexConstructor.saveWithSeekList(this.frequencyIndexFile, this.positionalIndexFile, this.frequencyIndexSeekListFile);
-			this.invertedIndexConstructor.clear();
+	private void writeFinalInvertedIndex(List<IndexingWorker> workers) throws IOException {
+		List<IndexingWorker> nonEmptyWorkers = workers.stream()
+													.filter(worker -> worker.invertedIndexConstructor.size() > 0)
+													.collect(Collectors.toList());
+		if(this.tempInvertedIndexFiles.isEmpty() && nonEmptyWorkers.size() <= 1) {
+			InvertedIndexConstructor invertedIndexConstructor = workers.get(0).invertedIndexConstructor;
+			if(!nonEmptyWorkers.isEmpty()) {
+				invertedIndexConstructor = nonEmptyWorkers.get(0).invertedIndexConstructor;
+			}
+			invertedIndexConstructor.saveWithSeekList(this.frequencyIndexFile, this.positionalIndexFile, this.frequencyIndexSeekListFile);
+			invertedIndexConstructor.clear();
 		}
 		else {
-			if(this.invertedIndexConstructor.size() > 0) {
-				this.writeTemporaryInvertedIndex();
+			for(IndexingWorker worker: nonEmptyWorkers) {
+				worker.writeTemporaryInvertedIndex();
 			}
 			
 			System.out.println("Merge inverted index files...");
-			InvertedIndexMerger indexMerger = new InvertedIndexMerger(this.compress);
-			indexMerger.merge(this.frequencyIndexFile, this.positionalIndexFile, this.tempInvertedIndexFiles, this.frequencyIndexSeekListFile);
+			InvertedIndexMerger indexMerger = new InvertedIndexMerger(this.codec);
+			List<Pair<File, File>> indexFiles = this.mergePolicy.reduce(this.tempInvertedIndexFiles, runs -> {
+				File frequencyIndexFile = this.createTempFile(TEMP_FREQUENCY_INDEX_PREFIX);
+				File positionalIndexFile = this.createTempFile(TEMP_POSITIONAL_INDEX_PREFIX);
+				this.tempInvertedIndexFiles.add(Pair.of(frequencyIndexFile, positionalIndexFile));
+				indexMerger.merge(frequencyIndexFile, positionalIndexFile, runs);
+				this.deleteTemporaryInvertedIndexFiles(runs);
+				
+				return Pair.of(frequencyIndexFile, positionalIndexFile);
+			});
+			indexMerger.merge(this.frequencyIndexFile, this.positionalIndexFile, indexFiles, this.frequencyIndexSeekListFile);
 		}
 	}
 	
 	/**
-	 * Write contents index from memory to final index file. 
+	 * Write contents index from memory to final index file. If there are multiple runs, they are merged.
+	 * @param workers
 	 * @throws IOException
 	 */
-	private void writeFinalContentsIndex() throws IOException {
-		if(this.tempContentsIndexFiles.isEmpty()) {
-			this.contentsIndexConstructor.saveWithSeekList(this.contentsIndexFile, this.contentsIndexSeekListFile);
-			this.contentsIndexConstructor.clear();
+	private void writeFinalContentsIndex(List<IndexingWorker> workers) throws IOException {
+		List<IndexingWorker> nonEmptyWorkers = workers.stream()
+													.filter(worker -> worker.contentsIndexConstructor.size() > 0)
+													.collect(Collectors.toList());
+		if(this.tempContentsIndexFiles.isEmpty() && nonEmptyWorkers.size() <= 1) {
+			ContentsIndexConstuctor contentsIndexConstructor = workers.get(0).contentsIndexConstructor;
+			if(!nonEmptyWorkers.isEmpty()) {
+				contentsIndexConstructor = nonEmptyWorkers.get(0).contentsIndexConstructor;
+			}
+			contentsIndexConstructor.saveWithSeekList(this.contentsIndexFile, this.contentsIndexSeekListFile);
+			contentsIndexConstructor.clear();
 		}
 		else {
-			if(this.contentsIndexConstructor.size() > 0) {
-				this.writeTemporaryContentsIndex();
+			for(IndexingWorker worker: nonEmptyWorkers) {
+				worker.writeTemporaryContentsIndex();
 			}
 			
 			System.out.println("Merge contents index files...");
-			ContentsIndexMerger indexMerger = new ContentsIndexMerger(this.compress);
-			indexMerger.merge(this.contentsIndexFile, this.tempContentsIndexFiles, this.contentsIndexSeekListFile);
+			ContentsIndexMerger indexMerger = new ContentsIndexMerger(this.codec);
+			List<File> indexFiles = this.mergePolicy.reduce(this.tempContentsIndexFiles, runs -> {
+				File contentsIndexFile = this.createTempFile(TEMP_CONTENTS_INDEX_PREFIX);
+				this.tempContentsIndexFiles.add(contentsIndexFile);
+				indexMerger.merge(contentsIndexFile, runs);
+				this.deleteTemporaryContentsIndexFiles(runs);
+				
+				return contentsIndexFile;
+			});
+			indexMerger.merge(this.contentsIndexFile, indexFiles, this.contentsIndexSeekListFile);
 		}
 	}
 	
@@ -352,23 +350,43 @@ public class DocumentIndexer {
 	 */
 	public void clearTemporaryIndexes() throws IOException {
 		// Inverted index
-		for(Pair<File, File> indexFiles: this.tempInvertedIndexFiles) {
-			if(indexFiles.getLeft().exists()) {
-				indexFiles.getLeft().delete();
-			}
-			if(indexFiles.getRight().exists()) {
-				indexFiles.getRight().delete();
-			}
+		synchronized(this.tempInvertedIndexFiles) {
+			this.deleteTemporaryInvertedIndexFiles(this.tempInvertedIndexFiles);
+			this.tempInvertedIndexFiles.clear();
 		}
-		this.tempInvertedIndexFiles.clear();
 
 		// Contents index
-		for(File indexFile: this.tempContentsIndexFiles) {
+		synchronized(this.tempContentsIndexFiles) {
+			this.deleteTemporaryContentsIndexFiles(this.tempContentsIndexFiles);
+			this.tempContentsIndexFiles.clear();
+		}
+	}
+	
+	/**
+	 * Deletes the given temporary inverted index files.
+	 * @param indexFiles
+	 */
+	private void deleteTemporaryInvertedIndexFiles(List<Pair<File, File>> indexFiles) {
+		for(Pair<File, File> indexFilePair: indexFiles) {
+			if(indexFilePair.getLeft().exists()) {
+				indexFilePair.getLeft().delete();
+			}
+			if(indexFilePair.getRight().exists()) {
+				indexFilePair.getRight().delete();
+			}
+		}
+	}
+	
+	/**
+	 * Deletes the given temporary contents index files.
+	 * @param indexFiles
+	 */
+	private void deleteTemporaryContentsIndexFiles(List<File> indexFiles) {
+		for(File indexFile: indexFiles) {
 			if(indexFile.exists()) {
 				indexFile.delete();
 			}
 		}
-		this.tempContentsIndexFiles.clear();
 	}
 	
 	/**
@@ -399,4 +417,163 @@ public class DocumentIndexer {
 			this.citationIndexFile.delete();
 		}
 	}
+	
+	
+	/**
+	 * Parses and inverts document files, until there are no more files left. Each worker uses its own text preprocessor 
+	 * and builds its own in-memory runs of inverted index and contents index.
+	 */
+	private class IndexingWorker implements Callable<Void> {
+		
+		/**
+		 * Contains the paths of all document files and the index of the next file to be processed, which are shared by all workers.
+		 */
+		private final String[] documentPaths;
+		private final AtomicInteger nextDocumentIndex;
+		
+		/**
+		 * Contains the approximate number of bytes, that the in-memory indexes of this worker may occupy.
+		 */
+		private final long memoryBudget;
+		
+		/**
+		 * Contains the text preprocessor of this worker.
+		 */
+		private final TextPreprocessor textPreprocessor;
+		
+		/**
+		 * Contain the constructors for the in-memory runs of inverted index and contents index.
+		 */
+		private final InvertedIndexConstructor invertedIndexConstructor;
+		private final ContentsIndexConstuctor contentsIndexConstructor;
+		
+		/**
+		 * Contains for each patent processed by this worker the ids of documents, that it cites.
+		 */
+		private final Map<PatentDocument, TIntList> linkedDocuments = new HashMap<PatentDocument, TIntList>();
+		
+		
+		/**
+		 * Creates a new IndexingWorker instance.
+		 * @param documentPaths
+		 * @param nextDocumentIndex
+		 * @param memoryBudget
+		 */
+		public IndexingWorker(String[] documentPaths, AtomicInteger nextDocumentIndex, long memoryBudget) {
+			this.documentPaths = documentPaths;
+			this.nextDocumentIndex = nextDocumentIndex;
+			this.memoryBudget = memoryBudget;
+			this.textPreprocessor = new TextPreprocessor(DocumentIndexer.this.textPreprocessor);
+			this.invertedIndexConstructor = new InvertedIndexConstructor(DocumentIndexer.this.codec, new InvertedIndexSeekList());
+			this.contentsIndexConstructor = new ContentsIndexConstuctor(DocumentIndexer.this.codec, new ContentsIndexSeekList());
+		}
+		
+		
+		@Override
+		public Void call() throws IOException {
+			int documentIndex;
+			while((documentIndex = this.nextDocumentIndex.getAndIncrement()) < this.documentPaths.length) {
+				System.out.println(String.format("Index document %d/%d...", documentIndex + 1, this.documentPaths.length));
+				
+				String documentPath = this.documentPaths[documentIndex];
+				try {
+					this.indexSingleDocumentFile(documentPath);
+				} catch (XMLStreamException e) {
+					String fileName = Paths.get(documentPath).getFileName().toString();
+					System.out.println(String.format("File '%s' could not be parsed and was skipped.", fileName));
+				}
+			}
+			
+			return null;
+		}
+		
+		/**
+		 * Indexes a single document. 
+		 * @param documentFilePath
+		 * @throws XMLStreamException
+		 * @throws IOException
+		 */
+		private void indexSingleDocumentFile(String documentFilePath) throws XMLStreamException, IOException {
+			PatentDocumentParser patentParser = new PatentDocumentParser(documentFilePath);
+			for(PatentContentDocument document: patentParser) {
+				// Add all tokens from document to memory index
+				this.addTokens(document);
+				
+				// Adds contents to the index
+				this.contentsIndexConstructor.put(document, CONTENT_TYPES_TO_STORE);
+				
+				// Add document linked document map
+				this.linkedDocuments.put(document.withoutContent(), new TIntArrayList(document.getLinkedDocumentIds()));
+				
+				// If memory budget is exceeded, write inverted and contents index to new temporary files.
+				if(this.getMemoryUsage() >= this.memoryBudget) {
+					System.out.println("Write temp files...");
+					this.writeTemporaryContentsIndex();
+					this.writeTemporaryInvertedIndex();
+				}
+			}
+		}
+		
+		/**
+		 * Gets the approximate number of bytes occupied by the in-memory indexes of this worker.
+		 * @return
+		 */
+		private long getMemoryUsage() {
+			return this.invertedIndexConstructor.getMemoryUsage() + this.contentsIndexConstructor.getMemoryUsage();
+		}
+		
+		/**
+		 * Adds all tokens from document to memory index and return number of inserted tokens.
+		 * @param document
+		 * @return
+		 * @throws IOException
+		 */
+		private void addTokens(PatentContentDocument document) throws IOException{
+			Map<ContentType, Integer> tokenCounts = new HashMap<ContentType, Integer>();
+			for(ContentType contentType: ContentType.values()) {
+				// Tokenize, stem and remove stop-words from content, and add single tokens to index
+				List<String> tokens = this.textPreprocessor.tokenize(document.getContent(contentType));
+				for(int position = 0; position < tokens.size(); position++) {
+					String token = tokens.get(position);
+					if(!this.textPreprocessor.isStopWord(token)) {
+						// Stem token
+						token = this.textPreprocessor.stem(token);
+						
+						// Add posting to memory index
+						if(!token.isEmpty()) {
+							this.invertedIndexConstructor.add(document.getId(), token, contentType, position);
+						}
+					}
+				}
+				
+				tokenCounts.put(contentType, tokens.size());
+			}
+			
+			document.setTokensCount(tokenCounts);
+			this.invertedIndexConstructor.setDocumentLengths(document.getId(), tokenCounts);
+		}
+		
+		/**
+		 * Write inverted index from memory to temporary index files.
+		 * @throws IOException
+		 */	
+		private void writeTemporaryInvertedIndex() throws IOException {
+			File frequencyIndexFile = DocumentIndexer.this.createTempFile(TEMP_FREQUENCY_INDEX_PREFIX);
+			File positionalIndexFile = DocumentIndexer.this.createTempFile(TEMP_POSITIONAL_INDEX_PREFIX);
+			DocumentIndexer.this.tempInvertedIndexFiles.add(Pair.of(frequencyIndexFile, positionalIndexFile));		
+			this.invertedIndexConstructor.save(frequencyIndexFile, positionalIndexFile);
+			this.invertedIndexConstructor.clear();
+		}
+		
+		/**
+		 * Write contents index from memory to temporary index files.
+		 * @throws IOException
+		 */	
+		private void writeTemporaryContentsIndex() throws IOException {
+			File contentsIndexFile = DocumentIndexer.this.createTempFile(TEMP_CONTENTS_INDEX_PREFIX);
+			DocumentIndexer.this.tempContentsIndexFiles.add(contentsIndexFile);
+			this.contentsIndexConstructor.save(contentsIndexFile);
+			this.contentsIndexConstructor.clear();
+		}
+	}
 }
@@ -0,0 +1,118 @@
+package indexing;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class MergePolicy {
+
+	/**
+	 * Contains the maximum number of runs, that are merged at once.
+	 */
+	private final int mergeFactor;
+	
+	/**
+	 * Contains the number of threads, that merge runs of the same level concurrently.
+	 */
+	private final int threadsCount;
+	
+	
+	/**
+	 * Creates a new MergePolicy instance.
+	 * @param mergeFactor
+	 * @param threadsCount
+	 */
+	public MergePolicy(int mergeFactor, int threadsCount) {
+		this.mergeFactor = Math.max(2, mergeFactor);
+		this.threadsCount = Math.max(1, threadsCount);
+	}
+	
+	
+	/**
+	 * Gets the maximum number of runs, that are merged at once.
+	 * @return
+	 */
+	public int getMergeFactor() {
+		return this.mergeFactor;
+	}
+	
+	
+	/**
+	 * Reduces the given runs in rounds, until there are at most as many runs left as the merge factor allows, so that the final merge reads a bounded number of files.
+	 * Runs are organized in levels: Initial runs are on level 0, the result of merging runs of level n is on level n+1.
+	 * Each round merges only as many runs of the lowest levels as needed: Full groups of the merge factor, as long as there are enough runs in excess, 
+	 * otherwise a single group, that is just large enough to reach the merge factor. Remaining runs are carried forward without being rewritten. 
+	 * Groups of the same round are independent and are therefore merged concurrently.
+	 * @param runs
+	 * @param merger
+	 * @return
+	 * @throws IOException
+	 */
+	public <T> List<T> reduce(List<T> runs, RunMerger<T> merger) throws IOException {
+		List<T> levelRuns = new ArrayList<T>(runs);
+		if(levelRuns.size() <= this.mergeFactor) {
+			return levelRuns;
+		}
+		
+		ExecutorService executor = Executors.newFixedThreadPool(this.threadsCount);
+		try {
+			while(levelRuns.size() > this.mergeFactor) {
+				// Determine groups of runs to merge, each group of n runs reduces the number of runs by n - 1
+				int excessRunsCount = levelRuns.size() - this.mergeFactor;
+				int groupsCount = Math.min(excessRunsCount / (this.mergeFactor - 1), levelRuns.size() / this.mergeFactor);
+				int groupSize = this.mergeFactor;
+				if(groupsCount == 0) {
+					groupsCount = 1;
+					groupSize = excessRunsCount + 1;
+				}
+				
+				// Split runs of lowest levels into groups, remaining runs are carried forward
+				List<Callable<T>> merges = new ArrayList<Callable<T>>();
+				for(int i = 0; i < groupsCount; i++) {
+					List<T> group = levelRuns.subList(i * groupSize, (i + 1) * groupSize);
+					merges.add(() -> merger.merge(group));
+				}
+				List<T> nextLevelRuns = new ArrayList<T>(levelRuns.subList(groupsCount * groupSize, levelRuns.size()));
+				
+				// Merge groups concurrently
+				for(Future<T> future: executor.invokeAll(merges)) {
+					nextLevelRuns.add(future.get());
+				}
+				levelRuns = nextLevelRuns;
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Merging was interrupted.", e);
+		} catch (ExecutionException e) {
+			if(e.getCause() instanceof IOException) {
+				throw (IOException)e.getCause();
+			}
+			throw new IOException(e.getCause());
+		} finally {
+			executor.shutdownNow();
+		}
+		
+		return levelRuns;
+	}
+	
+	
+	/**
+	 * Merges a group of runs into a single new run.
+	 */
+	@FunctionalInterface
+	public interface RunMerger<T> {
+		
+		/**
+		 * Merges the given runs and returns the resulting run.
+		 * @param runs
+		 * @return
+		 * @throws IOException
+		 */
+		T merge(List<T> runs) throws IOException;
+	}
+}
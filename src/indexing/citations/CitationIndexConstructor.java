@@ -9,6 +9,7 @@ import com.google.common.collect.Multimap;
 
 import indexing.generic.GenericIndexConstructor;
 import io.index.IndexWriter;
+import io.index.codecs.IndexCodec;
 
 public class CitationIndexConstructor extends GenericIndexConstructor<Integer> {
 	
@@ -20,19 +21,19 @@ public class CitationIndexConstructor extends GenericIndexConstructor<Integer> {
 
 	/**
 	 * Creates a new CitationIndexConstructor instance, that does not create a seek list.
-	 * @param compress
+	 * @param codec
 	 */
-	public CitationIndexConstructor(boolean compress) {
-		super(compress);
+	public CitationIndexConstructor(IndexCodec codec) {
+		super(codec);
 	}
 	
 	/**
 	 * Creates a new CitationIndexConstructor instance, that creates a seek list.
-	 * @param compress
+	 * @param codec
 	 * @param seekList
 	 */
-	public CitationIndexConstructor(boolean compress, CitationIndexSeekList seekList) {
-		super(compress, seekList);
+	public CitationIndexConstructor(IndexCodec codec, CitationIndexSeekList seekList) {
+		super(codec, seekList);
 	}
 	
 	
@@ -3,24 +3,31 @@ package indexing.citations;
 import java.io.EOFException;
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
+import indexing.segments.Segment;
 import io.FileReaderWriterFactory;
+import io.index.IndexHeader;
 import io.index.IndexReader;
 
 public class CitationIndexReader implements AutoCloseable {
 	
 	/**
-	 * Contains the file reader for the index file.
+	 * Contains the file readers for the index file per segment. They are only duplicated for each lookup, 
+	 * so that concurrent lookups do not move each other's file pointers.
 	 */
-	private IndexReader indexFile;
+	private final List<IndexReader> indexFiles = new ArrayList<IndexReader>();
 	
 	/**
-	 * Contains the corresponding seek list.
+	 * Contains the corresponding seek lists per segment.
 	 */
-	private CitationIndexSeekList seekList;
-	
+	private final List<CitationIndexSeekList> seekLists = new ArrayList<CitationIndexSeekList>();
+
 	/**
 	 * Contains the number of all citations in the index.
 	 */
@@ -31,17 +38,42 @@ public class CitationIndexReader implements AutoCloseable {
 	 * Creates a new InvertedIndexReader instance.
 	 * @param indexFile
 	 * @param seekListFile
-	 * @param isCompressed
 	 * @throws IOException
 	 */
-	public CitationIndexReader(File indexFile, File seekListFile, boolean isCompressed) throws IOException {
-		this.indexFile = FileReaderWriterFactory.getInstance().getDirectIndexReader(indexFile, isCompressed);
-		this.totalCitationsCount = this.indexFile.readInt();
-		
-		this.seekList = new CitationIndexSeekList();
-		this.seekList.load(FileReaderWriterFactory.getInstance().getDirectIndexReader(seekListFile, isCompressed));
+	public CitationIndexReader(File indexFile, File seekListFile) throws IOException {
+		this.openSegment(indexFile, seekListFile);
+	}
+	
+	/**
+	 * Creates a new CitationIndexReader instance, that reads the citation indexes of all given segments.
+	 * @param segments
+	 * @throws IOException
+	 */
+	public CitationIndexReader(List<Segment> segments) throws IOException {
+		for(Segment segment: segments) {
+			this.openSegment(segment.getCitationIndexFile(), segment.getCitationIndexSeekListFile());
+		}
 	}
 	
+	/**
+	 * Opens the citation index of a single segment.
+	 * @param indexFile
+	 * @param seekListFile
+	 * @throws IOException
+	 */
+	private void openSegment(File indexFile, File seekListFile) throws IOException {
+		IndexReader indexReader = FileReaderWriterFactory.getInstance().getDirectIndexReader(indexFile);
+		this.totalCitationsCount += indexReader.getHeader().getSize();
+		
+		CitationIndexSeekList seekList = new CitationIndexSeekList();
+		try(IndexReader seekListReader = FileReaderWriterFactory.getInstance().getDirectIndexReader(seekListFile)) {
+			seekList.load(seekListReader);
+		}
+		
+		this.indexFiles.add(indexReader);
+		this.seekLists.add(seekList);
+	}
+
 	
 	/**
 	 * Gets the number of all tokens occurrences in the index.
@@ -59,28 +91,36 @@ public class CitationIndexReader implements AutoCloseable {
 	 * @throws IOException
 	 */
 	public Set<Integer> getLinkingDocuments(int documentId) throws IOException {
-		long offset = this.seekList.get(documentId);
-		return this.getLinkingDocuments(documentId, offset);
+		Set<Integer> linkingDocumentIds = new HashSet<Integer>();
+		for(int segment = 0; segment < this.indexFiles.size(); segment++) {
+			long offset = this.seekLists.get(segment).get(documentId);
+			if(offset >= 0) {
+				linkingDocumentIds.addAll(this.getLinkingDocuments(this.indexFiles.get(segment).duplicate(), documentId, offset));
+			}
+		}
+		
+		return linkingDocumentIds;
 	}
 	
 	/**
-	 * Gets ids of documents that cite the given one.
+	 * Gets ids of documents that cite the given one from the given index file.
+	 * @param indexFile
 	 * @param documentId
 	 * @param offset
 	 * @return
 	 * @throws IOException
 	 */
-	private Set<Integer> getLinkingDocuments(int documentId, long offset) throws IOException {
-		this.indexFile.seek(offset);
+	private Set<Integer> getLinkingDocuments(IndexReader indexFile, int documentId, long offset) throws IOException {
+		indexFile.seek(offset);
 		while(true) {
 			try {
-				int readDocumentId = this.indexFile.readInt();
+				int readDocumentId = indexFile.readInt();
 				if(readDocumentId == documentId) {
-					this.indexFile.getSkippingAreaLength();
-					return this.readDocumentIds();
+					indexFile.getSkippingAreaLength();
+					return this.readDocumentIds(indexFile);
 				}
 				
-				this.indexFile.skipSkippingArea();
+				indexFile.skipSkippingArea();
 			}
 			catch(EOFException e) {
 				break;
@@ -91,17 +131,42 @@ public class CitationIndexReader implements AutoCloseable {
 	}
 	
 	/**
-	 * Reads the list of document ids from index file.
+	 * Gets the ids of linking documents for all documents, that are cited by any other document.
+	 * @return
+	 * @throws IOException
+	 */
+	public Map<Integer, Set<Integer>> getAllLinkingDocuments() throws IOException {
+		Map<Integer, Set<Integer>> linkingDocuments = new HashMap<Integer, Set<Integer>>();
+		for(IndexReader segmentIndexFile: this.indexFiles) {
+			// Skip header
+			IndexReader indexFile = segmentIndexFile.duplicate();
+			indexFile.seek(IndexHeader.LENGTH);
+			
+			while(indexFile.getFilePointer() < indexFile.length()) {
+				int documentId = indexFile.readInt();
+				indexFile.getSkippingAreaLength();
+				
+				linkingDocuments.putIfAbsent(documentId, new HashSet<Integer>());
+				linkingDocuments.get(documentId).addAll(this.readDocumentIds(indexFile));
+			}
+		}
+		
+		return linkingDocuments;
+	}
+	
+	/**
+	 * Reads the list of document ids from the given index file.
+	 * @param indexFile
 	 * @return
 	 * @throws IOException
 	 */
-	private Set<Integer> readDocumentIds() throws IOException {
-		int count = this.indexFile.readInt();
+	private Set<Integer> readDocumentIds(IndexReader indexFile) throws IOException {
+		int count = indexFile.readInt();
 		Set<Integer> documentIds = new HashSet<Integer>(count);
 		int lastDocumentId = 0;
 		for(int i = 0; i < count; i++) {
-			int documentId = this.indexFile.readInt();
-			if(this.indexFile.isCompressed()) {
+			int documentId = indexFile.readInt();
+			if(indexFile.isCompressed()) {
 				documentId += lastDocumentId;
 				lastDocumentId = documentId;
 			}
@@ -113,7 +178,9 @@ public class CitationIndexReader implements AutoCloseable {
 
 	
 	@Override
-	public void close() throws Exception {
-		this.indexFile.close();
+	public void close() throws IOException {
+		for(IndexReader indexFile: this.indexFiles) {
+			indexFile.close();
+		}
 	}	
 }
@@ -11,31 +11,43 @@ import gnu.trove.map.TIntObjectMap;
 import gnu.trove.map.hash.TIntObjectHashMap;
 import indexing.generic.GenericIndexConstructor;
 import io.index.IndexWriter;
+import io.index.codecs.IndexCodec;
 import postings.ContentType;
 
 public class ContentsIndexConstuctor extends GenericIndexConstructor<Integer> {
 	
+	/**
+	 * Contain the approximate number of bytes occupied by the contents of a new document and by a single content (without its characters).
+	 */
+	private static final int DOCUMENT_SIZE = 120;
+	private static final int CONTENT_SIZE = 48;
+	
 	/**
 	 * Contains the actual contents index, which stores contents for each document represented by its id.
 	 */
 	private TIntObjectMap<EnumMap<ContentType, String>> contentsIndex = new TIntObjectHashMap<EnumMap<ContentType, String>>();
+	
+	/**
+	 * Contains the approximate number of bytes occupied by the in-memory index.
+	 */
+	private long memoryUsage = 0;
 
 	
 	/**
 	 * Creates a new ContentsIndexConstuctor instance, that does not creat a seek list.
-	 * @param compress
+	 * @param codec
 	 */
-	public ContentsIndexConstuctor(boolean compress) {
-		super(compress);
+	public ContentsIndexConstuctor(IndexCodec codec) {
+		super(codec);
 	}
 	
 	/**
 	 * Creates a new ContentsIndexConstuctor instance, that creates a seek list.
-	 * @param compress
+	 * @param codec
 	 * @param seekList
 	 */
-	public ContentsIndexConstuctor(boolean compress, ContentsIndexSeekList seekList) {
-		super(compress, seekList);
+	public ContentsIndexConstuctor(IndexCodec codec, ContentsIndexSeekList seekList) {
+		super(codec, seekList);
 	}
 	
 
@@ -46,11 +58,23 @@ public class ContentsIndexConstuctor extends GenericIndexConstructor<Integer> {
 	 */
 	public void put(PatentContentDocument document, ContentType[] contentTypesToStore) {
 		EnumMap<ContentType, String> contents = new EnumMap<ContentType, String>(ContentType.class);
+		long memoryUsage = DOCUMENT_SIZE;
 		for(ContentType contentType: contentTypesToStore) {
-			contents.put(contentType, document.getContent(contentType));
+			String content = document.getContent(contentType);
+			contents.put(contentType, content);
+			memoryUsage += CONTENT_SIZE + 2 * content.length();
 		}
 		
 		this.contentsIndex.put(document.getId(), contents);
+		this.memoryUsage += memoryUsage;
+	}
+	
+	/**
+	 * Gets the approximate number of bytes occupied by the in-memory index.
+	 * @return
+	 */
+	public long getMemoryUsage() {
+		return this.memoryUsage;
 	}
 	
 	@Override
@@ -90,5 +114,6 @@ public class ContentsIndexConstuctor extends GenericIndexConstructor<Integer> {
 	public void clear() {
 		super.clear();
 		this.contentsIndex = new TIntObjectHashMap<EnumMap<ContentType, String>>();
+		this.memoryUsage = 0;
 	}
 }
@@ -2,62 +2,93 @@ package indexing.contents;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
-import java.util.stream.IntStream;
+import java.util.PriorityQueue;
+
 import io.FileReaderWriterFactory;
+import io.index.IndexHeader;
 import io.index.IndexReader;
 import io.index.IndexWriter;
+import io.index.codecs.IndexCodec;
 
 public class ContentsIndexMerger {
 	
 	/**
-	 * Determines, whether the index files are compressed or not.
+	 * Contains the codec, that is used to encode the merged index.
 	 */
-	private boolean isCompressed;
+	private IndexCodec codec;
 	
 
 	/**
 	 * Creates a new ContentsIndexMerger instance.
-	 * @param isCompressed
+	 * @param codec
 	 */
-	public ContentsIndexMerger(boolean isCompressed) {
-		this.isCompressed = isCompressed;
+	public ContentsIndexMerger(IndexCodec codec) {
+		this.codec = codec;
 	}
 	
 	
+	/**
+	 * Merges the given temporary index files into a single index and writes the corresponding seek list.
+	 * @param destinationIndexFile
+	 * @param temporaryIndexFiles
+	 * @param seekListFile
+	 * @throws IOException
+	 */
 	public void merge(File destinationIndexFile, List<File> temporaryIndexFiles, File seekListFile) throws IOException {
+		ContentsIndexSeekList seekList = this.merge(destinationIndexFile, temporaryIndexFiles);
+		
+		// Write seek list to file
+		IndexHeader seekListHeader = new IndexHeader(this.codec, seekList.size(), seekList.size());
+		try(IndexWriter seekListWriter = FileReaderWriterFactory.getInstance().getDirectIndexWriter(seekListFile, seekListHeader)) {
+			seekList.save(seekListWriter);
+		}
+	}
+	
+	/**
+	 * Merges the given temporary index files into a single index without writing a seek list, so that the result can be merged again later.
+	 * Temporary files are processed in a k-way merge using a priority queue. Returns the seek list of the merged index.
+	 * @param destinationIndexFile
+	 * @param temporaryIndexFiles
+	 * @return
+	 * @throws IOException
+	 */
+	public ContentsIndexSeekList merge(File destinationIndexFile, List<File> temporaryIndexFiles) throws IOException {
 		// Initialize seeklist
 		ContentsIndexSeekList seekList = new ContentsIndexSeekList();
 		
-		// Create destination index file
-		try (IndexWriter destinationFileWriter = FileReaderWriterFactory.getInstance().getDirectIndexWriter(destinationIndexFile, this.isCompressed)) {
-			// Open temporary index files
-			List<Integer> firstDocumnentIds = new ArrayList<Integer>(temporaryIndexFiles.size());
-			List<IndexReader> sourceFiles = new ArrayList<IndexReader>(temporaryIndexFiles.size());
-			int totalSize = 0;
-			for(File temporaryIndexFile: temporaryIndexFiles) {
-				IndexReader tempFile = FileReaderWriterFactory.getInstance().getBufferedIndexReader(temporaryIndexFile, this.isCompressed);
-				sourceFiles.add(tempFile);
-				totalSize += tempFile.readInt();
-				firstDocumnentIds.add(tempFile.readInt());
+		// Open temporary index files, which are ordered by their next document id
+		PriorityQueue<Run> runs = new PriorityQueue<Run>(Math.max(1, temporaryIndexFiles.size()), Comparator.comparingInt((Run run) -> run.documentId));
+		int totalSize = 0;
+		int totalEntriesCount = 0;
+		for(File temporaryIndexFile: temporaryIndexFiles) {
+			IndexReader tempFile = FileReaderWriterFactory.getInstance().getBufferedIndexReader(temporaryIndexFile);
+			if(tempFile.isCompressed() != this.codec.isCompressed()) {
+				tempFile.close();
+				throw new IOException("Contents are copied as they are, so temporary index files have to be encoded like the merged index.");
 			}
-			
-			// Write total documents count
-			destinationFileWriter.writeInt(totalSize);
-
-			while(firstDocumnentIds.size() > 0) {
-				// Determine next document id index
-				int nextDocumentIdIndex = IntStream.range(0, firstDocumnentIds.size())	
-										.boxed()
-										.min(Comparator.comparing(x -> firstDocumnentIds.get(x)))
-										.get();
-				IndexReader currentFile = sourceFiles.get(nextDocumentIdIndex);
+			totalSize += tempFile.getHeader().getSize();
+			totalEntriesCount += tempFile.getHeader().getEntriesCount();
+			Run run = new Run(tempFile);
+			if(run.next()) {
+				runs.add(run);
+			}
+			else {
+				run.close();
+			}
+		}
+		
+		// Create destination index file with header containing total documents count
+		IndexHeader header = new IndexHeader(this.codec, totalEntriesCount, totalSize);
+		try (IndexWriter destinationFileWriter = FileReaderWriterFactory.getInstance().getDirectIndexWriter(destinationIndexFile, header)) {
+			while(!runs.isEmpty()) {
+				// Get file with next document id
+				Run run = runs.poll();
 				
 				// Get document id and corresponding content
-				int documentId = firstDocumnentIds.get(nextDocumentIdIndex);
-				byte[] contentsBytes = currentFile.getSkippingAreaReader().readToEnd();
+				int documentId = run.documentId;
+				byte[] contentsBytes = run.indexReader.getSkippingAreaReader().readToEnd();
 				
 				// Write seek list entry
 				seekList.put(documentId, destinationFileWriter.getFilePointer());
@@ -68,21 +99,66 @@ public class ContentsIndexMerger {
 				destinationFileWriter.write(contentsBytes);
 				destinationFileWriter.endSkippingArea();
 				
-				// Refresh tokens and source files list
-				if(currentFile.getFilePointer() < currentFile.length()) {
-					firstDocumnentIds.set(nextDocumentIdIndex, sourceFiles.get(nextDocumentIdIndex).readInt());
+				// Move run to its next document
+				if(run.next()) {
+					runs.add(run);
 				}
 				else {
-					currentFile.close();
-					sourceFiles.remove(nextDocumentIdIndex);
-					firstDocumnentIds.remove(nextDocumentIdIndex);
+					run.close();
 				}
 			}
 		}
 		
-		// Write seek list to file
-		try(IndexWriter seekListWriter = FileReaderWriterFactory.getInstance().getDirectIndexWriter(seekListFile, this.isCompressed)) {
-			seekList.save(seekListWriter);
+		return seekList;
+	}
+	
+	
+	/**
+	 * Represents a temporary index file, which is read document by document.
+	 */
+	private static class Run {
+		
+		/**
+		 * Contains the reader of the temporary index file.
+		 */
+		private final IndexReader indexReader;
+		
+		/**
+		 * Contains the id of the current document.
+		 */
+		private int documentId;
+		
+		
+		/**
+		 * Creates a new Run instance.
+		 * @param indexReader
+		 */
+		public Run(IndexReader indexReader) {
+			this.indexReader = indexReader;
+		}
+		
+		
+		/**
+		 * Reads the id of the next document. The contents of the previous document have to be consumed before. 
+		 * Returns false, if there are no more documents.
+		 * @return
+		 * @throws IOException
+		 */
+		public boolean next() throws IOException {
+			if(this.indexReader.getFilePointer() >= this.indexReader.length()) {
+				return false;
+			}
+			
+			this.documentId = this.indexReader.readInt();
+			return true;
+		}
+		
+		/**
+		 * Closes the underlying reader.
+		 * @throws IOException
+		 */
+		public void close() throws IOException {
+			this.indexReader.close();
 		}
 	}
 }
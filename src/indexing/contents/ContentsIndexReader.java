@@ -3,9 +3,12 @@ package indexing.contents;
 import java.io.EOFException;
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.EnumMap;
+import java.util.List;
 
 import indexing.documentmap.DocumentMapSeekList;
+import indexing.segments.Segment;
 import io.FileReaderWriterFactory;
 import io.index.IndexReader;
 import postings.ContentType;
@@ -13,15 +16,16 @@ import postings.ContentType;
 public class ContentsIndexReader implements AutoCloseable {
 
 	/**
-	 * Contains the file reader for the contents index.
+	 * Contains the file readers for the contents index per segment. They are only duplicated for each lookup, 
+	 * so that concurrent lookups do not move each other's file pointers.
 	 */
-	private IndexReader contentsIndexFile;
+	private final List<IndexReader> contentsIndexFiles = new ArrayList<IndexReader>();
 	
 	/**
-	 * Contains the corresponding seek list.
+	 * Contains the corresponding seek lists per segment.
 	 */
-	private DocumentMapSeekList seekList;
-	
+	private final List<DocumentMapSeekList> seekLists = new ArrayList<DocumentMapSeekList>();
+
 	/**
 	 * Contains the number of all documents stored in the index.
 	 */
@@ -32,17 +36,42 @@ public class ContentsIndexReader implements AutoCloseable {
 	 * Creates a new ContentsIndexReader instance.
 	 * @param contentsIndexFile
 	 * @param contentsIndexSeekListFile
-	 * @param isCompressed
 	 * @throws IOException
 	 */
-	public ContentsIndexReader(File contentsIndexFile, File contentsIndexSeekListFile, boolean isCompressed) throws IOException {
-		this.contentsIndexFile = FileReaderWriterFactory.getInstance().getMemoryMappedIndexReader(contentsIndexFile, isCompressed);
-		this.totalDocumentsCount = this.contentsIndexFile.readInt();
-		
-		this.seekList = new DocumentMapSeekList();
-		this.seekList.load(FileReaderWriterFactory.getInstance().getDirectIndexReader(contentsIndexSeekListFile, isCompressed));
+	public ContentsIndexReader(File contentsIndexFile, File contentsIndexSeekListFile) throws IOException {
+		this.openSegment(contentsIndexFile, contentsIndexSeekListFile);
+	}
+	
+	/**
+	 * Creates a new ContentsIndexReader instance, that reads the contents indexes of all given segments.
+	 * @param segments
+	 * @throws IOException
+	 */
+	public ContentsIndexReader(List<Segment> segments) throws IOException {
+		for(Segment segment: segments) {
+			this.openSegment(segment.getContentsIndexFile(), segment.getContentsIndexSeekListFile());
+		}
 	}
 	
+	/**
+	 * Opens the contents index of a single segment.
+	 * @param contentsIndexFile
+	 * @param contentsIndexSeekListFile
+	 * @throws IOException
+	 */
+	private void openSegment(File contentsIndexFile, File contentsIndexSeekListFile) throws IOException {
+		IndexReader contentsIndexReader = FileReaderWriterFactory.getInstance().getMemoryMappedIndexReader(contentsIndexFile);
+		this.totalDocumentsCount += contentsIndexReader.getHeader().getSize();
+		
+		DocumentMapSeekList seekList = new DocumentMapSeekList();
+		try(IndexReader seekListReader = FileReaderWriterFactory.getInstance().getDirectIndexReader(contentsIndexSeekListFile)) {
+			seekList.load(seekListReader);
+		}
+		
+		this.contentsIndexFiles.add(contentsIndexReader);
+		this.seekLists.add(seekList);
+	}
+
 	
 	/**
 	 * Gets the number of all documents stored in the index.
@@ -59,34 +88,40 @@ public class ContentsIndexReader implements AutoCloseable {
 	 * @throws IOException
 	 */
 	public EnumMap<ContentType, String> getContents(int documentId) throws IOException {
-		long startOffset = this.seekList.get(documentId);
-		if(startOffset > 0) {
-			return this.getContents(documentId, startOffset);
+		for(int segment = 0; segment < this.contentsIndexFiles.size(); segment++) {
+			long startOffset = this.seekLists.get(segment).get(documentId);
+			if(startOffset > 0) {
+				EnumMap<ContentType, String> contents = this.getContents(this.contentsIndexFiles.get(segment).duplicate(), documentId, startOffset);
+				if(contents != null) {
+					return contents;
+				}
+			}
 		}
 		
 		return null;
 	}
 	
 	/**
-	 * Gets the contents of a document from index by specifying its id and a start offset in the index file.
+	 * Gets the contents of a document from the given index file by specifying its id and a start offset in the index file.
+	 * @param contentsIndexFile
 	 * @param documentId
 	 * @param startOffset
 	 * @return
 	 * @throws IOException
 	 */
-	private EnumMap<ContentType, String> getContents(int documentId, long startOffset) throws IOException {
-		this.contentsIndexFile.seek(startOffset);
+	private EnumMap<ContentType, String> getContents(IndexReader contentsIndexFile, int documentId, long startOffset) throws IOException {
+		contentsIndexFile.seek(startOffset);
 		while(true) {
 			try {
 				// Read document id
-				int readDocumentId = this.contentsIndexFile.readInt();
+				int readDocumentId = contentsIndexFile.readInt();
 				
 				if(readDocumentId == documentId) {
-					this.contentsIndexFile.getSkippingAreaLength();
-					return this.readContents();
+					contentsIndexFile.getSkippingAreaLength();
+					return this.readContents(contentsIndexFile);
 				}
 				
-				this.contentsIndexFile.skipSkippingArea();
+				contentsIndexFile.skipSkippingArea();
 			}
 			catch(EOFException e) {
 				return null;
@@ -95,14 +130,15 @@ public class ContentsIndexReader implements AutoCloseable {
 	}
 	
 	/**
-	 * Reads the contents from the current position in the contents index file.
+	 * Reads the contents from the current position in the given contents index file.
+	 * @param contentsIndexFile
 	 * @return
 	 * @throws IOException
 	 */
-	private EnumMap<ContentType, String> readContents() throws IOException {
+	private EnumMap<ContentType, String> readContents(IndexReader contentsIndexFile) throws IOException {
 		EnumMap<ContentType, String> contents = new EnumMap<ContentType, String>(ContentType.class);
 		for(ContentType contentType: ContentType.orderedValues()) {
-			String content = this.contentsIndexFile.readString();
+			String content = contentsIndexFile.readString();
 			if(content != null && !content.isEmpty()) {
 				contents.put(contentType, content);
 			}
@@ -116,6 +152,8 @@ public class ContentsIndexReader implements AutoCloseable {
 	 * Closes this resource, relinquishing any underlying resources.
 	 */
 	public void close() throws IOException {
-		this.contentsIndexFile.close();
+		for(IndexReader contentsIndexFile: this.contentsIndexFiles) {
+			contentsIndexFile.close();
+		}
 	}
 }
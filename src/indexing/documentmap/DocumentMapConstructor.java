@@ -10,6 +10,7 @@ import gnu.trove.map.TIntObjectMap;
 import gnu.trove.map.hash.TIntObjectHashMap;
 import indexing.generic.GenericIndexConstructor;
 import io.index.IndexWriter;
+import io.index.codecs.IndexCodec;
 
 public class DocumentMapConstructor extends GenericIndexConstructor<Integer> {
 
@@ -22,21 +23,21 @@ public class DocumentMapConstructor extends GenericIndexConstructor<Integer> {
 	
 	/**
 	 * Creates a new DocumentMapConstructor instance, that does not create a seek list.
-	 * @param compress
+	 * @param codec
 	 * @throws IOException
 	 */
-	public DocumentMapConstructor(boolean compress) throws IOException {
-		super(compress);
+	public DocumentMapConstructor(IndexCodec codec) throws IOException {
+		super(codec);
 	}
 	
 	/**
 	 * Creates a new DocumentMapConstructor instance, that creates a seek list.
-	 * @param compress
+	 * @param codec
 	 * @param seekList
 	 * @throws IOException
 	 */
-	public DocumentMapConstructor(boolean compress, DocumentMapSeekList seekList) {
-		super(compress, seekList);
+	public DocumentMapConstructor(IndexCodec codec, DocumentMapSeekList seekList) {
+		super(codec, seekList);
 	}
 	
 	
@@ -3,23 +3,29 @@ package indexing.documentmap;
 import java.io.EOFException;
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 
 import documents.PatentDocument;
+import indexing.segments.Segment;
 import io.FileReaderWriterFactory;
+import io.index.IndexHeader;
 import io.index.IndexReader;
+import postings.ContentType;
 
 public class DocumentMapReader implements AutoCloseable {
 
 	/**
-	 * Contains the file reader for the document map.
+	 * Contains the file readers for the document map per segment. They are only duplicated for each lookup, 
+	 * so that concurrent lookups do not move each other's file pointers.
 	 */
-	private IndexReader documentMapFile;
+	private final List<IndexReader> documentMapFiles = new ArrayList<IndexReader>();
 	
 	/**
-	 * Contains the corresponding seek list.
+	 * Contains the corresponding seek lists per segment.
 	 */
-	private DocumentMapSeekList seekList;
-	
+	private final List<DocumentMapSeekList> seekLists = new ArrayList<DocumentMapSeekList>();
+
 	/**
 	 * Contains the number of all documents stored in the index.
 	 */
@@ -32,14 +38,61 @@ public class DocumentMapReader implements AutoCloseable {
 	 * @param documentMapSeekListFile
 	 * @throws IOException
 	 */
-	public DocumentMapReader(File documentMapFile, File documentMapSeekListFile, boolean isCompressed) throws IOException {
-		this.documentMapFile = FileReaderWriterFactory.getInstance().getMemoryMappedIndexReader(documentMapFile, isCompressed);
-		this.totalDocumentsCount = this.documentMapFile.readInt();
+	public DocumentMapReader(File documentMapFile, File documentMapSeekListFile) throws IOException {
+		this.openSegment(documentMapFile, documentMapSeekListFile);
+	}
+	
+	/**
+	 * Creates a new DocumentMapReader instance, that reads the document maps of all given segments.
+	 * @param segments
+	 * @throws IOException
+	 */
+	public DocumentMapReader(List<Segment> segments) throws IOException {
+		for(Segment segment: segments) {
+			this.openSegment(segment.getDocumentMapFile(), segment.getDocumentMapSeekListFile());
+		}
+	}
+	
+	/**
+	 * Creates a new DocumentMapReader instance without any segments.
+	 */
+	private DocumentMapReader() {
+	}
+	
+	/**
+	 * Opens the document map of a single segment.
+	 * @param documentMapFile
+	 * @param documentMapSeekListFile
+	 * @throws IOException
+	 */
+	private void openSegment(File documentMapFile, File documentMapSeekListFile) throws IOException {
+		IndexReader documentMapReader = FileReaderWriterFactory.getInstance().getMemoryMappedIndexReader(documentMapFile);
+		this.totalDocumentsCount += documentMapReader.getHeader().getSize();
+		
+		DocumentMapSeekList seekList = new DocumentMapSeekList();
+		try(IndexReader seekListReader = FileReaderWriterFactory.getInstance().getDirectIndexReader(documentMapSeekListFile)) {
+			seekList.load(seekListReader);
+		}
 		
-		this.seekList = new DocumentMapSeekList();
-		this.seekList.load(FileReaderWriterFactory.getInstance().getDirectIndexReader(documentMapSeekListFile, isCompressed));
+		this.documentMapFiles.add(documentMapReader);
+		this.seekLists.add(seekList);
 	}
+
 	
+	/**
+	 * Gets a reader, that only looks up documents in the document map of the given segment. The returned reader shares the file readers 
+	 * of this instance, so that readers of different segments can be used concurrently. The number of all documents in the index is kept.
+	 * @param segment
+	 * @return
+	 */
+	public DocumentMapReader getSegmentReader(int segment) {
+		DocumentMapReader reader = new DocumentMapReader();
+		reader.documentMapFiles.add(this.documentMapFiles.get(segment));
+		reader.seekLists.add(this.seekLists.get(segment));
+		reader.totalDocumentsCount = this.totalDocumentsCount;
+		
+		return reader;
+	}
 	
 	/**
 	 * Gets the number of all documents stored in the index.
@@ -56,37 +109,117 @@ public class DocumentMapReader implements AutoCloseable {
 	 * @throws IOException
 	 */
 	public PatentDocument getDocument(int documentId) throws IOException {
-		long startOffset = this.seekList.get(documentId);
-		if(startOffset > 0) {
-			return this.getDocument(documentId, startOffset);
+		for(int segment = 0; segment < this.documentMapFiles.size(); segment++) {
+			long startOffset = this.seekLists.get(segment).get(documentId);
+			if(startOffset > 0) {
+				PatentDocument document = this.getDocument(segment, documentId, startOffset);
+				if(document != null) {
+					return document;
+				}
+			}
 		}
 		
 		return null;
 	}
 	
 	/**
-	 * Gets a document from map by specifying its id and a start offset in the map file.
+	 * Gets a document from the map of the given segment by specifying its id and a start offset in the map file.
+	 * @param segment
 	 * @param documentId
 	 * @param startOffset
 	 * @return PatentDocument
 	 * @throws IOException
 	 */
-	private PatentDocument getDocument(int documentId, long startOffset) throws IOException {
-		this.documentMapFile.seek(startOffset);
+	private PatentDocument getDocument(int segment, int documentId, long startOffset) throws IOException {
+		IndexReader documentMapFile = this.documentMapFiles.get(segment).duplicate();
+		if(this.seekDocument(documentMapFile, documentId, startOffset)) {
+			return PatentDocument.load(documentId, documentMapFile);
+		}
+		
+		return null;
+	}
+	
+	/**
+	 * Gets all documents stored in the map.
+	 * @return
+	 * @throws IOException
+	 */
+	public List<PatentDocument> getDocuments() throws IOException {
+		List<PatentDocument> documents = new ArrayList<PatentDocument>(this.totalDocumentsCount);
+		for(IndexReader segmentDocumentMapFile: this.documentMapFiles) {
+			// Skip header
+			IndexReader documentMapFile = segmentDocumentMapFile.duplicate();
+			documentMapFile.seek(IndexHeader.LENGTH);
+			
+			while(documentMapFile.getFilePointer() < documentMapFile.length()) {
+				int documentId = documentMapFile.readInt();
+				documentMapFile.getSkippingAreaLength();
+				documents.add(PatentDocument.load(documentId, documentMapFile));
+			}
+		}
+		
+		return documents;
+	}
+
+	/**
+	 * Gets the number of tokens per content type of a document without loading the whole document. 
+	 * The counts are ordered by content type. Returns null, if the document does not exist.
+	 * @param documentId
+	 * @return
+	 * @throws IOException
+	 */
+	public int[] getTokensCounts(int documentId) throws IOException {
+		for(int segment = 0; segment < this.documentMapFiles.size(); segment++) {
+			long startOffset = this.seekLists.get(segment).get(documentId);
+			if(startOffset <= 0) {
+				continue;
+			}
+			
+			IndexReader documentMapFile = this.documentMapFiles.get(segment).duplicate();
+			if(this.seekDocument(documentMapFile, documentId, startOffset)) {
+				// Skip file id, offset and length
+				documentMapFile.readInt();
+				documentMapFile.readInt();
+				documentMapFile.readInt();
+				
+				// Read token counts
+				int[] tokensCounts = new int[ContentType.orderedValues().length];
+				for(ContentType contentType: ContentType.orderedValues()) {
+					tokensCounts[contentType.ordinal()] = documentMapFile.readInt();
+				}
+				
+				return tokensCounts;
+			}
+		}
+		
+		return null;
+	}
+	
+	/**
+	 * Moves the file pointer of the given map file to the properties of the given document starting from the given offset. 
+	 * Returns false, if the document does not exist.
+	 * @param documentMapFile
+	 * @param documentId
+	 * @param startOffset
+	 * @return
+	 * @throws IOException
+	 */
+	private boolean seekDocument(IndexReader documentMapFile, int documentId, long startOffset) throws IOException {
+		documentMapFile.seek(startOffset);
 		while(true) {
 			try {
 				// Read document id
-				int readDocumentId = this.documentMapFile.readInt();
+				int readDocumentId = documentMapFile.readInt();
 				
 				if(readDocumentId == documentId) {
-					this.documentMapFile.getSkippingAreaLength();
-					return PatentDocument.load(readDocumentId, documentMapFile);
+					documentMapFile.getSkippingAreaLength();
+					return true;
 				}
 				
-				this.documentMapFile.skipSkippingArea();
+				documentMapFile.skipSkippingArea();
 			}
 			catch(EOFException e) {
-				return null;
+				return false;
 			}
 		}
 	}
@@ -95,6 +228,8 @@ public class DocumentMapReader implements AutoCloseable {
 	 * Closes this resource, relinquishing any underlying resources.
 	 */
 	public void close() throws IOException {
-		this.documentMapFile.close();
+		for(IndexReader documentMapFile: this.documentMapFiles) {
+			documentMapFile.close();
+		}
 	}
 }
@@ -7,14 +7,16 @@ import java.util.Set;
 import java.util.stream.Collectors;
 
 import io.FileReaderWriterFactory;
+import io.index.IndexHeader;
 import io.index.IndexWriter;
+import io.index.codecs.IndexCodec;
 
 public abstract class GenericIndexConstructor<T extends Comparable<T>> {
 	
 	/**
-	 * Determines, whether the index should be compressed.
+	 * Contains the codec, that is used to encode the index.
 	 */
-	private boolean compress;
+	private IndexCodec codec;
 	
 	/**
 	 * Contains the corresponding seek list, if it should be constructed.
@@ -24,29 +26,29 @@ public abstract class GenericIndexConstructor<T extends Comparable<T>> {
 	
 	/**
 	 * Creates a new GenericIndexConstructor instance, that does not create a seek list.
-	 * @param compress
+	 * @param codec
 	 */
-	protected GenericIndexConstructor(boolean compress) {
-		this(compress, null);
+	protected GenericIndexConstructor(IndexCodec codec) {
+		this(codec, null);
 	}
 	
 	/**
 	 * Creates a new GenericIndexConstructor instance, that creates a seek list.
-	 * @param compress
+	 * @param codec
 	 * @param seekList
 	 */
-	protected GenericIndexConstructor(boolean compress, GenericSeekList<T> seekList) {
-		this.compress = compress;
+	protected GenericIndexConstructor(IndexCodec codec, GenericSeekList<T> seekList) {
+		this.codec = codec;
 		this.seekList = seekList;
 	}
 	
 	
 	/**
-	 * Determines, whether the index should be compressed.
+	 * Gets the codec, that is used to encode the index.
 	 * @return
 	 */
-	public boolean isCompressed() {
-		return this.compress;
+	public IndexCodec getCodec() {
+		return this.codec;
 	}
 	
 	
@@ -69,11 +71,9 @@ public abstract class GenericIndexConstructor<T extends Comparable<T>> {
 		// Determine, if seek list should be created
 		boolean createSeekList = seekListFile != null && this.seekList != null;	
 		
-		// Open index file
-		try (IndexWriter indexWriter = FileReaderWriterFactory.getInstance().getDirectIndexWriter(indexFile, this.isCompressed())) {
-			// Write size
-			indexWriter.writeInt(this.size());
-			
+		// Open index file and write header containing codec, number of entries and size
+		IndexHeader header = new IndexHeader(this.getCodec(), this.entriesCount(), this.size());
+		try (IndexWriter indexWriter = FileReaderWriterFactory.getInstance().getDirectIndexWriter(indexFile, header)) {
 			// Write values for each index entry
 			List<T> sortedKeys = this.keys().stream().sorted().collect(Collectors.toList());
 			for(T key: sortedKeys) {				
@@ -89,7 +89,8 @@ public abstract class GenericIndexConstructor<T extends Comparable<T>> {
 		
 		// Write seek list to file
 		if(createSeekList) {
-			try(IndexWriter seekListWriter = FileReaderWriterFactory.getInstance().getDirectIndexWriter(seekListFile, this.isCompressed())) {
+			IndexHeader seekListHeader = new IndexHeader(this.getCodec(), this.seekList.size(), this.size());
+			try(IndexWriter seekListWriter = FileReaderWriterFactory.getInstance().getDirectIndexWriter(seekListFile, seekListHeader)) {
 				this.seekList.save(seekListWriter);
 			}
 		}
@@ -123,6 +124,8 @@ public abstract class GenericIndexConstructor<T extends Comparable<T>> {
 	 * Deletes all entries of the index.
 	 */
 	public void clear() {
-		this.seekList.clear();
+		if(this.seekList != null) {
+			this.seekList.clear();
+		}
 	}
 }
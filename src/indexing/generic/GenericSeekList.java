@@ -35,6 +35,14 @@ public abstract class GenericSeekList<K extends Comparable<K>> {
 	}
 	
 	
+	/**
+	 * Gets the number of entries of the seek list.
+	 * @return
+	 */
+	public int size() {
+		return this.seekList.size();
+	}
+	
 	/**
 	 * Gets the set of keys of the seek list.
 	 * @return
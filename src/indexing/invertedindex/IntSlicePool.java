@@ -0,0 +1,212 @@
+package indexing.invertedindex;
+
+import java.util.Arrays;
+
+public class IntSlicePool {
+
+	/**
+	 * Contains the number of bits of an address, that address an int within a single block.
+	 */
+	private static final int BLOCK_BITS = 13;
+	
+	/**
+	 * Contains the number of ints per block.
+	 */
+	private static final int BLOCK_SIZE = 1 << BLOCK_BITS;
+	
+	/**
+	 * Contains the mask to extract the offset within a block from an address.
+	 */
+	private static final int BLOCK_MASK = BLOCK_SIZE - 1;
+	
+	/**
+	 * Contains the sizes of the slices per level. The last int of each slice is reserved for the address of the next slice.
+	 * Once the last level is reached, all further slices have the same size.
+	 */
+	private static final int[] SLICE_SIZES = new int[] {4, 8, 16, 32, 64, 128, 256, 512, 1024};
+	
+	/**
+	 * Contains the approximate number of bytes occupied by the management data of a single stream.
+	 */
+	private static final int STREAM_SIZE = 5 * Integer.BYTES;
+	
+	/**
+	 * Contains the blocks, that slices are allocated from.
+	 */
+	private int[][] blocks = new int[16][];
+	private int blocksCount = 0;
+	
+	/**
+	 * Contains the address, at which the next slice is allocated.
+	 */
+	private int nextSliceAddress = 0;
+	
+	/**
+	 * Contain per stream the address of its first slice, the address to write the next value to, the address of the end of its current slice,
+	 * the level of its current slice and the number of values.
+	 */
+	private int[] streamStartAddresses = new int[16];
+	private int[] streamWriteAddresses = new int[16];
+	private int[] streamSliceEndAddresses = new int[16];
+	private int[] streamLevels = new int[16];
+	private int[] streamLengths = new int[16];
+	private int streamsCount = 0;
+	
+	
+	/**
+	 * Creates a new stream of ints and returns its id. Ids are assigned consecutively, starting with 0.
+	 * @return
+	 */
+	public int newStream() {
+		// Grow stream arrays, if necessary
+		if(this.streamsCount == this.streamStartAddresses.length) {
+			int capacity = this.streamStartAddresses.length * 2;
+			this.streamStartAddresses = Arrays.copyOf(this.streamStartAddresses, capacity);
+			this.streamWriteAddresses = Arrays.copyOf(this.streamWriteAddresses, capacity);
+			this.streamSliceEndAddresses = Arrays.copyOf(this.streamSliceEndAddresses, capacity);
+			this.streamLevels = Arrays.copyOf(this.streamLevels, capacity);
+			this.streamLengths = Arrays.copyOf(this.streamLengths, capacity);
+		}
+		
+		int stream = this.streamsCount++;
+		int address = this.allocateSlice(0);
+		this.streamStartAddresses[stream] = address;
+		this.streamWriteAddresses[stream] = address;
+		this.streamSliceEndAddresses[stream] = address + SLICE_SIZES[0] - 1;
+		this.streamLevels[stream] = 0;
+		this.streamLengths[stream] = 0;
+		
+		return stream;
+	}
+	
+	/**
+	 * Appends a value to the given stream.
+	 * @param stream
+	 * @param value
+	 */
+	public void append(int stream, int value) {
+		int address = this.streamWriteAddresses[stream];
+		if(address == this.streamSliceEndAddresses[stream]) {
+			// Slice is full, so chain a new slice of the next level
+			int level = Math.min(this.streamLevels[stream] + 1, SLICE_SIZES.length - 1);
+			int nextSliceAddress = this.allocateSlice(level);
+			this.set(address, nextSliceAddress);
+			
+			address = nextSliceAddress;
+			this.streamSliceEndAddresses[stream] = nextSliceAddress + SLICE_SIZES[level] - 1;
+			this.streamLevels[stream] = level;
+		}
+		
+		this.set(address, value);
+		this.streamWriteAddresses[stream] = address + 1;
+		this.streamLengths[stream]++;
+	}
+	
+	/**
+	 * Gets the number of values of the given stream.
+	 * @param stream
+	 * @return
+	 */
+	public int length(int stream) {
+		return this.streamLengths[stream];
+	}
+	
+	/**
+	 * Reads all values of the given stream in the order, they were appended.
+	 * @param stream
+	 * @return
+	 */
+	public int[] toArray(int stream) {
+		int[] values = new int[this.streamLengths[stream]];
+		int address = this.streamStartAddresses[stream];
+		int level = 0;
+		int sliceEndAddress = address + SLICE_SIZES[0] - 1;
+		for(int i = 0; i < values.length; i++) {
+			// Follow address to next slice, if end of current slice is reached
+			if(address == sliceEndAddress) {
+				address = this.get(address);
+				level = Math.min(level + 1, SLICE_SIZES.length - 1);
+				sliceEndAddress = address + SLICE_SIZES[level] - 1;
+			}
+			
+			values[i] = this.get(address++);
+		}
+		
+		return values;
+	}
+	
+	
+	/**
+	 * Gets the number of streams.
+	 * @return
+	 */
+	public int size() {
+		return this.streamsCount;
+	}
+	
+	/**
+	 * Gets the approximate number of bytes occupied by the pool.
+	 * @return
+	 */
+	public long getMemoryUsage() {
+		return (long)this.blocksCount * BLOCK_SIZE * Integer.BYTES + (long)this.streamStartAddresses.length * STREAM_SIZE;
+	}
+	
+	/**
+	 * Removes all streams and releases the allocated blocks.
+	 */
+	public void clear() {
+		this.blocks = new int[16][];
+		this.blocksCount = 0;
+		this.nextSliceAddress = 0;
+		
+		this.streamStartAddresses = new int[16];
+		this.streamWriteAddresses = new int[16];
+		this.streamSliceEndAddresses = new int[16];
+		this.streamLevels = new int[16];
+		this.streamLengths = new int[16];
+		this.streamsCount = 0;
+	}
+	
+	
+	/**
+	 * Allocates a new slice of the given level and returns its address. Slices never span multiple blocks.
+	 * @param level
+	 * @return
+	 */
+	private int allocateSlice(int level) {
+		int size = SLICE_SIZES[level];
+		if(this.blocksCount == 0 || (this.nextSliceAddress & BLOCK_MASK) + size > BLOCK_SIZE || (this.nextSliceAddress >>> BLOCK_BITS) >= this.blocksCount) {
+			// Start new block
+			if(this.blocksCount == this.blocks.length) {
+				this.blocks = Arrays.copyOf(this.blocks, this.blocks.length * 2);
+			}
+			this.blocks[this.blocksCount] = new int[BLOCK_SIZE];
+			this.nextSliceAddress = this.blocksCount << BLOCK_BITS;
+			this.blocksCount++;
+		}
+		
+		int address = this.nextSliceAddress;
+		this.nextSliceAddress += size;
+		
+		return address;
+	}
+	
+	/**
+	 * Gets the value at the given address.
+	 * @param address
+	 * @return
+	 */
+	private int get(int address) {
+		return this.blocks[address >>> BLOCK_BITS][address & BLOCK_MASK];
+	}
+	
+	/**
+	 * Sets the value at the given address.
+	 * @param address
+	 * @param value
+	 */
+	private void set(int address, int value) {
+		this.blocks[address >>> BLOCK_BITS][address & BLOCK_MASK] = value;
+	}
+}
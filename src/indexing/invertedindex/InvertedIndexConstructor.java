@@ -2,40 +2,92 @@ package indexing.invertedindex;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Set;
 
+import gnu.trove.impl.Constants;
+import gnu.trove.map.TObjectIntMap;
+import gnu.trove.map.hash.TObjectIntHashMap;
 import indexing.generic.GenericIndexConstructor;
 import io.FileReaderWriterFactory;
+import io.index.IndexHeader;
 import io.index.IndexWriter;
+import io.index.codecs.IndexCodec;
 import postings.ContentType;
-import postings.PostingTable;
 import postings.TokenPostings;
+import postings.positions.EagerPositionMap;
+import postings.positions.PositionMap;
 
 public class InvertedIndexConstructor extends GenericIndexConstructor<String> {
 	
 	/**
-	 * Contains the actual inverted index.
+	 * Contain the approximate number of bytes occupied by a new token (without its characters) and by the lengths of a document.
 	 */
-	private PostingTable invertedIndex = new PostingTable();
+	private static final int TOKEN_SIZE = 80;
+	private static final int DOCUMENT_LENGTHS_SIZE = 200;
+	
+	/**
+	 * Contains the number of content types, which is used to encode content type and position of a posting into a single int.
+	 */
+	private static final int CONTENT_TYPES_COUNT = ContentType.orderedValues().length;
+	
+	/**
+	 * Contains the ids of all tokens. The id of a token is the id of its stream in the postings pool.
+	 */
+	private TObjectIntMap<String> tokenIds = new TObjectIntHashMap<String>(Constants.DEFAULT_CAPACITY, Constants.DEFAULT_LOAD_FACTOR, -1);
+	
+	/**
+	 * Contains the postings of all tokens. Each posting is appended to the stream of its token as document id 
+	 * followed by position and content type encoded into a single int.
+	 */
+	private IntSlicePool postingsPool = new IntSlicePool();
+	
+	/**
+	 * Contains the total number of postings.
+	 */
+	private int postingsCount = 0;
 	
 	private IndexWriter positionalIndexWriter;
 	
+	/**
+	 * Contains the corresponding seek list, if it should be constructed, and whether it is filled while writing the index.
+	 */
+	private InvertedIndexSeekList seekList;
+	private boolean createSeekList = false;
+	
+	/**
+	 * Contains the coder for tokens of the frequency index, while it is written.
+	 */
+	private TokenFrontCoder tokenCoder;
+	
+	/**
+	 * Contains the number of tokens per content type for each document of the index.
+	 */
+	private Map<Integer, Map<ContentType, Integer>> documentLengths = new HashMap<Integer, Map<ContentType, Integer>>();
+	
+	/**
+	 * Contains the approximate number of bytes occupied by tokens and document lengths.
+	 */
+	private long memoryUsage = 0;
+	
 	
 	/**
 	 * Creates a new InvertedIndexConstructor instance, that does not create a seek list.
-	 * @param compress
+	 * @param codec
 	 */
-	public InvertedIndexConstructor(boolean compress) {
-		super(compress);
+	public InvertedIndexConstructor(IndexCodec codec) {
+		this(codec, null);
 	}
 	
 	/**
 	 * Creates a new InvertedIndexConstructor instance, that creates a seek list.
-	 * @param compress
+	 * @param codec
 	 * @param seekList
 	 */
-	public InvertedIndexConstructor(boolean compress, InvertedIndexSeekList seekList) {
-		super(compress, seekList);
+	public InvertedIndexConstructor(IndexCodec codec, InvertedIndexSeekList seekList) {
+		super(codec);
+		this.seekList = seekList;
 	}
 	
 	
@@ -47,12 +99,42 @@ public class InvertedIndexConstructor extends GenericIndexConstructor<String> {
 	 * @param position
 	 */
 	public void add(int documentId, String token, ContentType contentType, int position) {
-		this.invertedIndex.put(token, documentId, contentType, position);
+		// Get id of token, or create a new stream for it
+		int tokenId = this.tokenIds.get(token);
+		if(tokenId < 0) {
+			tokenId = this.postingsPool.newStream();
+			this.tokenIds.put(token, tokenId);
+			this.memoryUsage += TOKEN_SIZE + 2 * token.length();
+		}
+		
+		// Append posting to stream of token
+		this.postingsPool.append(tokenId, documentId);
+		this.postingsPool.append(tokenId, position * CONTENT_TYPES_COUNT + contentType.ordinal());
+		this.postingsCount++;
+	}
+	
+	/**
+	 * Sets the number of tokens per content type of the given document.
+	 * @param documentId
+	 * @param tokenCounts
+	 */
+	public void setDocumentLengths(int documentId, Map<ContentType, Integer> tokenCounts) {
+		if(this.documentLengths.put(documentId, tokenCounts) == null) {
+			this.memoryUsage += DOCUMENT_LENGTHS_SIZE;
+		}
+	}
+	
+	/**
+	 * Gets the approximate number of bytes occupied by the in-memory index.
+	 * @return
+	 */
+	public long getMemoryUsage() {
+		return this.memoryUsage + this.postingsPool.getMemoryUsage();
 	}
 
 	@Override
 	public Set<String> keys() {
-		return this.invertedIndex.tokenSet();
+		return this.tokenIds.keySet();
 	}
 	
 	/**
@@ -73,33 +155,82 @@ public class InvertedIndexConstructor extends GenericIndexConstructor<String> {
 	 * @throws IOException
 	 */
 	public void saveWithSeekList(File frequencyIndexFile, File positionalIndexFile, File seekListFile) throws IOException {
-		this.positionalIndexWriter = FileReaderWriterFactory.getInstance().getDirectIndexWriter(positionalIndexFile, this.isCompressed());
-		this.saveWithSeekList(frequencyIndexFile, seekListFile);
+		this.createSeekList = seekListFile != null && this.seekList != null;
+		if(this.createSeekList) {
+			this.seekList.clear();
+		}
+		
+		IndexHeader positionalIndexHeader = new IndexHeader(this.getCodec(), this.entriesCount(), this.size());
+		this.positionalIndexWriter = FileReaderWriterFactory.getInstance().getDirectIndexWriter(positionalIndexFile, positionalIndexHeader);
+		this.tokenCoder = new TokenFrontCoder();
+		this.save(frequencyIndexFile);
 		
 		this.positionalIndexWriter.close();
 		this.positionalIndexWriter = null;
+		this.tokenCoder = null;
+		
+		// Write seek list to file
+		if(this.createSeekList) {
+			IndexHeader seekListHeader = new IndexHeader(this.getCodec(), this.seekList.size(), this.size());
+			try(IndexWriter seekListWriter = FileReaderWriterFactory.getInstance().getDirectIndexWriter(seekListFile, seekListHeader)) {
+				this.seekList.save(seekListWriter);
+			}
+			this.createSeekList = false;
+		}
 	}
 
 	@Override
 	protected void writeEntry(String key, IndexWriter frequencyIndexWriter) throws IOException {
+		TokenPostings postings = this.loadPostings(this.tokenIds.get(key));
+		postings.updateMaxOccurrenceRatios(this.documentLengths);
+		
+		// Add seek list entry
+		if(this.createSeekList) {
+			this.seekList.put(key, frequencyIndexWriter.getFilePointer(), postings.getStatistics());
+		}
+		
 		// Write token
-		frequencyIndexWriter.writeString(key);
+		this.tokenCoder.write(key, frequencyIndexWriter);
 		
 		// Write postings
-		TokenPostings postings = this.invertedIndex.ofToken(key);
 		frequencyIndexWriter.startSkippingArea();
-		postings.save(frequencyIndexWriter, this.positionalIndexWriter);
+		postings.save(frequencyIndexWriter, this.positionalIndexWriter, this.getCodec().getPostingsCodec());
 		frequencyIndexWriter.endSkippingArea();
 	}
 	
+	/**
+	 * Decodes the postings of the given token from the postings pool.
+	 * @param tokenId
+	 * @return
+	 */
+	private TokenPostings loadPostings(int tokenId) {
+		int[] values = this.postingsPool.toArray(tokenId);
+		Map<Integer, PositionMap> postings = new HashMap<Integer, PositionMap>();
+		PositionMap positions = null;
+		int lastDocumentId = -1;
+		for(int i = 0; i < values.length; i += 2) {
+			// Postings of a document are appended consecutively
+			int documentId = values[i];
+			if(positions == null || documentId != lastDocumentId) {
+				positions = postings.computeIfAbsent(documentId, x -> new EagerPositionMap());
+				lastDocumentId = documentId;
+			}
+			
+			ContentType contentType = ContentType.orderedValues()[values[i + 1] % CONTENT_TYPES_COUNT];
+			positions.put(contentType, values[i + 1] / CONTENT_TYPES_COUNT);
+		}
+		
+		return new TokenPostings(postings);
+	}
+	
 	@Override
 	public int size() {
-		return this.invertedIndex.totalTokenOccurencesCount();
+		return this.postingsCount;
 	}
 	
 	@Override
 	public int entriesCount() {
-		return this.invertedIndex.size();
+		return this.tokenIds.size();
 	}
 	
 	/**
@@ -108,6 +239,10 @@ public class InvertedIndexConstructor extends GenericIndexConstructor<String> {
 	@Override
 	public void clear() {
 		super.clear();
-		this.invertedIndex = new PostingTable();
+		this.tokenIds = new TObjectIntHashMap<String>(Constants.DEFAULT_CAPACITY, Constants.DEFAULT_LOAD_FACTOR, -1);
+		this.postingsPool.clear();
+		this.postingsCount = 0;
+		this.documentLengths = new HashMap<Integer, Map<ContentType, Integer>>();
+		this.memoryUsage = 0;
 	}
 }
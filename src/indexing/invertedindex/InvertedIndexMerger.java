@@ -5,129 +5,264 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
-import java.util.stream.IntStream;
+import java.util.PriorityQueue;
 
 import org.apache.commons.lang3.tuple.Pair;
 
 import io.FileReaderWriterFactory;
+import io.index.IndexHeader;
 import io.index.IndexReader;
 import io.index.IndexWriter;
+import io.index.codecs.IndexCodec;
+import postings.BlockPostingsIterator;
+import postings.TermStatistics;
 import postings.TokenPostings;
 
 public class InvertedIndexMerger {
+
+	/**
+	 * Contains the size of the buffer used for copying positions.
+	 */
+	private static final int COPY_BUFFER_SIZE = 64 * 1024;
 	
 	/**
-	 * Determines, whether the index files are compressed or not.
+	 * Contains the codec, that is used to encode the merged index.
 	 */
-	private boolean isCompressed;
+	private IndexCodec codec;
 	
 	
 	/**
 	 * Creates a new InvertedIndexMerger instance.
-	 * @param isCompressed
+	 * @param codec
 	 */
-	public InvertedIndexMerger(boolean isCompressed) {
-		this.isCompressed = isCompressed;
+	public InvertedIndexMerger(IndexCodec codec) {
+		this.codec = codec;
 	}
 	
 	
+	/**
+	 * Merges the given temporary index files into a single index and writes the corresponding seek list.
+	 * @param frequencyIndexFile
+	 * @param positionalIndexFile
+	 * @param temporaryIndexFiles
+	 * @param seekListFile
+	 * @throws IOException
+	 */
 	public void merge(File frequencyIndexFile, File positionalIndexFile, List<Pair<File, File>> temporaryIndexFiles, File seekListFile) throws IOException {
+		InvertedIndexSeekList seekList = this.merge(frequencyIndexFile, positionalIndexFile, temporaryIndexFiles);
+		
+		// Write seek list to file
+		IndexHeader seekListHeader = new IndexHeader(this.codec, seekList.size(), seekList.size());
+		try(IndexWriter seekListWriter = FileReaderWriterFactory.getInstance().getDirectIndexWriter(seekListFile, seekListHeader)) {
+			seekList.save(seekListWriter);
+		}
+	}
+	
+	/**
+	 * Merges the given temporary index files into a single index without writing a seek list, so that the result can be merged again later.
+	 * Temporary files are processed in a k-way merge using a priority queue.
+	 * Postings of tokens, that are contained in a single temporary index only, are copied without decoding them, 
+	 * unless the temporary index uses a different codec.
+	 * Returns the seek list of the merged index.
+	 * @param frequencyIndexFile
+	 * @param positionalIndexFile
+	 * @param temporaryIndexFiles
+	 * @return
+	 * @throws IOException
+	 */
+	public InvertedIndexSeekList merge(File frequencyIndexFile, File positionalIndexFile, List<Pair<File, File>> temporaryIndexFiles) throws IOException {
 		// Initialize seeklist
 		InvertedIndexSeekList seekList = new InvertedIndexSeekList();
 		
-		// Create destination index files
-		try (IndexWriter frequencyIndexWriter = FileReaderWriterFactory.getInstance().getDirectIndexWriter(frequencyIndexFile, this.isCompressed);
-			 IndexWriter positionalIndexWriter = FileReaderWriterFactory.getInstance().getDirectIndexWriter(positionalIndexFile, this.isCompressed)) {
+		// Create destination index files, whose headers are rewritten, when the number of tokens is known
+		IndexHeader header = new IndexHeader(this.codec, 0, 0);
+		try (IndexWriter frequencyIndexWriter = FileReaderWriterFactory.getInstance().getDirectIndexWriter(frequencyIndexFile, header);
+			 IndexWriter positionalIndexWriter = FileReaderWriterFactory.getInstance().getDirectIndexWriter(positionalIndexFile, header)) {
 			// Open temporary index files
-			List<String> firstTokens = new ArrayList<String>(temporaryIndexFiles.size());
-			List<IndexReader> frequencyIndexReaders = new ArrayList<IndexReader>(temporaryIndexFiles.size());
-			List<IndexReader> positionalIndexReaders = new ArrayList<IndexReader>(temporaryIndexFiles.size());
+			PriorityQueue<Run> runs = new PriorityQueue<Run>(Math.max(1, temporaryIndexFiles.size()),
+											Comparator.comparing((Run run) -> run.token).thenComparingInt(run -> run.index));
 			int totalSize = 0;
+			int runIndex = 0;
 			for(Pair<File, File> tempFilePair: temporaryIndexFiles) {
-				IndexReader tempFrequencyIndexReader = FileReaderWriterFactory.getInstance().getBufferedIndexReader(tempFilePair.getLeft(), this.isCompressed);
-				IndexReader tempPositionalIndexReader = FileReaderWriterFactory.getInstance().getBufferedIndexReader(tempFilePair.getRight(), this.isCompressed);
-				frequencyIndexReaders.add(tempFrequencyIndexReader);
-				positionalIndexReaders.add(tempPositionalIndexReader);
+				IndexReader tempFrequencyIndexReader = FileReaderWriterFactory.getInstance().getBufferedIndexReader(tempFilePair.getLeft());
+				IndexReader tempPositionalIndexReader = FileReaderWriterFactory.getInstance().getBufferedIndexReader(tempFilePair.getRight());
+				totalSize += tempFrequencyIndexReader.getHeader().getSize();
 				
-				totalSize += tempFrequencyIndexReader.readInt();
-				firstTokens.add(tempFrequencyIndexReader.readString());
+				Run run = new Run(runIndex++, tempFrequencyIndexReader, tempPositionalIndexReader);
+				if(run.next()) {
+					runs.add(run);
+				}
+				else {
+					run.close();
+				}
 			}
 			
-			// Write total positions count
-			frequencyIndexWriter.writeInt(totalSize);
-			
-			String lastToken = null;
-			TokenPostings lastPostings = null;
-			while(firstTokens.size() > 0) {
-				// Determine next token
-				int nextTokenIndex = IntStream.range(0, firstTokens.size())	
-										.boxed()
-										.min(Comparator.comparing(x -> firstTokens.get(x)))
-										.get();
-				IndexReader currentFrequencyReader = frequencyIndexReaders.get(nextTokenIndex);
-				IndexReader currentPositionalReader = positionalIndexReaders.get(nextTokenIndex);
-				
-				// Get token and corresponding postings
-				String token = firstTokens.get(nextTokenIndex);
-				TokenPostings postings = TokenPostings.load(currentFrequencyReader.getSkippingAreaReader(), currentPositionalReader, true);
-				
-				if(lastToken != null && lastToken.equals(token) && lastPostings != null) {
-					// Token was already read from another file, so merge postings
-					lastPostings.putAll(postings);
+			TokenFrontCoder tokenCoder = new TokenFrontCoder();
+			List<Run> currentRuns = new ArrayList<Run>();
+			while(!runs.isEmpty()) {
+				// Get all runs, that contain the next token
+				String token = runs.peek().token;
+				while(!runs.isEmpty() && runs.peek().token.equals(token)) {
+					currentRuns.add(runs.poll());
 				}
-				else {
-					// New token was read, to write saved token and corresponding postings to file
-					if(lastToken != null && lastPostings != null) {
-						this.write(frequencyIndexWriter, positionalIndexWriter, lastToken, lastPostings, seekList);
-					}
 
-					// Save current token and its postings for the case, that there are more values for this token in other files
-					lastToken = token;
-					lastPostings = postings;
-				}				
-				
-				// Refresh tokens and source files list
-				if(currentFrequencyReader.getFilePointer() < currentFrequencyReader.length()) {
-					firstTokens.set(nextTokenIndex, frequencyIndexReaders.get(nextTokenIndex).readString());
+				// Write token to destination file
+				long tokenOffset = frequencyIndexWriter.getFilePointer();
+				TermStatistics statistics;
+				tokenCoder.write(token, frequencyIndexWriter);
+				frequencyIndexWriter.startSkippingArea();
+				if(currentRuns.size() == 1 && currentRuns.get(0).codec == this.codec) {
+					// Token is contained in a single run only, so its postings can be copied
+					Run run = currentRuns.get(0);
+					statistics = this.copy(run.frequencyIndexReader.getSkippingAreaReader(), run.positionalIndexReader, frequencyIndexWriter, positionalIndexWriter);
 				}
 				else {
-					currentFrequencyReader.close();
-					frequencyIndexReaders.remove(nextTokenIndex);
-					currentPositionalReader.close();
-					positionalIndexReaders.remove(nextTokenIndex);
-					firstTokens.remove(nextTokenIndex);
-					
-					// If end of last file was reached, write remaining entry to file
-					if(frequencyIndexReaders.isEmpty()) {
-						this.write(frequencyIndexWriter, positionalIndexWriter, lastToken, lastPostings, seekList);
+					// Merge postings of all runs, which re-encodes them using the codec of the merged index
+					TokenPostings postings = null;
+					for(Run run: currentRuns) {
+						TokenPostings runPostings = TokenPostings.load(run.frequencyIndexReader.getSkippingAreaReader(), run.positionalIndexReader, true, run.codec.getPostingsCodec());
+						if(postings == null) {
+							postings = runPostings;
+						}
+						else {
+							postings.putAll(runPostings);
+						}
 					}
+					postings.save(frequencyIndexWriter, positionalIndexWriter, this.codec.getPostingsCodec());
+					statistics = postings.getStatistics();
 				}
+				frequencyIndexWriter.endSkippingArea();
+				
+				// Add token to seek list
+				seekList.put(token, tokenOffset, statistics);
+				
+				// Move runs to their next token
+				for(Run run: currentRuns) {
+					if(run.next()) {
+						runs.add(run);
+					}
+					else {
+						run.close();
+					}
+				}
+				currentRuns.clear();
 			}
+			
+			// Rewrite headers containing number of tokens and total positions count
+			header = new IndexHeader(this.codec, seekList.size(), totalSize);
+			frequencyIndexWriter.seek(0);
+			header.write(frequencyIndexWriter);
+			positionalIndexWriter.seek(0);
+			header.write(positionalIndexWriter);
 		}
 		
-		// Write seek list to file
-		try(IndexWriter seekListWriter = FileReaderWriterFactory.getInstance().getDirectIndexWriter(seekListFile, this.isCompressed)) {
-			seekList.save(seekListWriter);
-		}
+		return seekList;
 	}
 	
 	/**
-	 * Write index entry to file and add seek list entry
+	 * Copies the postings of a single token and returns its statistics without decoding them. 
+	 * Positions and blocks of postings are copied as they are, only the offset of the positions in the header is rewritten.
+	 * @param frequencyIndexReader Reader limited to the postings of the token
+	 * @param positionalIndexReader
 	 * @param frequencyIndexWriter
 	 * @param positionalIndexWriter
-	 * @param token
-	 * @param postings
-	 * @param seekList
+	 * @return
 	 * @throws IOException
 	 */
-	private void write(IndexWriter frequencyIndexWriter, IndexWriter positionalIndexWriter, String token, TokenPostings postings, InvertedIndexSeekList seekList) throws IOException {
-		// Add token to seek list
-		seekList.put(token, frequencyIndexWriter.getFilePointer());
-		
-		// Write to destination file
-		frequencyIndexWriter.writeString(token);
-		frequencyIndexWriter.startSkippingArea();
-		postings.save(frequencyIndexWriter, positionalIndexWriter);
-		frequencyIndexWriter.endSkippingArea();
-	}	
+	private TermStatistics copy(IndexReader frequencyIndexReader, IndexReader positionalIndexReader, IndexWriter frequencyIndexWriter, IndexWriter positionalIndexWriter) throws IOException {
+		// Read header, which leaves the reader at the first block of postings
+		BlockPostingsIterator iterator = new BlockPostingsIterator(frequencyIndexReader, positionalIndexReader, false, this.codec.getPostingsCodec());
+		TermStatistics statistics = iterator.getStatistics();
+		
+		// Copy positions
+		long positionsOffset = positionalIndexWriter.getFilePointer();
+		positionalIndexReader.seek(iterator.getPositionsOffset());
+		byte[] buffer = new byte[COPY_BUFFER_SIZE];
+		for(long remaining = iterator.getPositionsLength(); remaining > 0; remaining -= buffer.length) {
+			if(remaining < buffer.length) {
+				buffer = new byte[(int)remaining];
+			}
+			if(positionalIndexReader.read(buffer) < buffer.length) {
+				throw new IOException("Positional index ended unexpectedly.");
+			}
+			positionalIndexWriter.write(buffer);
+		}
+		
+		// Write header with new offset of positions and copy blocks
+		TokenPostings.saveHeader(frequencyIndexWriter, statistics, positionsOffset, iterator.getPositionsLength());
+		frequencyIndexWriter.write(frequencyIndexReader.readToEnd());
+		
+		return statistics;
+	}
+	
+	
+	/**
+	 * Represents a temporary index file, which is read token by token.
+	 */
+	private static class Run {
+		
+		/**
+		 * Contains the index of the run, which is used to order runs containing the same token.
+		 */
+		private final int index;
+		
+		/**
+		 * Contain the readers for frequency and positional index.
+		 */
+		private final IndexReader frequencyIndexReader;
+		private final IndexReader positionalIndexReader;
+		
+		/**
+		 * Contains the codec of the temporary index, which is determined by its header.
+		 */
+		private final IndexCodec codec;
+		
+		/**
+		 * Contains the coder, that decodes the tokens of the frequency index.
+		 */
+		private final TokenFrontCoder tokenCoder = new TokenFrontCoder();
+		
+		/**
+		 * Contains the current token.
+		 */
+		private String token;
+		
+		
+		/**
+		 * Creates a new Run instance.
+		 * @param index
+		 * @param frequencyIndexReader
+		 * @param positionalIndexReader
+		 */
+		public Run(int index, IndexReader frequencyIndexReader, IndexReader positionalIndexReader) {
+			this.index = index;
+			this.frequencyIndexReader = frequencyIndexReader;
+			this.positionalIndexReader = positionalIndexReader;
+			this.codec = frequencyIndexReader.getHeader().getCodec();
+		}
+		
+		
+		/**
+		 * Reads the next token. The postings of the previous token have to be consumed before. Returns false, if there are no more tokens.
+		 * @return
+		 * @throws IOException
+		 */
+		public boolean next() throws IOException {
+			if(this.frequencyIndexReader.getFilePointer() >= this.frequencyIndexReader.length()) {
+				return false;
+			}
+			
+			this.token = this.tokenCoder.read(this.frequencyIndexReader);
+			return true;
+		}
+		
+		/**
+		 * Closes the underlying readers.
+		 * @throws IOException
+		 */
+		public void close() throws IOException {
+			this.frequencyIndexReader.close();
+			this.positionalIndexReader.close();
+		}
+	}
 }
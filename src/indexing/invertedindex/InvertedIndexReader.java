@@ -1,59 +1,234 @@
 package indexing.invertedindex;
 
-import java.io.EOFException;
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
-import org.apache.commons.lang3.tuple.Pair;
-
+import gnu.trove.iterator.TObjectLongIterator;
 import gnu.trove.map.TObjectIntMap;
+import gnu.trove.map.TObjectLongMap;
 import gnu.trove.map.hash.TObjectIntHashMap;
-import postings.PostingTable;
-import postings.TokenPostings;
+import gnu.trove.map.hash.TObjectLongHashMap;
+import indexing.segments.Segment;
+import postings.BlockPostingsIterator;
+import postings.MultiPostingsIterator;
+import postings.PostingsIterator;
+import postings.TermStatistics;
 
 import io.FileReaderWriterFactory;
+import io.index.IndexHeader;
 import io.index.IndexReader;
+import io.index.codecs.IntBlockCodec;
+import io.lowlevel.ByteBufferReader;
 
 public class InvertedIndexReader implements AutoCloseable {
 	
 	/**
-	 * Contains the file reader for the frequency index.
+	 * Contains the maximum number of bytes of postings, that are prefetched by a single reader.
+	 */
+	public static final int MAX_PREFETCHED_BYTES = 64 * 1024 * 1024;
+	
+	/**
+	 * Contains the file readers for the frequency index per segment. They are shared by all lookups, 
+	 * so they are only duplicated, but never read directly, which keeps lookups thread-safe.
+	 */
+	private final List<IndexReader> frequencyIndexFiles = new ArrayList<IndexReader>();
+	
+	/**
+	 * Contains the file readers for the positional index per segment.
+	 */
+	private final List<IndexReader> positionalIndexReaders = new ArrayList<IndexReader>();
+	
+	/**
+	 * Contains the corresponding seek lists per segment.
 	 */
-	private IndexReader frequencyIndexFile;
+	private final List<InvertedIndexSeekList> seekLists = new ArrayList<InvertedIndexSeekList>();
 	
 	/**
-	 * Contains the file reader for the positional index.
+	 * Contains the codecs of the compressed postings per segment, which are determined by the header of the frequency index.
 	 */
-	private IndexReader positionalIndexReader;
+	private final List<IntBlockCodec> codecs = new ArrayList<IntBlockCodec>();
 	
 	/**
-	 * Contains the corresponding seek list.
+	 * Contains the postings of prefetched tokens per segment, which are read from the frequency index once and shared by all lookups.
 	 */
-	private InvertedIndexSeekList seekList;
+	private final List<Map<String, IndexReader>> prefetchedPostings = new ArrayList<Map<String, IndexReader>>();
 	
 	/**
 	 * Contains the number of all tokens occurrences in the index.
 	 */
 	private int totalTokenCount = 0;
 	
+	/**
+	 * Determines, whether the index files are mapped into memory.
+	 */
+	private boolean memoryMapped = false;
+
+	
+	/**
+	 * Creates a new InvertedIndexReader instance, that reads the index files directly from disk.
+	 * @param frequencyIndexFile
+	 * @param positionalIndexFile
+	 * @param seekListFile
+	 * @throws IOException
+	 */
+	public InvertedIndexReader(File frequencyIndexFile, File positionalIndexFile, File seekListFile) throws IOException {
+		this(frequencyIndexFile, positionalIndexFile, seekListFile, false);
+	}
+	
+	/**
+	 * Creates a new InvertedIndexReader instance. If memoryMapped is set, frequency and positional index are mapped into memory 
+	 * instead of being read directly from disk.
+	 * @param frequencyIndexFile
+	 * @param positionalIndexFile
+	 * @param seekListFile
+	 * @param memoryMapped
+	 * @throws IOException
+	 */
+	public InvertedIndexReader(File frequencyIndexFile, File positionalIndexFile, File seekListFile, boolean memoryMapped) throws IOException {
+		this.openSegment(frequencyIndexFile, positionalIndexFile, seekListFile, memoryMapped);
+	}
+	
+	/**
+	 * Creates a new InvertedIndexReader instance, that reads the index files of all given segments. 
+	 * Postings of a token, that occurs in multiple segments, are merged while iterating over them.
+	 * @param segments
+	 * @param memoryMapped
+	 * @throws IOException
+	 */
+	public InvertedIndexReader(List<Segment> segments, boolean memoryMapped) throws IOException {
+		for(Segment segment: segments) {
+			this.openSegment(segment.getFrequencyIndexFile(), segment.getPositionalIndexFile(), segment.getFrequencyIndexSeekListFile(), memoryMapped);
+		}
+	}
+	
+	/**
+	 * Creates a new InvertedIndexReader instance, whose segments are added afterwards.
+	 */
+	private InvertedIndexReader() {
+	}
 	
 	/**
-	 * Creates a new InvertedIndexReader instance.
+	 * Opens the index files of a single segment.
 	 * @param frequencyIndexFile
 	 * @param positionalIndexFile
 	 * @param seekListFile
-	 * @param isCompressed
+	 * @param memoryMapped
 	 * @throws IOException
 	 */
-	public InvertedIndexReader(File frequencyIndexFile, File positionalIndexFile, File seekListFile, boolean isCompressed) throws IOException {
-		this.frequencyIndexFile = FileReaderWriterFactory.getInstance().getDirectIndexReader(frequencyIndexFile, isCompressed);
-		this.positionalIndexReader = FileReaderWriterFactory.getInstance().getDirectIndexReader(positionalIndexFile, isCompressed);
-		this.totalTokenCount = this.frequencyIndexFile.readInt();
+	private void openSegment(File frequencyIndexFile, File positionalIndexFile, File seekListFile, boolean memoryMapped) throws IOException {
+		IndexReader frequencyIndexReader;
+		IndexReader positionalIndexReader;
+		if(memoryMapped) {
+			frequencyIndexReader = FileReaderWriterFactory.getInstance().getMemoryMappedIndexReader(frequencyIndexFile);
+			positionalIndexReader = FileReaderWriterFactory.getInstance().getMemoryMappedIndexReader(positionalIndexFile);
+		}
+		else {
+			frequencyIndexReader = FileReaderWriterFactory.getInstance().getDirectIndexReader(frequencyIndexFile);
+			positionalIndexReader = FileReaderWriterFactory.getInstance().getDirectIndexReader(positionalIndexFile);
+		}
+		IntBlockCodec codec = frequencyIndexReader.getHeader().getCodec().getPostingsCodec();
+		this.totalTokenCount += frequencyIndexReader.getHeader().getSize();
+		
+		InvertedIndexSeekList seekList = new InvertedIndexSeekList();
+		try(IndexReader seekListReader = FileReaderWriterFactory.getInstance().getDirectIndexReader(seekListFile)) {
+			seekList.load(seekListReader);
+		}
+		
+		this.frequencyIndexFiles.add(frequencyIndexReader);
+		this.positionalIndexReaders.add(positionalIndexReader);
+		this.seekLists.add(seekList);
+		this.codecs.add(codec);
+		this.prefetchedPostings.add(new HashMap<String, IndexReader>());
+		this.memoryMapped = memoryMapped;
+	}
+	
+	/**
+	 * Creates a reader, that shares the index files of this one, but reads the postings of the given tokens and of all tokens
+	 * starting with one of the given prefixes only once. Postings are read in the order of the tokens in the frequency index, 
+	 * so that it is read sequentially. Lookups of other tokens read the index as usual.
+	 * If the index is memory-mapped, the postings are copied into memory, so that the pages are read in this order as well,
+	 * instead of on demand later on.
+	 * At most MAX_PREFETCHED_BYTES of postings are prefetched, postings exceeding this limit are looked up as usual, 
+	 * so that many tokens or prefixes matching many tokens do not exhaust the heap.
+	 * The returned reader must not be closed, since it does not own the index files.
+	 * @param tokens
+	 * @param prefixes
+	 * @return
+	 * @throws IOException
+	 */
+	public InvertedIndexReader prefetch(Collection<String> tokens, Collection<String> prefixes) throws IOException {
+		InvertedIndexReader reader = new InvertedIndexReader();
+		reader.frequencyIndexFiles.addAll(this.frequencyIndexFiles);
+		reader.positionalIndexReaders.addAll(this.positionalIndexReaders);
+		reader.seekLists.addAll(this.seekLists);
+		reader.codecs.addAll(this.codecs);
+		reader.totalTokenCount = this.totalTokenCount;
+		reader.memoryMapped = this.memoryMapped;
+		
+		long prefetchedBytes = 0;
+		for(int segment = 0; segment < this.frequencyIndexFiles.size(); segment++) {
+			// Look up offsets of all tokens
+			InvertedIndexSeekList seekList = this.seekLists.get(segment);
+			TObjectLongMap<String> offsets = new TObjectLongHashMap<String>();
+			for(String token: tokens) {
+				long offset = seekList.get(token);
+				if(offset >= 0) {
+					offsets.put(token, offset);
+				}
+			}
+			for(String prefix: prefixes) {
+				offsets.putAll(seekList.getOffsets(prefix));
+			}
+			
+			// Read postings ordered by their offsets
+			String[] sortedTokens = offsets.keys(new String[offsets.size()]);
+			Arrays.sort(sortedTokens, Comparator.comparingLong(offsets::get));
+			IndexReader frequencyIndexFile = this.frequencyIndexFiles.get(segment).duplicate();
+			Map<String, IndexReader> postings = new HashMap<String, IndexReader>(this.prefetchedPostings.get(segment));
+			for(String token: sortedTokens) {
+				if(!postings.containsKey(token)) {
+					frequencyIndexFile.seek(offsets.get(token));
+					TokenFrontCoder.skip(frequencyIndexFile);
+					
+					// Skip postings, that exceed the limit of prefetched bytes
+					long postingsOffset = frequencyIndexFile.getFilePointer();
+					int postingsLength = frequencyIndexFile.getSkippingAreaLength();
+					if(prefetchedBytes + postingsLength > MAX_PREFETCHED_BYTES) {
+						continue;
+					}
+					prefetchedBytes += postingsLength;
+					frequencyIndexFile.seek(postingsOffset);
+					
+					IndexReader postingsReader = frequencyIndexFile.getSkippingAreaReader();
+					if(this.memoryMapped) {
+						// Slices of a memory-mapped file are views, so copy them to actually read the postings now
+						IndexHeader header = frequencyIndexFile.getHeader();
+						postingsReader = header.getCodec().createReader(new ByteBufferReader(postingsReader.readToEnd()), header);
+					}
+					postings.put(token, postingsReader);
+				}
+			}
+			reader.prefetchedPostings.add(postings);
+		}
 		
-		this.seekList = new InvertedIndexSeekList();
-		this.seekList.load(FileReaderWriterFactory.getInstance().getDirectIndexReader(seekListFile, isCompressed));
+		return reader;
 	}
+
 	
+	/**
+	 * Gets the number of segments, the index consists of.
+	 * @return
+	 */
+	public int getSegmentsCount() {
+		return this.frequencyIndexFiles.size();
+	}
 	
 	/**
 	 * Gets the number of all tokens occurrences in the index.
@@ -66,33 +241,17 @@ public class InvertedIndexReader implements AutoCloseable {
 	
 	/**
 	 * Gets a map of tokens of the index starting the the given prefix and their number of total occurrences in the corpus.
+	 * Tokens are looked up in the seek lists only, so that the index files are not accessed.
 	 * @param prefix
 	 * @return
-	 * @throws IOException
 	 */
-	public TObjectIntMap<String> getTokens(String prefix) throws IOException {
-		TObjectIntMap<String> tokens = new TObjectIntHashMap<String>();		
-		this.frequencyIndexFile.seek(this.seekList.get(prefix));
-		while(true) {
-			try {
-				String token = this.frequencyIndexFile.readString();
-				if(token.startsWith(prefix)) {
-					long nextTokenOffset = this.frequencyIndexFile.getSkippingAreaLength() + this.frequencyIndexFile.getFilePointer();
-					int occurrencesCount = this.frequencyIndexFile.readInt();
-					tokens.put(token, occurrencesCount);
-					
-					this.frequencyIndexFile.seek(nextTokenOffset);
-				}				
-				else if(token.compareTo(prefix) > 0){
-					break;
-				}
-				else {				
-					this.frequencyIndexFile.skipSkippingArea();
-				}
-			}
-			catch(EOFException e) {
-				break;
-			}
+	public TObjectIntMap<String> getTokens(String prefix) {
+		TObjectIntMap<String> tokens = new TObjectIntHashMap<String>();
+		for(InvertedIndexSeekList seekList: this.seekLists) {
+			seekList.getCollectionFrequencies(prefix).forEachEntry((token, occurrencesCount) -> {
+				tokens.adjustOrPutValue(token, occurrencesCount, occurrencesCount);
+				return true;
+			});
 		}
 		
 		return tokens;
@@ -100,65 +259,94 @@ public class InvertedIndexReader implements AutoCloseable {
 	
 	
 	/**
-	 * Gets postings and collection frequency per token from inverted index.
+	 * Gets an iterator over the postings of the given token. Returns null, if the token is not contained in the index.
+	 * @param token
+	 * @param loadPositions
+	 * @return
+	 * @throws IOException
+	 */
+	public PostingsIterator getPostingsIterator(String token, boolean loadPositions) throws IOException {
+		return this.getPostingsIterators(token, false, loadPositions).get(token);
+	}
+	
+	/**
+	 * Gets iterators over the postings per token from inverted index. Postings are not decoded until iterating over them.
 	 * Additionally, prefix search can be enabled. In this case, all tokens, that start with the given token, are also taken into account.
 	 * @param token
 	 * @param prefixSearch
 	 * @param loadPositions
-	 * @return Table of postings
+	 * @return Map of posting iterators per token
 	 * @throws IOException
 	 */
-	public Pair<PostingTable, TObjectIntMap<String>> getPostings(String token, boolean prefixSearch, boolean loadPositions) throws IOException {
-		long offset = this.seekList.get(token);
-		return this.getPostings(token, offset, prefixSearch, loadPositions);
+	public Map<String, PostingsIterator> getPostingsIterators(String token, boolean prefixSearch, boolean loadPositions) throws IOException {
+		return MultiPostingsIterator.merge(this.getSegmentPostingsIterators(token, prefixSearch, loadPositions));
+	}
+	
+	/**
+	 * Gets iterators over the postings per token separately for each segment. The maps are ordered like the segments, 
+	 * maps of segments, that do not contain the token, are empty. Iterators can be consumed concurrently, 
+	 * since each of them reads using its own file readers.
+	 * @param token
+	 * @param prefixSearch
+	 * @param loadPositions
+	 * @return List of maps of posting iterators per token
+	 * @throws IOException
+	 */
+	public List<Map<String, PostingsIterator>> getSegmentPostingsIterators(String token, boolean prefixSearch, boolean loadPositions) throws IOException {
+		List<Map<String, PostingsIterator>> segmentIterators = new ArrayList<Map<String, PostingsIterator>>(this.frequencyIndexFiles.size());
+		for(int segment = 0; segment < this.frequencyIndexFiles.size(); segment++) {
+			segmentIterators.add(this.getPostingsIterators(segment, token, prefixSearch, loadPositions));
+		}
+		
+		return segmentIterators;
 	}
 
 	/**
-	 * Gets postings and collection frequency per token from inverted index by specifying a start offset in the index file. 
+	 * Gets iterators over the postings per token from the inverted index of a single segment. 
 	 * Additionally, prefix search can be enabled. In this case, all tokens, that start with the given token, are also taken into account.
+	 * @param segment
 	 * @param token
-	 * @param startOffset
 	 * @param prefixSearch
 	 * @param loadPositions
-	 * @return Table of postings
+	 * @return Map of posting iterators per token
 	 * @throws IOException
 	 */
-	private Pair<PostingTable, TObjectIntMap<String>> getPostings(String token, long startOffset, boolean prefixSearch, boolean loadPositions) throws IOException {
-		PostingTable postings = new PostingTable();
-		TObjectIntMap<String> collectionFrequencies = new TObjectIntHashMap<String>();
+	private Map<String, PostingsIterator> getPostingsIterators(int segment, String token, boolean prefixSearch, boolean loadPositions) throws IOException {
+		Map<String, PostingsIterator> iterators = new HashMap<String, PostingsIterator>();
 		
-		this.frequencyIndexFile.seek(startOffset);
-		while(true) {
-			try {
-				String readToken = this.frequencyIndexFile.readString();
-				
-				if(prefixSearch) {
-					if(readToken.startsWith(token)) {
-						TokenPostings readPostings = TokenPostings.load(this.frequencyIndexFile.getSkippingAreaReader(), this.positionalIndexReader, loadPositions);
-						collectionFrequencies.put(readToken, readPostings.getTotalOccurencesCount());
-						postings.putAll(readToken, readPostings);
-						continue;
-					}
-				}			
-				else if(readToken.equals(token)) {
-					TokenPostings readPostings = TokenPostings.load(this.frequencyIndexFile.getSkippingAreaReader(), this.positionalIndexReader, loadPositions);
-					collectionFrequencies.put(readToken, readPostings.getTotalOccurencesCount());
-					postings.putAll(readToken, readPostings);
-					break;
-				}
-				
-				if(readToken.compareTo(token) > 0){
-					break;
-				}
-				
-				this.frequencyIndexFile.skipSkippingArea();
+		// Look up offsets of matching tokens
+		TObjectLongMap<String> offsets;
+		if(prefixSearch) {
+			offsets = this.seekLists.get(segment).getOffsets(token);
+		}
+		else {
+			offsets = new TObjectLongHashMap<String>();
+			long offset = this.seekLists.get(segment).get(token);
+			if(offset >= 0) {
+				offsets.put(token, offset);
+			}
+		}
+		
+		// Open postings of each token using duplicates of the shared readers, so that concurrent queries do not move each other's file pointers
+		IndexReader frequencyIndexFile = this.frequencyIndexFiles.get(segment).duplicate();
+		IndexReader positionalIndexReader = this.positionalIndexReaders.get(segment);
+		IntBlockCodec codec = this.codecs.get(segment);
+		Map<String, IndexReader> prefetchedPostings = this.prefetchedPostings.get(segment);
+		for(TObjectLongIterator<String> iterator = offsets.iterator(); iterator.hasNext(); ) {
+			iterator.advance();
+			IndexReader postingsReader = prefetchedPostings.get(iterator.key());
+			if(postingsReader != null) {
+				postingsReader = postingsReader.duplicate();
 			}
-			catch(EOFException e) {
-				break;
+			else {
+				frequencyIndexFile.seek(iterator.value());
+				TokenFrontCoder.skip(frequencyIndexFile);
+				postingsReader = frequencyIndexFile.getSkippingAreaReader();
 			}
+			iterators.put(iterator.key(), new BlockPostingsIterator(postingsReader, positionalIndexReader.duplicate(), loadPositions, codec));
 		}
 		
-		return Pair.of(postings, collectionFrequencies);
+		return iterators;
 	}
 	
 	
@@ -168,12 +356,69 @@ public class InvertedIndexReader implements AutoCloseable {
 	 * @return
 	 */
 	public int getCollectionFrequency(String token) {
-		return 0;
+		int collectionFrequency = 0;
+		for(InvertedIndexSeekList seekList: this.seekLists) {
+			collectionFrequency += seekList.getCollectionFrequency(token);
+		}
+		
+		return collectionFrequency;
+	}
+	
+	/**
+	 * Gets the statistics of the specified token combined over all segments. Statistics are looked up in the seek lists only, 
+	 * so that the postings are not accessed. If the token is not contained in the index, empty statistics are returned.
+	 * @param token
+	 * @return
+	 */
+	public TermStatistics getTermStatistics(String token) {
+		TermStatistics statistics = TermStatistics.EMPTY;
+		for(InvertedIndexSeekList seekList: this.seekLists) {
+			TermStatistics segmentStatistics = seekList.getStatistics(token);
+			if(segmentStatistics != null) {
+				statistics = statistics.merge(segmentStatistics);
+			}
+		}
+		
+		return statistics;
+	}
+	
+	/**
+	 * Gets the statistics per token combined over all segments. Additionally, prefix search can be enabled. 
+	 * In this case, all tokens, that start with the given token, are also taken into account.
+	 * Tokens, that are not contained in the index, are omitted.
+	 * @param token
+	 * @param prefixSearch
+	 * @return
+	 */
+	public Map<String, TermStatistics> getTermStatistics(String token, boolean prefixSearch) {
+		Map<String, TermStatistics> statistics = new HashMap<String, TermStatistics>();
+		for(InvertedIndexSeekList seekList: this.seekLists) {
+			Map<String, TermStatistics> segmentStatistics;
+			if(prefixSearch) {
+				segmentStatistics = seekList.getStatisticsByPrefix(token);
+			}
+			else {
+				segmentStatistics = new HashMap<String, TermStatistics>();
+				TermStatistics tokenStatistics = seekList.getStatistics(token);
+				if(tokenStatistics != null) {
+					segmentStatistics.put(token, tokenStatistics);
+				}
+			}
+			
+			segmentStatistics.forEach((segmentToken, tokenStatistics) -> statistics.merge(segmentToken, tokenStatistics, TermStatistics::merge));
+		}
+		
+		return statistics;
 	}
 	
 
 	@Override
 	public void close() throws IOException {
-		this.frequencyIndexFile.close();
+		for(IndexReader frequencyIndexFile: this.frequencyIndexFiles) {
+			frequencyIndexFile.close();
+		}
+		for(IndexReader positionalIndexReader: this.positionalIndexReaders) {
+			positionalIndexReader.close();
+		}
 	}	
 }
\ No newline at end of file
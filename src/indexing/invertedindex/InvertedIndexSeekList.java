@@ -1,35 +1,449 @@
 package indexing.invertedindex;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.ObjIntConsumer;
 
-import indexing.generic.GenericSeekList;
+import gnu.trove.list.array.TFloatArrayList;
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.list.array.TLongArrayList;
+import gnu.trove.map.TObjectIntMap;
+import gnu.trove.map.TObjectLongMap;
+import gnu.trove.map.hash.TObjectIntHashMap;
+import gnu.trove.map.hash.TObjectLongHashMap;
 import io.index.IndexReader;
 import io.index.IndexWriter;
+import postings.ContentType;
+import postings.TermStatistics;
+
+public class InvertedIndexSeekList {
+
+	/**
+	 * Determines, how many tokens are stored in a block. The first token of each block is stored completely,
+	 * so that blocks can be found using binary search.
+	 */
+	private static final int BLOCK_SIZE = 16;
+
+	/**
+	 * Contains the front-coded tokens. Each token is stored as length of the prefix shared with the previous token,
+	 * followed by length and UTF-8 bytes of the remaining suffix. Tokens starting a block do not share any prefix.
+	 */
+	private byte[] tokens = new byte[1024];
+	private int tokensLength = 0;
+
+	/**
+	 * Contains the offsets of all blocks in the front-coded tokens.
+	 */
+	private TIntArrayList blockOffsets = new TIntArrayList();
+
+	/**
+	 * Contains the offsets in the frequency index and the statistics of all tokens, ordered like the tokens.
+	 * Maximum occurrence ratios are stored consecutively per token for all content types.
+	 */
+	private TLongArrayList offsets = new TLongArrayList();
+	private TIntArrayList collectionFrequencies = new TIntArrayList();
+	private TIntArrayList documentFrequencies = new TIntArrayList();
+	private TIntArrayList maxFrequencies = new TIntArrayList();
+	private TFloatArrayList maxOccurrenceRatios = new TFloatArrayList();
+
+	/**
+	 * Contains the UTF-8 bytes of the last added token.
+	 */
+	private byte[] lastToken = new byte[0];
+
+
+	/**
+	 * Gets the number of tokens in the seek list.
+	 * @return
+	 */
+	public int size() {
+		return this.offsets.size();
+	}
+
+	/**
+	 * Gets the offset of the given token in the frequency index. Returns -1, if the token is not contained in the index.
+	 * @param token
+	 * @return
+	 */
+	public long get(String token) {
+		int index = this.indexOf(token);
+		if(index >= 0) {
+			return this.offsets.get(index);
+		}
+
+		return -1;
+	}
+
+	/**
+	 * Gets the number of occurrences of the given token in the whole index. Returns 0, if the token is not contained in the index.
+	 * @param token
+	 * @return
+	 */
+	public int getCollectionFrequency(String token) {
+		int index = this.indexOf(token);
+		if(index >= 0) {
+			return this.collectionFrequencies.get(index);
+		}
+
+		return 0;
+	}
+
+	/**
+	 * Gets the statistics of the given token. Returns null, if the token is not contained in the index.
+	 * @param token
+	 * @return
+	 */
+	public TermStatistics getStatistics(String token) {
+		int index = this.indexOf(token);
+		if(index >= 0) {
+			return this.getStatistics(index);
+		}
+
+		return null;
+	}
+
+	/**
+	 * Gets the statistics of all tokens starting with the given prefix.
+	 * @param prefix
+	 * @return
+	 */
+	public Map<String, TermStatistics> getStatisticsByPrefix(String prefix) {
+		Map<String, TermStatistics> statistics = new HashMap<String, TermStatistics>();
+		this.forEachWithPrefix(prefix, (token, index) -> statistics.put(token, this.getStatistics(index)));
+
+		return statistics;
+	}
+
+	/**
+	 * Gets the offsets in the frequency index of all tokens starting with the given prefix.
+	 * @param prefix
+	 * @return
+	 */
+	public TObjectLongMap<String> getOffsets(String prefix) {
+		TObjectLongMap<String> offsets = new TObjectLongHashMap<String>();
+		this.forEachWithPrefix(prefix, (token, index) -> offsets.put(token, this.offsets.get(index)));
+
+		return offsets;
+	}
+
+	/**
+	 * Gets the collection frequencies of all tokens starting with the given prefix.
+	 * @param prefix
+	 * @return
+	 */
+	public TObjectIntMap<String> getCollectionFrequencies(String prefix) {
+		TObjectIntMap<String> collectionFrequencies = new TObjectIntHashMap<String>();
+		this.forEachWithPrefix(prefix, (token, index) -> collectionFrequencies.put(token, this.collectionFrequencies.get(index)));
+
+		return collectionFrequencies;
+	}
+
+
+	/**
+	 * Adds a new token to the seek list. Tokens have to be added in ascending order.
+	 * @param token
+	 * @param offset
+	 * @param statistics
+	 */
+	public void put(String token, long offset, TermStatistics statistics) {
+		byte[] tokenBytes = token.getBytes(StandardCharsets.UTF_8);
+
+		// Determine prefix shared with the last token, unless a new block starts
+		int sharedLength = 0;
+		if(this.size() % BLOCK_SIZE == 0) {
+			this.blockOffsets.add(this.tokensLength);
+		}
+		else {
+			int maxSharedLength = Math.min(tokenBytes.length, this.lastToken.length);
+			while(sharedLength < maxSharedLength && tokenBytes[sharedLength] == this.lastToken[sharedLength]) {
+				sharedLength++;
+			}
+		}
+
+		// Append front-coded token
+		this.ensureCapacity(this.tokensLength + 10 + tokenBytes.length - sharedLength);
+		this.writeVarInt(sharedLength);
+		this.writeVarInt(tokenBytes.length - sharedLength);
+		System.arraycopy(tokenBytes, sharedLength, this.tokens, this.tokensLength, tokenBytes.length - sharedLength);
+		this.tokensLength += tokenBytes.length - sharedLength;
+
+		this.offsets.add(offset);
+		this.addStatistics(statistics);
+		this.lastToken = tokenBytes;
+	}
+
+	/**
+	 * Removes all entries of the seek list.
+	 */
+	public void clear() {
+		this.tokens = new byte[1024];
+		this.tokensLength = 0;
+		this.blockOffsets.clear();
+		this.offsets.clear();
+		this.collectionFrequencies.clear();
+		this.documentFrequencies.clear();
+		this.maxFrequencies.clear();
+		this.maxOccurrenceRatios.clear();
+		this.lastToken = new byte[0];
+	}
+
+
+	/**
+	 * Loads the seek list from a specified IndexReader.
+	 * @param reader
+	 * @throws IOException
+	 */
+	public void load(IndexReader reader) throws IOException {
+		this.clear();
+
+		// Read front-coded tokens
+		int size = reader.readInt();
+		this.tokensLength = reader.readInt();
+		this.tokens = new byte[this.tokensLength];
+		if(reader.read(this.tokens) < this.tokensLength) {
+			throw new IOException("Seek list ended unexpectedly.");
+		}
+
+		// Read block offsets
+		int blocksCount = reader.readInt();
+		for(int i = 0; i < blocksCount; i++) {
+			this.blockOffsets.add(reader.readInt());
+		}
+
+		// Read offsets and statistics of tokens, offsets are stored as deltas
+		this.offsets.ensureCapacity(size);
+		this.collectionFrequencies.ensureCapacity(size);
+		this.documentFrequencies.ensureCapacity(size);
+		this.maxFrequencies.ensureCapacity(size);
+		this.maxOccurrenceRatios.ensureCapacity(size * ContentType.orderedValues().length);
+		long offset = 0;
+		for(int i = 0; i < size; i++) {
+			offset += reader.readLong();
+			this.offsets.add(offset);
+			this.addStatistics(TermStatistics.load(reader));
+		}
+	}
+
+	/**
+	 * Saves the seek list to a specified IndexWriter.
+	 * @param writer
+	 * @throws IOException
+	 */
+	public void save(IndexWriter writer) throws IOException {
+		// Write front-coded tokens
+		writer.writeInt(this.size());
+		writer.writeInt(this.tokensLength);
+		writer.write(Arrays.copyOf(this.tokens, this.tokensLength));
+
+		// Write block offsets
+		writer.writeInt(this.blockOffsets.size());
+		for(int i = 0; i < this.blockOffsets.size(); i++) {
+			writer.writeInt(this.blockOffsets.get(i));
+		}
+
+		// Write offsets as deltas and statistics of tokens
+		long lastOffset = 0;
+		for(int i = 0; i < this.size(); i++) {
+			writer.writeLong(this.offsets.get(i) - lastOffset);
+			this.getStatistics(i).save(writer);
+			lastOffset = this.offsets.get(i);
+		}
+	}
+
+
+	/**
+	 * Appends the given statistics to the statistics of all tokens.
+	 * @param statistics
+	 */
+	private void addStatistics(TermStatistics statistics) {
+		this.collectionFrequencies.add(statistics.getCollectionFrequency());
+		this.documentFrequencies.add(statistics.getDocumentFrequency());
+		this.maxFrequencies.add(statistics.getMaxFrequency());
+		for(ContentType contentType: ContentType.orderedValues()) {
+			this.maxOccurrenceRatios.add(statistics.getMaxOccurrenceRatio(contentType));
+		}
+	}
+
+	/**
+	 * Gets the statistics of the token with the given index.
+	 * @param index
+	 * @return
+	 */
+	private TermStatistics getStatistics(int index) {
+		int contentTypesCount = ContentType.orderedValues().length;
+		return new TermStatistics(this.documentFrequencies.get(index),
+								  this.collectionFrequencies.get(index),
+								  this.maxFrequencies.get(index),
+								  this.maxOccurrenceRatios.toArray(index * contentTypesCount, contentTypesCount));
+	}
+
+	/**
+	 * Gets the index of the given token. Returns -1, if the token is not contained in the seek list.
+	 * @param token
+	 * @return
+	 */
+	private int indexOf(String token) {
+		int block = this.findBlock(token);
+		if(block < 0) {
+			return -1;
+		}
+
+		// Scan tokens of the block
+		TokenCursor cursor = new TokenCursor(block);
+		for(int i = 0; i < BLOCK_SIZE && cursor.hasNext(); i++) {
+			int comparison = cursor.next().compareTo(token);
+			if(comparison == 0) {
+				return cursor.index();
+			}
+			if(comparison > 0) {
+				break;
+			}
+		}
+
+		return -1;
+	}
 
-public class InvertedIndexSeekList extends GenericSeekList<String> {
-	
 	/**
-	 * Determines, how many documents are skipped in between two seek list entries.
+	 * Passes all tokens starting with the given prefix together with their indexes to the given consumer.
+	 * @param prefix
+	 * @param consumer
 	 */
-	private static final int SKIP_NUMBER = 200;
-	
-	
+	private void forEachWithPrefix(String prefix, ObjIntConsumer<String> consumer) {
+		TokenCursor cursor = new TokenCursor(Math.max(0, this.findBlock(prefix)));
+		while(cursor.hasNext()) {
+			String token = cursor.next();
+			if(token.startsWith(prefix)) {
+				consumer.accept(token, cursor.index());
+			}
+			else if(token.compareTo(prefix) > 0) {
+				break;
+			}
+		}
+	}
+
 	/**
-	 * Creates a new IndexSeekList instance.
+	 * Gets the last block, whose first token is less than or equal to the given token, using binary search.
+	 * Returns -1, if the token precedes all tokens.
+	 * @param token
+	 * @return
 	 */
-	public InvertedIndexSeekList() {
-		super(SKIP_NUMBER);
+	private int findBlock(String token) {
+		int low = 0;
+		int high = this.blockOffsets.size() - 1;
+		while(low <= high) {
+			int middle = (low + high) >>> 1;
+			if(new TokenCursor(middle).next().compareTo(token) <= 0) {
+				low = middle + 1;
+			}
+			else {
+				high = middle - 1;
+			}
+		}
+
+		return high;
 	}
 
+	/**
+	 * Makes sure, that the front-coded tokens can hold the given number of bytes.
+	 * @param capacity
+	 */
+	private void ensureCapacity(int capacity) {
+		if(capacity > this.tokens.length) {
+			this.tokens = Arrays.copyOf(this.tokens, Math.max(capacity, 2 * this.tokens.length));
+		}
+	}
 
-	@Override
-	protected String readKey(IndexReader reader) throws IOException {
-		return reader.readString();
+	/**
+	 * Appends the given value to the front-coded tokens using variable byte encoding.
+	 * @param value
+	 */
+	private void writeVarInt(int value) {
+		while((value & ~0x7F) != 0) {
+			this.tokens[this.tokensLength++] = (byte)((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		this.tokens[this.tokensLength++] = (byte)value;
 	}
 
 
-	@Override
-	protected void writeKey(String token, IndexWriter writer) throws IOException {
-		writer.writeString(token);
+	/**
+	 * Decodes the front-coded tokens sequentially starting at the beginning of a block.
+	 */
+	private class TokenCursor {
+
+		/**
+		 * Contains the index of the next token and its offset in the front-coded tokens.
+		 */
+		private int nextIndex;
+		private int position;
+
+		/**
+		 * Contains the UTF-8 bytes of the current token.
+		 */
+		private byte[] token = new byte[64];
+		private int tokenLength = 0;
+
+
+		/**
+		 * Creates a new TokenCursor instance, that starts at the given block.
+		 * @param block
+		 */
+		public TokenCursor(int block) {
+			this.nextIndex = block * BLOCK_SIZE;
+			this.position = block < InvertedIndexSeekList.this.blockOffsets.size() ? InvertedIndexSeekList.this.blockOffsets.get(block) : 0;
+		}
+
+
+		/**
+		 * Determines, whether there are more tokens.
+		 * @return
+		 */
+		public boolean hasNext() {
+			return this.nextIndex < InvertedIndexSeekList.this.size();
+		}
+
+		/**
+		 * Gets the index of the current token.
+		 * @return
+		 */
+		public int index() {
+			return this.nextIndex - 1;
+		}
+
+		/**
+		 * Decodes the next token and moves the cursor to it.
+		 * @return
+		 */
+		public String next() {
+			int sharedLength = this.readVarInt();
+			int suffixLength = this.readVarInt();
+			if(sharedLength + suffixLength > this.token.length) {
+				this.token = Arrays.copyOf(this.token, 2 * (sharedLength + suffixLength));
+			}
+			System.arraycopy(InvertedIndexSeekList.this.tokens, this.position, this.token, sharedLength, suffixLength);
+			this.position += suffixLength;
+			this.tokenLength = sharedLength + suffixLength;
+			this.nextIndex++;
+
+			return new String(this.token, 0, this.tokenLength, StandardCharsets.UTF_8);
+		}
+
+		/**
+		 * Reads a variable byte encoded value from the front-coded tokens.
+		 * @return
+		 */
+		private int readVarInt() {
+			int value = 0;
+			for(int shift = 0; ; shift += 7) {
+				byte b = InvertedIndexSeekList.this.tokens[this.position++];
+				value |= (b & 0x7F) << shift;
+				if((b & 0x80) == 0) {
+					return value;
+				}
+			}
+		}
 	}
 }
@@ -0,0 +1,104 @@
+package indexing.invertedindex;
+
+import java.io.IOException;
+
+import io.index.IndexReader;
+import io.index.IndexWriter;
+
+public class TokenFrontCoder {
+
+	/**
+	 * Determines, after how many tokens a token is stored completely, so that decoding can start there.
+	 */
+	private static final int RESTART_INTERVAL = 16;
+
+	/**
+	 * Contains the last written or read token.
+	 */
+	private String lastToken = "";
+
+	/**
+	 * Contains the number of written or read tokens.
+	 */
+	private int tokensCount = 0;
+
+
+	/**
+	 * Writes the given token. In compressed indexes, the token is stored as length of the prefix shared with the previous token
+	 * followed by the remaining suffix. Tokens have to be written in ascending order.
+	 * @param token
+	 * @param writer
+	 * @throws IOException
+	 */
+	public void write(String token, IndexWriter writer) throws IOException {
+		if(!writer.isCompressed()) {
+			writer.writeString(token);
+			return;
+		}
+
+		int sharedLength = 0;
+		if(this.tokensCount % RESTART_INTERVAL != 0) {
+			sharedLength = getSharedLength(this.lastToken, token);
+		}
+		writer.writeInt(sharedLength);
+		writer.writeString(token.substring(sharedLength));
+
+		this.lastToken = token;
+		this.tokensCount++;
+	}
+
+	/**
+	 * Reads the next token. Tokens have to be read in the order, they have been written.
+	 * @param reader
+	 * @return
+	 * @throws IOException
+	 */
+	public String read(IndexReader reader) throws IOException {
+		if(!reader.isCompressed()) {
+			return reader.readString();
+		}
+
+		int sharedLength = reader.readInt();
+		if(sharedLength > this.lastToken.length()) {
+			throw new IOException("Front-coded token refers to a missing prefix.");
+		}
+		String token = this.lastToken.substring(0, sharedLength) + reader.readString();
+
+		this.lastToken = token;
+		this.tokensCount++;
+
+		return token;
+	}
+
+	/**
+	 * Skips the token at the current position of the given reader without decoding it.
+	 * @param reader
+	 * @throws IOException
+	 */
+	public static void skip(IndexReader reader) throws IOException {
+		if(reader.isCompressed()) {
+			reader.readInt();
+		}
+		reader.readString();
+	}
+
+
+	/**
+	 * Gets the length of the common prefix of both tokens. Surrogate pairs are never split.
+	 * @param token1
+	 * @param token2
+	 * @return
+	 */
+	private static int getSharedLength(String token1, String token2) {
+		int maxLength = Math.min(token1.length(), token2.length());
+		int length = 0;
+		while(length < maxLength && token1.charAt(length) == token2.charAt(length)) {
+			length++;
+		}
+		if(length > 0 && length < token2.length() && Character.isLowSurrogate(token2.charAt(length))) {
+			length--;
+		}
+
+		return length;
+	}
+}
@@ -0,0 +1,197 @@
+package indexing.segments;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class Segment {
+
+	/**
+	 * Contain the names of the index files, that make up a segment.
+	 */
+	private static final String FREQUENCY_INDEX_FILE_NAME = "frequency_index.bin";
+	private static final String POSITIONAL_INDEX_FILE_NAME = "positional_index.bin";
+	private static final String FREQUENCY_INDEX_SEEK_LIST_FILE_NAME = "frequency_index_seek_list.bin";
+	private static final String DOCUMENT_MAP_FILE_NAME = "document_map.bin";
+	private static final String DOCUMENT_MAP_SEEK_LIST_FILE_NAME = "document_map_seek_list.bin";
+	private static final String CONTENTS_INDEX_FILE_NAME = "contents_index.bin";
+	private static final String CONTENTS_INDEX_SEEK_LIST_FILE_NAME = "contents_index_seek_list.bin";
+	private static final String CITATION_INDEX_FILE_NAME = "citation_index.bin";
+	private static final String CITATION_INDEX_SEEK_LIST_FILE_NAME = "citation_index_seek_list.bin";
+
+	/**
+	 * Contains the name of the segment.
+	 */
+	private final String name;
+
+	/**
+	 * Contains the directory, that contains the index files of this segment.
+	 */
+	private final File directory;
+
+	/**
+	 * Contains the number of documents stored in this segment.
+	 */
+	private final int documentsCount;
+
+	/**
+	 * Contains the names of the document files, that have been indexed into this segment.
+	 */
+	private final List<String> documentFileNames;
+
+
+	/**
+	 * Creates a new Segment instance.
+	 * @param name
+	 * @param directory
+	 * @param documentsCount
+	 * @param documentFileNames
+	 */
+	public Segment(String name, File directory, int documentsCount, List<String> documentFileNames) {
+		this.name = name;
+		this.directory = directory;
+		this.documentsCount = documentsCount;
+		this.documentFileNames = Collections.unmodifiableList(new ArrayList<String>(documentFileNames));
+	}
+
+
+	/**
+	 * Gets the name of the segment.
+	 * @return
+	 */
+	public String getName() {
+		return this.name;
+	}
+
+	/**
+	 * Gets the directory, that contains the index files of this segment.
+	 * @return
+	 */
+	public File getDirectory() {
+		return this.directory;
+	}
+
+	/**
+	 * Gets the number of documents stored in this segment.
+	 * @return
+	 */
+	public int getDocumentsCount() {
+		return this.documentsCount;
+	}
+
+	/**
+	 * Gets the names of the document files, that have been indexed into this segment.
+	 * @return
+	 */
+	public List<String> getDocumentFileNames() {
+		return this.documentFileNames;
+	}
+
+	/**
+	 * Creates a copy of this segment with the given number of documents.
+	 * @param documentsCount
+	 * @return
+	 */
+	public Segment withDocumentsCount(int documentsCount) {
+		return new Segment(this.name, this.directory, documentsCount, this.documentFileNames);
+	}
+
+
+	/**
+	 * Gets the file of the frequency index.
+	 * @return
+	 */
+	public File getFrequencyIndexFile() {
+		return new File(this.directory, FREQUENCY_INDEX_FILE_NAME);
+	}
+
+	/**
+	 * Gets the file of the positional index.
+	 * @return
+	 */
+	public File getPositionalIndexFile() {
+		return new File(this.directory, POSITIONAL_INDEX_FILE_NAME);
+	}
+
+	/**
+	 * Gets the file of the seek list of the frequency index.
+	 * @return
+	 */
+	public File getFrequencyIndexSeekListFile() {
+		return new File(this.directory, FREQUENCY_INDEX_SEEK_LIST_FILE_NAME);
+	}
+
+	/**
+	 * Gets the file of the document map.
+	 * @return
+	 */
+	public File getDocumentMapFile() {
+		return new File(this.directory, DOCUMENT_MAP_FILE_NAME);
+	}
+
+	/**
+	 * Gets the file of the seek list of the document map.
+	 * @return
+	 */
+	public File getDocumentMapSeekListFile() {
+		return new File(this.directory, DOCUMENT_MAP_SEEK_LIST_FILE_NAME);
+	}
+
+	/**
+	 * Gets the file of the contents index.
+	 * @return
+	 */
+	public File getContentsIndexFile() {
+		return new File(this.directory, CONTENTS_INDEX_FILE_NAME);
+	}
+
+	/**
+	 * Gets the file of the seek list of the contents index.
+	 * @return
+	 */
+	public File getContentsIndexSeekListFile() {
+		return new File(this.directory, CONTENTS_INDEX_SEEK_LIST_FILE_NAME);
+	}
+
+	/**
+	 * Gets the file of the citation index.
+	 * @return
+	 */
+	public File getCitationIndexFile() {
+		return new File(this.directory, CITATION_INDEX_FILE_NAME);
+	}
+
+	/**
+	 * Gets the file of the seek list of the citation index.
+	 * @return
+	 */
+	public File getCitationIndexSeekListFile() {
+		return new File(this.directory, CITATION_INDEX_SEEK_LIST_FILE_NAME);
+	}
+
+	/**
+	 * Gets all index files of this segment.
+	 * @return
+	 */
+	public File[] getFiles() {
+		return new File[] {
+			this.getFrequencyIndexFile(), this.getPositionalIndexFile(), this.getFrequencyIndexSeekListFile(),
+			this.getDocumentMapFile(), this.getDocumentMapSeekListFile(),
+			this.getContentsIndexFile(), this.getContentsIndexSeekListFile(),
+			this.getCitationIndexFile(), this.getCitationIndexSeekListFile()
+		};
+	}
+
+
+	/**
+	 * Deletes all index files of this segment.
+	 */
+	public void delete() {
+		for(File file: this.getFiles()) {
+			if(file.exists()) {
+				file.delete();
+			}
+		}
+	}
+}
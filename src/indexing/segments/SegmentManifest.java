@@ -0,0 +1,330 @@
+package indexing.segments;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import gnu.trove.map.TObjectIntMap;
+import gnu.trove.map.hash.TObjectIntHashMap;
+
+import io.FileReaderWriterFactory;
+import io.index.IndexReader;
+import io.index.IndexWriter;
+import io.index.codecs.IndexCodec;
+import io.index.codecs.IndexCodecs;
+
+public class SegmentManifest {
+
+	/**
+	 * Contains the name of the file, that lists all segments of the index.
+	 */
+	private static final String MANIFEST_FILE_NAME = "segments.bin";
+
+	/**
+	 * Contains the prefix for directories of segments, that have been added to the index incrementally.
+	 */
+	private static final String SEGMENT_DIRECTORY_PREFIX = "segment_";
+
+	/**
+	 * Contains the name of the base segment, whose index files are stored directly in the index directory.
+	 */
+	private static final String BASE_SEGMENT_NAME = "";
+
+	/**
+	 * Contains the directory of the index.
+	 */
+	private final File directory;
+
+	/**
+	 * Contains the codec, that is used to encode the index files of all segments.
+	 */
+	private final IndexCodec codec;
+
+	/**
+	 * Contains the segments of the index in the order, they have been added.
+	 */
+	private final List<Segment> segments = new ArrayList<Segment>();
+
+	/**
+	 * Contains the id of the next segment to be created.
+	 */
+	private int nextSegmentId = 1;
+
+	/**
+	 * Contains the number of open readers per segment name.
+	 */
+	private final TObjectIntMap<String> referenceCounts = new TObjectIntHashMap<String>();
+
+	/**
+	 * Contains segments, that have been replaced by merges, but whose index files have not been deleted yet,
+	 * because they are still referenced by open readers or their deletion failed.
+	 */
+	private final List<Segment> obsoleteSegments = new ArrayList<Segment>();
+
+
+	/**
+	 * Creates a new SegmentManifest instance without any segments.
+	 * @param directory
+	 * @param codec
+	 */
+	public SegmentManifest(File directory, IndexCodec codec) {
+		this.directory = directory;
+		this.codec = codec;
+	}
+
+
+	/**
+	 * Gets the base segment, whose index files are stored directly in the given index directory.
+	 * @param directory
+	 * @param documentFileNames
+	 * @return
+	 */
+	public static Segment getBaseSegment(File directory, List<String> documentFileNames) {
+		return new Segment(BASE_SEGMENT_NAME, directory, 0, documentFileNames);
+	}
+
+
+	/**
+	 * Gets the codec, that is used to encode the index files of all segments.
+	 * @return
+	 */
+	public IndexCodec getCodec() {
+		return this.codec;
+	}
+
+	/**
+	 * Gets a snapshot of all segments of the index.
+	 * @return
+	 */
+	public synchronized List<Segment> getSegments() {
+		return Collections.unmodifiableList(new ArrayList<Segment>(this.segments));
+	}
+
+	/**
+	 * Gets a snapshot of all segments of the index and references them, so that their index files are not deleted
+	 * by merges, until they are released again. Has to be called before opening readers on the segments.
+	 * @return
+	 */
+	public synchronized List<Segment> acquireSegments() {
+		for(Segment segment: this.segments) {
+			this.referenceCounts.adjustOrPutValue(segment.getName(), 1, 1);
+		}
+
+		return this.getSegments();
+	}
+
+	/**
+	 * Releases the given segments, that have been acquired before, once the readers on them are closed.
+	 * Index files of segments, that have been replaced meanwhile and are not referenced anymore, are deleted.
+	 * @param segments
+	 */
+	public synchronized void releaseSegments(List<Segment> segments) {
+		for(Segment segment: segments) {
+			if(this.referenceCounts.containsKey(segment.getName()) && this.referenceCounts.adjustOrPutValue(segment.getName(), -1, 0) <= 0) {
+				this.referenceCounts.remove(segment.getName());
+			}
+		}
+		this.deleteObsoleteSegments();
+	}
+
+	/**
+	 * Gets the names of all document files, that have been indexed into any segment.
+	 * @return
+	 */
+	public synchronized Set<String> getDocumentFileNames() {
+		Set<String> documentFileNames = new HashSet<String>();
+		for(Segment segment: this.segments) {
+			documentFileNames.addAll(segment.getDocumentFileNames());
+		}
+
+		return documentFileNames;
+	}
+
+
+	/**
+	 * Creates a new, empty segment with its own directory. The segment is not part of the index, until it is added.
+	 * @param documentFileNames
+	 * @return
+	 */
+	public synchronized Segment newSegment(List<String> documentFileNames) {
+		String name = SEGMENT_DIRECTORY_PREFIX + this.nextSegmentId++;
+		File segmentDirectory = new File(this.directory, name);
+		segmentDirectory.mkdirs();
+
+		return new Segment(name, segmentDirectory, 0, documentFileNames);
+	}
+
+	/**
+	 * Adds the given segment to the index and saves the manifest.
+	 * @param segment
+	 * @throws IOException
+	 */
+	public synchronized void add(Segment segment) throws IOException {
+		this.segments.add(segment);
+		this.save();
+	}
+
+	/**
+	 * Replaces the given segments by a single segment, which contains all of their documents, and saves the manifest.
+	 * Index files of the replaced segments are deleted as soon as they are not referenced by open readers anymore.
+	 * @param replacedSegments
+	 * @param segment
+	 * @throws IOException
+	 */
+	public synchronized void replace(List<Segment> replacedSegments, Segment segment) throws IOException {
+		Set<String> replacedNames = new HashSet<String>();
+		for(Segment replacedSegment: replacedSegments) {
+			replacedNames.add(replacedSegment.getName());
+		}
+		this.segments.removeIf(x -> replacedNames.contains(x.getName()));
+		this.segments.add(segment);
+		this.save();
+
+		this.obsoleteSegments.addAll(replacedSegments);
+		this.deleteObsoleteSegments();
+	}
+
+	/**
+	 * Deletes all segments and the manifest itself.
+	 */
+	public synchronized void deleteAll() {
+		for(Segment segment: this.segments) {
+			this.deleteSegment(segment);
+		}
+		for(Segment segment: this.obsoleteSegments) {
+			this.deleteSegment(segment);
+		}
+		this.segments.clear();
+		this.obsoleteSegments.clear();
+
+		File manifestFile = new File(this.directory, MANIFEST_FILE_NAME);
+		if(manifestFile.exists()) {
+			manifestFile.delete();
+		}
+	}
+
+	/**
+	 * Deletes the index files of all obsolete segments, that are not referenced by open readers anymore.
+	 * Segments, whose files cannot be deleted yet, are kept, so that their deletion is retried later.
+	 */
+	private void deleteObsoleteSegments() {
+		Iterator<Segment> iterator = this.obsoleteSegments.iterator();
+		while(iterator.hasNext()) {
+			Segment segment = iterator.next();
+			if(!this.referenceCounts.containsKey(segment.getName()) && this.deleteSegment(segment)) {
+				iterator.remove();
+			}
+		}
+	}
+
+	/**
+	 * Deletes the index files of the given segment and its directory, if it is not the base segment.
+	 * Returns whether all files have been deleted.
+	 * @param segment
+	 * @return
+	 */
+	private boolean deleteSegment(Segment segment) {
+		segment.delete();
+		if(!segment.getName().equals(BASE_SEGMENT_NAME)) {
+			segment.getDirectory().delete();
+			return !segment.getDirectory().exists();
+		}
+
+		return Arrays.stream(segment.getFiles()).noneMatch(File::exists);
+	}
+
+	/**
+	 * Deletes directories of segments, that are not part of the index anymore. These are left over by merges,
+	 * whose replaced segments could not be deleted, because they were still opened by another process.
+	 */
+	private void deleteOrphanedSegments() {
+		Set<String> names = new HashSet<String>();
+		for(Segment segment: this.segments) {
+			names.add(segment.getName());
+		}
+
+		File[] segmentDirectories = this.directory.listFiles(file -> file.isDirectory() && file.getName().startsWith(SEGMENT_DIRECTORY_PREFIX));
+		for(File segmentDirectory: segmentDirectories != null ? segmentDirectories : new File[0]) {
+			if(!names.contains(segmentDirectory.getName())) {
+				this.deleteSegment(new Segment(segmentDirectory.getName(), segmentDirectory, 0, Collections.emptyList()));
+			}
+		}
+	}
+
+
+	/**
+	 * Loads the manifest from the given index directory. Returns null, if there is no manifest.
+	 * Left over directories of segments, that have been replaced before, are deleted.
+	 * @param directory
+	 * @return
+	 * @throws IOException
+	 */
+	public static SegmentManifest load(File directory) throws IOException {
+		File manifestFile = new File(directory, MANIFEST_FILE_NAME);
+		if(!manifestFile.exists()) {
+			return null;
+		}
+
+		try(IndexReader reader = FileReaderWriterFactory.getInstance().getDirectIndexReader(manifestFile, IndexCodecs.UNCOMPRESSED)) {
+			SegmentManifest manifest = new SegmentManifest(directory, IndexCodecs.forId(reader.readInt()));
+			manifest.nextSegmentId = reader.readInt();
+
+			int segmentsCount = reader.readInt();
+			for(int i = 0; i < segmentsCount; i++) {
+				// Read segment properties
+				String name = reader.readString();
+				int documentsCount = reader.readInt();
+
+				// Read names of indexed document files
+				int documentFilesCount = reader.readInt();
+				List<String> documentFileNames = new ArrayList<String>(documentFilesCount);
+				for(int j = 0; j < documentFilesCount; j++) {
+					documentFileNames.add(reader.readString());
+				}
+
+				File segmentDirectory = name.equals(BASE_SEGMENT_NAME) ? directory : new File(directory, name);
+				manifest.segments.add(new Segment(name, segmentDirectory, documentsCount, documentFileNames));
+			}
+			manifest.deleteOrphanedSegments();
+
+			return manifest;
+		}
+	}
+
+	/**
+	 * Saves the manifest to the index directory. The manifest is written to a temporary file first, which then replaces the old one,
+	 * so that readers never see a partially written manifest.
+	 * @throws IOException
+	 */
+	private void save() throws IOException {
+		File manifestFile = new File(this.directory, MANIFEST_FILE_NAME);
+		File tempManifestFile = new File(this.directory, MANIFEST_FILE_NAME + ".tmp");
+		try(IndexWriter writer = FileReaderWriterFactory.getInstance().getDirectIndexWriter(tempManifestFile, IndexCodecs.UNCOMPRESSED)) {
+			writer.writeInt(this.codec.getId());
+			writer.writeInt(this.nextSegmentId);
+
+			writer.writeInt(this.segments.size());
+			for(Segment segment: this.segments) {
+				// Write segment properties
+				writer.writeString(segment.getName());
+				writer.writeInt(segment.getDocumentsCount());
+
+				// Write names of indexed document files
+				writer.writeInt(segment.getDocumentFileNames().size());
+				for(String documentFileName: segment.getDocumentFileNames()) {
+					writer.writeString(documentFileName);
+				}
+			}
+		}
+
+		Files.move(tempManifestFile.toPath(), manifestFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+}
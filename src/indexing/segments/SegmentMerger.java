@@ -0,0 +1,183 @@
+package indexing.segments;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import org.apache.commons.lang3.tuple.Pair;
+
+import documents.PatentDocument;
+import gnu.trove.list.TIntList;
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.map.TIntObjectMap;
+import gnu.trove.map.hash.TIntObjectHashMap;
+import indexing.citations.CitationIndexConstructor;
+import indexing.citations.CitationIndexReader;
+import indexing.citations.CitationIndexSeekList;
+import indexing.contents.ContentsIndexMerger;
+import indexing.documentmap.DocumentMapConstructor;
+import indexing.documentmap.DocumentMapReader;
+import indexing.documentmap.DocumentMapSeekList;
+import indexing.invertedindex.InvertedIndexMerger;
+import io.index.codecs.IndexCodec;
+import querying.ranking.PageRankCalculator;
+
+public class SegmentMerger {
+
+	/**
+	 * Contains the manifest of the index, whose segments should be merged.
+	 */
+	private final SegmentManifest manifest;
+
+	/**
+	 * Contains the number of segments of the same size level, that are merged into a single segment.
+	 */
+	private final int mergeFactor;
+
+	/**
+	 * Contains the calculator, that recomputes the page ranks of the documents of merged segments.
+	 */
+	private final PageRankCalculator pageRankCalculator;
+
+
+	/**
+	 * Creates a new SegmentMerger instance.
+	 * @param manifest
+	 * @param mergeFactor
+	 * @param pageRankCalculator
+	 */
+	public SegmentMerger(SegmentManifest manifest, int mergeFactor, PageRankCalculator pageRankCalculator) {
+		this.manifest = manifest;
+		this.mergeFactor = Math.max(2, mergeFactor);
+		this.pageRankCalculator = pageRankCalculator;
+	}
+
+
+	/**
+	 * Merges small segments into larger ones, until there are less segments of each size level than the merge factor.
+	 * The size level of a segment is the logarithm of its documents count to the base of the merge factor,
+	 * so that each document is merged only a logarithmic number of times.
+	 * @throws IOException
+	 */
+	public void mergeSegments() throws IOException {
+		List<Segment> segments;
+		while((segments = this.selectSegments(this.manifest.getSegments())) != null) {
+			System.out.println(String.format("Merge %d index segments...", segments.size()));
+			Segment segment = this.merge(segments);
+			this.manifest.replace(segments, segment);
+		}
+	}
+
+	/**
+	 * Selects the segments to be merged next, which are the smallest segments of the lowest size level, that contains enough segments.
+	 * Returns null, if no segments should be merged.
+	 * @param segments
+	 * @return
+	 */
+	private List<Segment> selectSegments(List<Segment> segments) {
+		Map<Integer, List<Segment>> levels = segments.stream()
+												.collect(Collectors.groupingBy(x -> this.getLevel(x), TreeMap::new, Collectors.toList()));
+		for(List<Segment> levelSegments: levels.values()) {
+			if(levelSegments.size() >= this.mergeFactor) {
+				return levelSegments.stream()
+						.sorted(Comparator.comparingInt(Segment::getDocumentsCount))
+						.limit(this.mergeFactor)
+						.collect(Collectors.toList());
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * Gets the size level of the given segment.
+	 * @param segment
+	 * @return
+	 */
+	private int getLevel(Segment segment) {
+		if(segment.getDocumentsCount() <= 1) {
+			return 0;
+		}
+
+		return (int)(Math.log(segment.getDocumentsCount()) / Math.log(this.mergeFactor));
+	}
+
+	/**
+	 * Merges the given segments into a new segment, which is not yet part of the index.
+	 * Page ranks of its documents are recomputed using the citations of all merged documents, because each segment only knows the citations of its own documents.
+	 * Citations of documents in other segments are not taken into account, so page ranks equal those of a full rebuild only, 
+	 * when all segments have been merged into one.
+	 * @param segments
+	 * @return
+	 * @throws IOException
+	 */
+	private Segment merge(List<Segment> segments) throws IOException {
+		IndexCodec codec = this.manifest.getCodec();
+		List<String> documentFileNames = new ArrayList<String>();
+		int documentsCount = 0;
+		for(Segment segment: segments) {
+			documentFileNames.addAll(segment.getDocumentFileNames());
+			documentsCount += segment.getDocumentsCount();
+		}
+		Segment mergedSegment = this.manifest.newSegment(documentFileNames).withDocumentsCount(documentsCount);
+
+		try {
+			// Merge inverted indexes
+			List<Pair<File, File>> invertedIndexFiles = segments.stream()
+															.map(x -> Pair.of(x.getFrequencyIndexFile(), x.getPositionalIndexFile()))
+															.collect(Collectors.toList());
+			new InvertedIndexMerger(codec).merge(mergedSegment.getFrequencyIndexFile(), mergedSegment.getPositionalIndexFile(),
+															invertedIndexFiles, mergedSegment.getFrequencyIndexSeekListFile());
+
+			// Merge contents indexes
+			List<File> contentsIndexFiles = segments.stream()
+												.map(x -> x.getContentsIndexFile())
+												.collect(Collectors.toList());
+			new ContentsIndexMerger(codec).merge(mergedSegment.getContentsIndexFile(), contentsIndexFiles, mergedSegment.getContentsIndexSeekListFile());
+
+			// Merge citation indexes and collect cited documents per citing document
+			CitationIndexConstructor citationIndexConstructor = new CitationIndexConstructor(codec, new CitationIndexSeekList());
+			TIntObjectMap<TIntList> linkedDocumentIds = new TIntObjectHashMap<TIntList>();
+			try(CitationIndexReader citationIndexReader = new CitationIndexReader(segments)) {
+				for(Map.Entry<Integer, Set<Integer>> entry: citationIndexReader.getAllLinkingDocuments().entrySet()) {
+					for(int linkingDocumentId: entry.getValue()) {
+						citationIndexConstructor.add(entry.getKey(), linkingDocumentId);
+						
+						if(!linkedDocumentIds.containsKey(linkingDocumentId)) {
+							linkedDocumentIds.put(linkingDocumentId, new TIntArrayList());
+						}
+						linkedDocumentIds.get(linkingDocumentId).add(entry.getKey());
+					}
+				}
+			}
+			citationIndexConstructor.saveWithSeekList(mergedSegment.getCitationIndexFile(), mergedSegment.getCitationIndexSeekListFile());
+
+			// Merge document maps with recomputed page ranks
+			Map<PatentDocument, TIntList> linkedDocuments = new HashMap<PatentDocument, TIntList>();
+			try(DocumentMapReader documentMapReader = new DocumentMapReader(segments)) {
+				for(PatentDocument document: documentMapReader.getDocuments()) {
+					TIntList documentLinks = linkedDocumentIds.get(document.getId());
+					linkedDocuments.put(document, documentLinks != null ? documentLinks : new TIntArrayList());
+				}
+			}
+			DocumentMapConstructor documentMapConstructor = new DocumentMapConstructor(codec, new DocumentMapSeekList());
+			for(PatentDocument document: this.pageRankCalculator.calculate(linkedDocuments)) {
+				documentMapConstructor.add(document);
+			}
+			documentMapConstructor.saveWithSeekList(mergedSegment.getDocumentMapFile(), mergedSegment.getDocumentMapSeekListFile());
+		} catch(IOException e) {
+			mergedSegment.delete();
+			mergedSegment.getDirectory().delete();
+			throw e;
+		}
+
+		return mergedSegment;
+	}
+}
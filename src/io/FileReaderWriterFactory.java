@@ -4,12 +4,10 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 
-import io.index.CompressedIndexReader;
-import io.index.CompressedIndexWriter;
+import io.index.IndexHeader;
 import io.index.IndexReader;
 import io.index.IndexWriter;
-import io.index.UncompressedIndexReader;
-import io.index.UncompressedIndexWriter;
+import io.index.codecs.IndexCodec;
 import io.lowlevel.BufferedFileReader;
 import io.lowlevel.BufferedFileWriter;
 import io.lowlevel.ByteBufferReader;
@@ -49,118 +47,150 @@ public class FileReaderWriterFactory {
 	
 	
 	/**
-	 * Creates a new DirectIndexReader instance.
+	 * Creates a new DirectIndexReader instance for a file starting with a header, which determines the codec of the reader.
 	 * @param file
-	 * @param compress
+	 * @return
+	 * @throws IOException
+	 */
+	public IndexReader getDirectIndexReader(File file) throws IOException {
+		FileReader fileReader = this.getDirectFileReader(file);
+		return this.getIndexReader(fileReader);
+	}
+	
+	/**
+	 * Creates a new DirectIndexReader instance for a file without header, which has been written using the given codec.
+	 * @param file
+	 * @param codec
 	 * @return
 	 * @throws FileNotFoundException
 	 */
-	public IndexReader getDirectIndexReader(File file, boolean compress) throws FileNotFoundException {
+	public IndexReader getDirectIndexReader(File file, IndexCodec codec) throws FileNotFoundException {
 		FileReader fileReader = this.getDirectFileReader(file);
-		return this.getIndexReader(fileReader, compress);
+		return this.getIndexReader(fileReader, codec);
 	}
 	
 	/**
-	 * Creates a new BufferedIndexReader instance.
+	 * Creates a new BufferedIndexReader instance for a file starting with a header, which determines the codec of the reader.
 	 * @param file
-	 * @param compress
 	 * @return
 	 * @throws IOException
 	 */
-	public IndexReader getBufferedIndexReader(File file, boolean compress) throws IOException {
+	public IndexReader getBufferedIndexReader(File file) throws IOException {
 		FileReader fileReader = this.getBufferedFileReader(file);
-		return this.getIndexReader(fileReader, compress);
+		return this.getIndexReader(fileReader);
 	}
 	
 	/**
-	 * Creates a new MemoryMappedIndexReader instance.
+	 * Creates a new MemoryMappedIndexReader instance for a file starting with a header, which determines the codec of the reader.
 	 * @param file
-	 * @param compress
 	 * @return
 	 * @throws IOException
 	 */
-	public IndexReader getMemoryMappedIndexReader(File file, boolean compress) throws IOException {
+	public IndexReader getMemoryMappedIndexReader(File file) throws IOException {
 		FileReader fileReader = this.getMemoryMappedFileReader(file);
-		return this.getIndexReader(fileReader, compress);
+		return this.getIndexReader(fileReader);
 	}
 	
 	/**
-	 * Creates a new ByteBufferIndexReader instance.
+	 * Creates a new ByteBufferIndexReader instance for data without header, which has been written using the given codec.
 	 * @param buffer
-	 * @param compress
+	 * @param codec
 	 * @return
 	 * @throws IOException
 	 */
-	public IndexReader getByteBufferIndexReader(byte[] buffer, boolean compress) throws IOException {
+	public IndexReader getByteBufferIndexReader(byte[] buffer, IndexCodec codec) throws IOException {
 		FileReader fileReader = this.getByteBufferReader(buffer);
-		return this.getIndexReader(fileReader, compress);
+		return this.getIndexReader(fileReader, codec);
 	}
 	
 	/**
-	 * Creates a new IndexReader instance for the given FileReader instance.
+	 * Creates a new IndexReader instance for the given FileReader instance. The header is read from the file reader 
+	 * and determines the codec of the created reader. If the header can not be read, the file reader is closed.
 	 * @param fileReader
-	 * @param compress
 	 * @return
+	 * @throws IOException
 	 */
-	private IndexReader getIndexReader(FileReader fileReader, boolean compress) {
-		if(compress) {
-			return new CompressedIndexReader(fileReader);
-		}
-		else {
-			return new UncompressedIndexReader(fileReader);
+	public IndexReader getIndexReader(FileReader fileReader) throws IOException {
+		IndexHeader header;
+		try {
+			header = IndexHeader.read(fileReader);
+		} catch (IOException e) {
+			fileReader.close();
+			throw e;
 		}
+		
+		return header.getCodec().createReader(fileReader, header);
+	}
+	
+	/**
+	 * Creates a new IndexReader instance for the given FileReader instance, whose data has no header.
+	 * @param fileReader
+	 * @param codec
+	 * @return
+	 */
+	public IndexReader getIndexReader(FileReader fileReader, IndexCodec codec) {
+		return codec.createReader(fileReader, null);
 	}
 
 	
 	/**
-	 * Creates a new DirectIndexWriter instance.
+	 * Creates a new DirectIndexWriter instance, that writes the given header first. The header determines the codec of the writer.
+	 * @param file
+	 * @param header
+	 * @return
+	 * @throws IOException
+	 */
+	public IndexWriter getDirectIndexWriter(File file, IndexHeader header) throws IOException {
+		FileWriter fileWriter = this.getDirectFileWriter(file);
+		return this.getIndexWriter(fileWriter, header);
+	}
+	
+	/**
+	 * Creates a new DirectIndexWriter instance for a file without header.
 	 * @param file
-	 * @param compress
+	 * @param codec
 	 * @return
 	 * @throws FileNotFoundException
 	 */
-	public IndexWriter getDirectIndexWriter(File file, boolean compress) throws FileNotFoundException {
+	public IndexWriter getDirectIndexWriter(File file, IndexCodec codec) throws FileNotFoundException {
 		FileWriter fileWriter = this.getDirectFileWriter(file);
-		return this.getIndexWriter(fileWriter, compress);
+		return codec.createWriter(fileWriter);
 	}
 	
 	/**
-	 * Creates a new BufferedIndexWriter instance.
+	 * Creates a new BufferedIndexWriter instance, that writes the given header first.
 	 * @param file
-	 * @param compress
+	 * @param header
 	 * @return
 	 * @throws IOException
 	 */
-	public IndexWriter getBufferedIndexWriter(File file, boolean compress) throws IOException {
+	public IndexWriter getBufferedIndexWriter(File file, IndexHeader header) throws IOException {
 		FileWriter fileWriter = this.getBufferedFileWriter(file);
-		return this.getIndexWriter(fileWriter, compress);
+		return this.getIndexWriter(fileWriter, header);
 	}
 	
 	/**
-	 * Creates a new MemoryMappedIndexWriter.
+	 * Creates a new MemoryMappedIndexWriter, that writes the given header first.
 	 * @param file
-	 * @param compress
+	 * @param header
 	 * @return
 	 * @throws IOException
 	 */
-	public IndexWriter getMemoryMappedIndexWriter(File file, boolean compress) throws IOException {
+	public IndexWriter getMemoryMappedIndexWriter(File file, IndexHeader header) throws IOException {
 		FileWriter fileWriter = this.getMemoryMappedFileWriter(file);
-		return this.getIndexWriter(fileWriter, compress);
+		return this.getIndexWriter(fileWriter, header);
 	}
 	
 	/**
-	 * Creates a new IndexWriter instance for the given FileWriter instance.
+	 * Creates a new IndexWriter instance for the given FileWriter instance and writes the given header.
 	 * @param fileWriter
-	 * @param compress
+	 * @param header
 	 * @return
+	 * @throws IOException
 	 */
-	private IndexWriter getIndexWriter(FileWriter fileWriter, boolean compress) {
-		if(compress) {
-			return new CompressedIndexWriter(fileWriter);
-		}
-		else {
-			return new UncompressedIndexWriter(fileWriter);
-		}
+	private IndexWriter getIndexWriter(FileWriter fileWriter, IndexHeader header) throws IOException {
+		header.write(fileWriter);
+		return header.getCodec().createWriter(fileWriter);
 	}	
 	
 	
@@ -9,9 +9,15 @@ public class CompressedIndexReader extends UncompressedIndexReader {
 	/**
 	 * Creates a new CompressedIndexReader instance.
 	 * @param fileReader
+	 * @param header
 	 */
-	public CompressedIndexReader(FileReader fileReader) {
-		super(fileReader);
+	public CompressedIndexReader(FileReader fileReader, IndexHeader header) {
+		super(fileReader, header);
+	}
+	
+	@Override
+	protected IndexReader createReader(FileReader fileReader) {
+		return new CompressedIndexReader(fileReader, this.getHeader());
 	}
 	
 	@Override
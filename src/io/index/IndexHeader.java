@@ -0,0 +1,149 @@
+package io.index;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import io.index.codecs.IndexCodec;
+import io.index.codecs.IndexCodecs;
+import io.lowlevel.FileReader;
+import io.lowlevel.FileWriter;
+
+public class IndexHeader {
+	
+	/**
+	 * Contains the magic number, that identifies index files of this search engine ("AWSE").
+	 */
+	public static final int MAGIC = 0x41575345;
+	
+	/**
+	 * Contains the current version of the index file format.
+	 */
+	public static final int VERSION = 1;
+	
+	/**
+	 * Contains the number of bytes occupied by the header. The header is always stored uncompressed, 
+	 * so that it can be read before the codec of the file is known.
+	 */
+	public static final int LENGTH = 5 * Integer.BYTES;
+	
+	/**
+	 * Contains the version of the file format.
+	 */
+	private final int version;
+	
+	/**
+	 * Contains the codec, that has been used to encode the file.
+	 */
+	private final IndexCodec codec;
+	
+	/**
+	 * Contains the number of entries (e.g. tokens or documents) stored in the file.
+	 */
+	private final int entriesCount;
+	
+	/**
+	 * Contains the size of the index, that the file belongs to (e.g. number of token occurrences or documents).
+	 */
+	private final int size;
+	
+	
+	/**
+	 * Creates a new IndexHeader instance for the current version of the file format.
+	 * @param codec
+	 * @param entriesCount
+	 * @param size
+	 */
+	public IndexHeader(IndexCodec codec, int entriesCount, int size) {
+		this(VERSION, codec, entriesCount, size);
+	}
+	
+	/**
+	 * Creates a new IndexHeader instance.
+	 * @param version
+	 * @param codec
+	 * @param entriesCount
+	 * @param size
+	 */
+	private IndexHeader(int version, IndexCodec codec, int entriesCount, int size) {
+		this.version = version;
+		this.codec = codec;
+		this.entriesCount = entriesCount;
+		this.size = size;
+	}
+	
+	
+	/**
+	 * Gets the version of the file format.
+	 * @return
+	 */
+	public int getVersion() {
+		return this.version;
+	}
+	
+	/**
+	 * Gets the codec, that has been used to encode the file.
+	 * @return
+	 */
+	public IndexCodec getCodec() {
+		return this.codec;
+	}
+	
+	/**
+	 * Gets the number of entries stored in the file.
+	 * @return
+	 */
+	public int getEntriesCount() {
+		return this.entriesCount;
+	}
+	
+	/**
+	 * Gets the size of the index, that the file belongs to.
+	 * @return
+	 */
+	public int getSize() {
+		return this.size;
+	}
+	
+	
+	/**
+	 * Writes the header using the given file writer. The file pointer has to be at the beginning of the file.
+	 * @param writer
+	 * @throws IOException
+	 */
+	public void write(FileWriter writer) throws IOException {
+		writer.write(ByteBuffer.allocate(LENGTH)
+						.putInt(MAGIC)
+						.putInt(this.version)
+						.putInt(this.codec.getId())
+						.putInt(this.entriesCount)
+						.putInt(this.size)
+						.array());
+	}
+	
+	/**
+	 * Reads the header from the given file reader and looks up the codec of the file. 
+	 * The file pointer has to be at the beginning of the file.
+	 * @param reader
+	 * @return
+	 * @throws IOException
+	 */
+	public static IndexHeader read(FileReader reader) throws IOException {
+		byte[] bytes = new byte[LENGTH];
+		if(reader.read(bytes) < LENGTH) {
+			throw new EOFException("File is too short to contain an index header.");
+		}
+		
+		ByteBuffer buffer = ByteBuffer.wrap(bytes);
+		if(buffer.getInt() != MAGIC) {
+			throw new IOException("File is not an index file or has been written by an outdated version.");
+		}
+		int version = buffer.getInt();
+		if(version > VERSION) {
+			throw new IOException(String.format("Index file version %d is not supported.", version));
+		}
+		IndexCodec codec = IndexCodecs.forId(buffer.getInt());
+		
+		return new IndexHeader(version, codec, buffer.getInt(), buffer.getInt());
+	}
+}
@@ -12,6 +12,12 @@ public interface IndexReader extends FileReader {
 	 */
 	public boolean isCompressed();
 	
+	/**
+	 * Gets the header of the file, which describes its encoding. Returns null, if the file has no header.
+	 * @return
+	 */
+	public IndexHeader getHeader();
+	
 	/**
 	 * Reads a signed 16-bit number from this file.
 	 * @return
@@ -64,9 +70,19 @@ public interface IndexReader extends FileReader {
 	public void skipSkippingArea() throws IOException;
 	
 	/**
-	 * Loads the skipping area in memory and returns a reader for it.
+	 * Returns a reader limited to the skipping area and moves the file pointer behind it. 
+	 * If possible, the reader is a view on the data of this reader instead of a copy.
 	 * @return
 	 * @throws IOException
 	 */
 	public IndexReader getSkippingAreaReader() throws IOException;
+	
+	/**
+	 * Creates a reader of the same file with its own file pointer, which shares the header of this reader.
+	 * The returned reader can be used by another thread concurrently to this one. Closing it does not close the file.
+	 * @return
+	 * @throws IOException
+	 */
+	@Override
+	public IndexReader duplicate() throws IOException;
 }
@@ -1,12 +1,12 @@
 package io.index;
 
+import java.io.EOFException;
 import java.io.IOException;
 
 import com.google.common.primitives.Ints;
 import com.google.common.primitives.Longs;
 import com.google.common.primitives.Shorts;
 
-import io.FileReaderWriterFactory;
 import io.lowlevel.FileReader;
 
 public class UncompressedIndexReader implements IndexReader, AutoCloseable {
@@ -21,13 +21,20 @@ public class UncompressedIndexReader implements IndexReader, AutoCloseable {
 	 */
 	private FileReader fileReader;
 	
+	/**
+	 * Contains the header of the file, if it has one.
+	 */
+	private IndexHeader header;
+	
 	
 	/**
 	 * Creates a new UncompressedIndexReader instance.
 	 * @param fileReader
+	 * @param header
 	 */
-	public UncompressedIndexReader(FileReader fileReader) {
+	public UncompressedIndexReader(FileReader fileReader, IndexHeader header) {
 		this.fileReader = fileReader;
+		this.header = header;
 	}
 	
 
@@ -45,13 +52,18 @@ public class UncompressedIndexReader implements IndexReader, AutoCloseable {
 	public byte[] readToEnd() throws IOException {
 		return this.fileReader.readToEnd();
 	}
+	
+	@Override
+	public FileReader readSlice(int length) throws IOException {
+		return this.fileReader.readSlice(length);
+	}
 
 	@Override
 	public short readShort() throws IOException {
 		byte[] bytes = new byte[Short.BYTES];
 		int length = this.read(bytes);
 		if(length < bytes.length) {
-			return -1;
+			throw new EOFException();
 		}
 		
 		return Shorts.fromByteArray(bytes);
@@ -62,7 +74,7 @@ public class UncompressedIndexReader implements IndexReader, AutoCloseable {
 		byte[] bytes = new byte[Integer.BYTES];
 		int length = this.read(bytes);
 		if(length < bytes.length) {
-			return -1;
+			throw new EOFException();
 		}
 		
 		return Ints.fromByteArray(bytes);
@@ -73,7 +85,7 @@ public class UncompressedIndexReader implements IndexReader, AutoCloseable {
 		byte[] bytes = new byte[Long.BYTES];
 		int length = this.read(bytes);
 		if(length < bytes.length) {
-			return -1;
+			throw new EOFException();
 		}
 		
 		return Longs.fromByteArray(bytes);
@@ -115,12 +127,25 @@ public class UncompressedIndexReader implements IndexReader, AutoCloseable {
 	
 	@Override
 	public IndexReader getSkippingAreaReader() throws IOException {
-		// Read full skipping area
+		// Get a reader limited to the skipping area, which is a view on the underlying data, if possible
 		int length = this.getSkippingAreaLength();
-		byte[] buffer = new byte[length];
-		this.read(buffer);
+		FileReader skippingAreaReader = this.readSlice(length);
 		
-		return FileReaderWriterFactory.getInstance().getByteBufferIndexReader(buffer, this.isCompressed());
+		return this.createReader(skippingAreaReader);
+	}
+	
+	@Override
+	public IndexReader duplicate() throws IOException {
+		return this.createReader(this.fileReader.duplicate());
+	}
+	
+	/**
+	 * Creates a reader of the same kind for the given file reader, which shares the header of this reader.
+	 * @param fileReader
+	 * @return
+	 */
+	protected IndexReader createReader(FileReader fileReader) {
+		return new UncompressedIndexReader(fileReader, this.header);
 	}
 
 	
@@ -128,6 +153,11 @@ public class UncompressedIndexReader implements IndexReader, AutoCloseable {
 	public boolean isCompressed() {
 		return false;
 	}
+	
+	@Override
+	public IndexHeader getHeader() {
+		return this.header;
+	}
 
 	@Override
 	public long getFilePointer() throws IOException {
@@ -0,0 +1,87 @@
+package io.index.codecs;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+
+class BitPacker {
+	
+	/**
+	 * Gets the number of bits needed to store the given value.
+	 * @param value
+	 * @return
+	 */
+	public static int getBitWidth(int value) {
+		return Integer.SIZE - Integer.numberOfLeadingZeros(value);
+	}
+	
+	/**
+	 * Writes the lowest 'bitWidth' bits of the first 'length' values of the given array to the given output. 
+	 * Bits are written starting with the least significant one.
+	 * @param values
+	 * @param length
+	 * @param bitWidth
+	 * @param output
+	 */
+	public static void pack(int[] values, int length, int bitWidth, ByteArrayOutputStream output) {
+		if(bitWidth == 0) {
+			return;
+		}
+		
+		long mask = (1L << bitWidth) - 1;
+		long buffer = 0;
+		int bufferedBits = 0;
+		for(int i = 0; i < length; i++) {
+			buffer |= (values[i] & mask) << bufferedBits;
+			bufferedBits += bitWidth;
+			while(bufferedBits >= 8) {
+				output.write((int)(buffer & 0xFF));
+				buffer >>>= 8;
+				bufferedBits -= 8;
+			}
+		}
+		if(bufferedBits > 0) {
+			output.write((int)(buffer & 0xFF));
+		}
+	}
+	
+	/**
+	 * Reads 'length' values of 'bitWidth' bits starting at the given position of the given bytes into the given array.
+	 * Returns the position after the packed values.
+	 * @param bytes
+	 * @param position
+	 * @param values
+	 * @param length
+	 * @param bitWidth
+	 * @return
+	 * @throws IOException
+	 */
+	public static int unpack(byte[] bytes, int position, int[] values, int length, int bitWidth) throws IOException {
+		if(bitWidth == 0) {
+			for(int i = 0; i < length; i++) {
+				values[i] = 0;
+			}
+			return position;
+		}
+		
+		int end = position + (int)(((long)length * bitWidth + 7) / 8);
+		if(end > bytes.length) {
+			throw new EOFException();
+		}
+		
+		long mask = (1L << bitWidth) - 1;
+		long buffer = 0;
+		int bufferedBits = 0;
+		for(int i = 0; i < length; i++) {
+			while(bufferedBits < bitWidth) {
+				buffer |= (long)(bytes[position++] & 0xFF) << bufferedBits;
+				bufferedBits += 8;
+			}
+			values[i] = (int)(buffer & mask);
+			buffer >>>= bitWidth;
+			bufferedBits -= bitWidth;
+		}
+		
+		return end;
+	}
+}
@@ -0,0 +1,32 @@
+package io.index.codecs;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+
+public class BitPackingCodec extends IntBlockCodec {
+
+	@Override
+	protected void encode(int[] values, int length, ByteArrayOutputStream output) {
+		// Determine number of bits needed for the largest value
+		int bitWidth = 0;
+		for(int i = 0; i < length; i++) {
+			bitWidth = Math.max(bitWidth, BitPacker.getBitWidth(values[i]));
+		}
+		
+		output.write(bitWidth);
+		BitPacker.pack(values, length, bitWidth, output);
+	}
+
+	@Override
+	protected void decode(byte[] bytes, int[] values, int length) throws IOException {
+		if(length == 0) {
+			return;
+		}
+		if(bytes.length == 0) {
+			throw new EOFException();
+		}
+		
+		BitPacker.unpack(bytes, 1, values, length, bytes[0]);
+	}
+}
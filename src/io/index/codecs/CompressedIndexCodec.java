@@ -0,0 +1,66 @@
+package io.index.codecs;
+
+import io.index.CompressedIndexReader;
+import io.index.CompressedIndexWriter;
+import io.index.IndexHeader;
+import io.index.IndexReader;
+import io.index.IndexWriter;
+import io.lowlevel.FileReader;
+import io.lowlevel.FileWriter;
+
+public class CompressedIndexCodec implements IndexCodec {
+	
+	/**
+	 * Contains the id of the codec.
+	 */
+	private final int id;
+	
+	/**
+	 * Contains the codec, that is used for blocks of document ids and positions.
+	 */
+	private final IntBlockCodec postingsCodec;
+	
+	
+	/**
+	 * Creates a new CompressedIndexCodec instance, that stores numbers using variable byte encoding 
+	 * and blocks of document ids and positions using the given codec.
+	 * @param id
+	 * @param postingsCodec
+	 */
+	public CompressedIndexCodec(int id, IntBlockCodec postingsCodec) {
+		this.id = id;
+		this.postingsCodec = postingsCodec;
+	}
+	
+
+	@Override
+	public int getId() {
+		return this.id;
+	}
+
+	@Override
+	public boolean isCompressed() {
+		return true;
+	}
+
+	@Override
+	public IntBlockCodec getPostingsCodec() {
+		return this.postingsCodec;
+	}
+
+	@Override
+	public IndexReader createReader(FileReader fileReader, IndexHeader header) {
+		return new CompressedIndexReader(fileReader, header);
+	}
+
+	@Override
+	public IndexWriter createWriter(FileWriter fileWriter) {
+		return new CompressedIndexWriter(fileWriter);
+	}
+	
+	
+	@Override
+	public String toString() {
+		return "compressed/" + this.postingsCodec.getClass().getSimpleName();
+	}
+}
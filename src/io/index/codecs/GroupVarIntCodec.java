@@ -0,0 +1,82 @@
+package io.index.codecs;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+
+public class GroupVarIntCodec extends IntBlockCodec {
+	
+	/**
+	 * Contains the number of values, whose byte lengths are stored in a single selector byte.
+	 */
+	private static final int GROUP_SIZE = 4;
+	
+
+	@Override
+	protected void encode(int[] values, int length, ByteArrayOutputStream output) {
+		for(int groupStart = 0; groupStart < length; groupStart += GROUP_SIZE) {
+			int groupEnd = Math.min(groupStart + GROUP_SIZE, length);
+			
+			// Write selector containing the number of bytes minus one of each value
+			int selector = 0;
+			for(int i = groupStart; i < groupEnd; i++) {
+				selector |= (getBytesCount(values[i]) - 1) << (2 * (i - groupStart));
+			}
+			output.write(selector);
+			
+			// Write values in little endian order
+			for(int i = groupStart; i < groupEnd; i++) {
+				int value = values[i];
+				for(int j = getBytesCount(value); j > 0; j--) {
+					output.write(value & 0xFF);
+					value >>>= 8;
+				}
+			}
+		}
+	}
+
+	@Override
+	protected void decode(byte[] bytes, int[] values, int length) throws IOException {
+		int position = 0;
+		for(int groupStart = 0; groupStart < length; groupStart += GROUP_SIZE) {
+			int groupEnd = Math.min(groupStart + GROUP_SIZE, length);
+			if(position >= bytes.length) {
+				throw new EOFException();
+			}
+			
+			int selector = bytes[position++] & 0xFF;
+			for(int i = groupStart; i < groupEnd; i++) {
+				int bytesCount = ((selector >>> (2 * (i - groupStart))) & 0x3) + 1;
+				if(position + bytesCount > bytes.length) {
+					throw new EOFException();
+				}
+				
+				int value = 0;
+				for(int j = 0; j < bytesCount; j++) {
+					value |= (bytes[position++] & 0xFF) << (8 * j);
+				}
+				values[i] = value;
+			}
+		}
+	}
+	
+	
+	/**
+	 * Gets the number of bytes needed to store the given value.
+	 * @param value
+	 * @return
+	 */
+	private static int getBytesCount(int value) {
+		if((value & 0xFFFFFF00) == 0) {
+			return 1;
+		}
+		if((value & 0xFFFF0000) == 0) {
+			return 2;
+		}
+		if((value & 0xFF000000) == 0) {
+			return 3;
+		}
+		
+		return 4;
+	}
+}
@@ -0,0 +1,43 @@
+package io.index.codecs;
+
+import io.index.IndexHeader;
+import io.index.IndexReader;
+import io.index.IndexWriter;
+import io.lowlevel.FileReader;
+import io.lowlevel.FileWriter;
+
+public interface IndexCodec {
+	
+	/**
+	 * Gets the id of the codec, which is stored in the header of index files. Ids have to be unique among all registered codecs.
+	 * @return
+	 */
+	public int getId();
+	
+	/**
+	 * Determines, whether index files are stored compressed using this codec.
+	 * @return
+	 */
+	public boolean isCompressed();
+	
+	/**
+	 * Gets the codec, that is used for blocks of document ids and positions. Returns null, if the codec stores them uncompressed.
+	 * @return
+	 */
+	public IntBlockCodec getPostingsCodec();
+	
+	/**
+	 * Creates a reader, that decodes data of the given file reader.
+	 * @param fileReader
+	 * @param header Header of the file, or null, if the file has no header
+	 * @return
+	 */
+	public IndexReader createReader(FileReader fileReader, IndexHeader header);
+	
+	/**
+	 * Creates a writer, that encodes data using the given file writer.
+	 * @param fileWriter
+	 * @return
+	 */
+	public IndexWriter createWriter(FileWriter fileWriter);
+}
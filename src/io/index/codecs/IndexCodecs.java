@@ -0,0 +1,66 @@
+package io.index.codecs;
+
+import java.io.IOException;
+import java.util.ServiceLoader;
+
+import gnu.trove.map.TIntObjectMap;
+import gnu.trove.map.hash.TIntObjectHashMap;
+
+public class IndexCodecs {
+	
+	/**
+	 * Contain the built-in codecs.
+	 */
+	public static final IndexCodec UNCOMPRESSED = new UncompressedIndexCodec();
+	public static final IndexCodec VARIABLE_BYTE = new CompressedIndexCodec(1, IntBlockCodecs.VARIABLE_BYTE);
+	public static final IndexCodec GROUP_VAR_INT = new CompressedIndexCodec(2, IntBlockCodecs.GROUP_VAR_INT);
+	public static final IndexCodec BIT_PACKING = new CompressedIndexCodec(3, IntBlockCodecs.BIT_PACKING);
+	public static final IndexCodec PFOR_DELTA = new CompressedIndexCodec(4, IntBlockCodecs.PFOR_DELTA);
+	
+	/**
+	 * Contains all registered codecs by their ids.
+	 */
+	private static final TIntObjectMap<IndexCodec> codecs = new TIntObjectHashMap<IndexCodec>();
+	
+	static {
+		register(UNCOMPRESSED);
+		register(VARIABLE_BYTE);
+		register(GROUP_VAR_INT);
+		register(BIT_PACKING);
+		register(PFOR_DELTA);
+		
+		// Register further codecs provided on the class path
+		for(IndexCodec codec: ServiceLoader.load(IndexCodec.class)) {
+			register(codec);
+		}
+	}
+	
+	
+	/**
+	 * Registers the given codec, so that index files encoded by it can be read.
+	 * @param codec
+	 */
+	public static synchronized void register(IndexCodec codec) {
+		IndexCodec registeredCodec = codecs.get(codec.getId());
+		if(registeredCodec != null && registeredCodec != codec) {
+			throw new IllegalArgumentException(String.format("Codec id %d is already used by %s.", codec.getId(), registeredCodec));
+		}
+		
+		codecs.put(codec.getId(), codec);
+	}
+	
+	/**
+	 * Gets the registered codec with the given id.
+	 * @param id
+	 * @return
+	 * @throws IOException
+	 */
+	public static synchronized IndexCodec forId(int id) throws IOException {
+		IndexCodec codec = codecs.get(id);
+		if(codec == null) {
+			throw new IOException(String.format("Unknown index codec %d.", id));
+		}
+		
+		return codec;
+	}
+}
@@ -0,0 +1,100 @@
+package io.index.codecs;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+
+import io.index.IndexReader;
+import io.index.IndexWriter;
+
+public abstract class IntBlockCodec {
+	
+	/**
+	 * Writes the first 'length' values of the given array as a single block. The encoded block is preceded by its length in bytes, 
+	 * so that it can be read at once.
+	 * @param values
+	 * @param length
+	 * @param writer
+	 * @throws IOException
+	 */
+	public void write(int[] values, int length, IndexWriter writer) throws IOException {
+		ByteArrayOutputStream output = new ByteArrayOutputStream(4 * length + 16);
+		this.encode(values, length, output);
+		
+		writer.writeInt(output.size());
+		writer.write(output.toByteArray());
+	}
+	
+	/**
+	 * Reads a block of 'length' values into the given array.
+	 * @param reader
+	 * @param values
+	 * @param length
+	 * @throws IOException
+	 */
+	public void read(IndexReader reader, int[] values, int length) throws IOException {
+		byte[] bytes = new byte[reader.readInt()];
+		if(bytes.length > 0 && reader.read(bytes) < bytes.length) {
+			throw new EOFException();
+		}
+		
+		this.decode(bytes, values, length);
+	}
+	
+	
+	/**
+	 * Encodes the first 'length' values of the given array to the given output.
+	 * @param values
+	 * @param length
+	 * @param output
+	 */
+	protected abstract void encode(int[] values, int length, ByteArrayOutputStream output);
+	
+	/**
+	 * Decodes 'length' values from the given bytes into the given array.
+	 * @param bytes
+	 * @param values
+	 * @param length
+	 * @throws IOException
+	 */
+	protected abstract void decode(byte[] bytes, int[] values, int length) throws IOException;
+	
+	
+	/**
+	 * Writes the given value using variable byte encoding.
+	 * @param value
+	 * @param output
+	 */
+	protected static void writeVariableByte(int value, ByteArrayOutputStream output) {
+		while((value & ~0x7F) != 0) {
+			output.write((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		output.write(value);
+	}
+	
+	/**
+	 * Reads a variable byte encoded value starting at the given position of the given bytes. 
+	 * The value is stored in the first element of the result, the position after the value in the second one.
+	 * @param bytes
+	 * @param position
+	 * @param result
+	 * @throws IOException
+	 */
+	protected static void readVariableByte(byte[] bytes, int position, int[] result) throws IOException {
+		int value = 0;
+		for(int shift = 0; ; shift += 7) {
+			if(position >= bytes.length) {
+				throw new EOFException();
+			}
+			byte b = bytes[position++];
+			value |= (b & 0x7F) << shift;
+			if((b & 0x80) == 0) {
+				break;
+			}
+		}
+		
+		result[0] = value;
+		result[1] = position;
+	}
+}
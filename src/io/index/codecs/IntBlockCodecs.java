@@ -0,0 +1,12 @@
+package io.index.codecs;
+
+public class IntBlockCodecs {
+	
+	/**
+	 * Contain the available codecs.
+	 */
+	public static final IntBlockCodec VARIABLE_BYTE = new VariableByteCodec();
+	public static final IntBlockCodec GROUP_VAR_INT = new GroupVarIntCodec();
+	public static final IntBlockCodec BIT_PACKING = new BitPackingCodec();
+	public static final IntBlockCodec PFOR_DELTA = new PForDeltaCodec();
+}
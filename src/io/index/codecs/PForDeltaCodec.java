@@ -0,0 +1,94 @@
+package io.index.codecs;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+
+public class PForDeltaCodec extends IntBlockCodec {
+	
+	/**
+	 * Contains the minimum ratio of values, that have to fit into the chosen bit width. Larger values are stored as exceptions.
+	 */
+	private static final double MIN_REGULAR_RATIO = 0.9;
+	
+
+	@Override
+	protected void encode(int[] values, int length, ByteArrayOutputStream output) {
+		int bitWidth = this.chooseBitWidth(values, length);
+		
+		// Count exceptions, that do not fit into the bit width
+		int exceptionsCount = 0;
+		for(int i = 0; i < length; i++) {
+			if(BitPacker.getBitWidth(values[i]) > bitWidth) {
+				exceptionsCount++;
+			}
+		}
+		
+		// Write lowest bits of all values
+		output.write(bitWidth);
+		writeVariableByte(exceptionsCount, output);
+		BitPacker.pack(values, length, bitWidth, output);
+		
+		// Write remaining high bits of exceptions, their indexes are delta encoded
+		int lastIndex = 0;
+		for(int i = 0; i < length; i++) {
+			if(BitPacker.getBitWidth(values[i]) > bitWidth) {
+				writeVariableByte(i - lastIndex, output);
+				writeVariableByte(values[i] >>> bitWidth, output);
+				lastIndex = i;
+			}
+		}
+	}
+
+	@Override
+	protected void decode(byte[] bytes, int[] values, int length) throws IOException {
+		if(length == 0) {
+			return;
+		}
+		if(bytes.length == 0) {
+			throw new EOFException();
+		}
+		
+		// Read lowest bits of all values
+		int bitWidth = bytes[0];
+		int[] result = new int[2];
+		readVariableByte(bytes, 1, result);
+		int exceptionsCount = result[0];
+		result[1] = BitPacker.unpack(bytes, result[1], values, length, bitWidth);
+		
+		// Patch exceptions
+		int index = 0;
+		for(int i = 0; i < exceptionsCount; i++) {
+			readVariableByte(bytes, result[1], result);
+			index += result[0];
+			readVariableByte(bytes, result[1], result);
+			values[index] |= result[0] << bitWidth;
+		}
+	}
+	
+	
+	/**
+	 * Chooses the smallest bit width, that fits the required ratio of the given values.
+	 * @param values
+	 * @param length
+	 * @return
+	 */
+	private int chooseBitWidth(int[] values, int length) {
+		// Count values per bit width
+		int[] counts = new int[Integer.SIZE + 1];
+		for(int i = 0; i < length; i++) {
+			counts[BitPacker.getBitWidth(values[i])]++;
+		}
+		
+		int requiredCount = (int)Math.ceil(MIN_REGULAR_RATIO * length);
+		int count = 0;
+		for(int bitWidth = 0; bitWidth <= Integer.SIZE; bitWidth++) {
+			count += counts[bitWidth];
+			if(count >= requiredCount) {
+				return bitWidth;
+			}
+		}
+		
+		return Integer.SIZE;
+	}
+}
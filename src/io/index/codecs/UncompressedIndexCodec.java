@@ -0,0 +1,49 @@
+package io.index.codecs;
+
+import io.index.IndexHeader;
+import io.index.IndexReader;
+import io.index.IndexWriter;
+import io.index.UncompressedIndexReader;
+import io.index.UncompressedIndexWriter;
+import io.lowlevel.FileReader;
+import io.lowlevel.FileWriter;
+
+public class UncompressedIndexCodec implements IndexCodec {
+	
+	/**
+	 * Contains the id of the codec.
+	 */
+	public static final int ID = 0;
+	
+
+	@Override
+	public int getId() {
+		return ID;
+	}
+
+	@Override
+	public boolean isCompressed() {
+		return false;
+	}
+
+	@Override
+	public IntBlockCodec getPostingsCodec() {
+		return null;
+	}
+
+	@Override
+	public IndexReader createReader(FileReader fileReader, IndexHeader header) {
+		return new UncompressedIndexReader(fileReader, header);
+	}
+
+	@Override
+	public IndexWriter createWriter(FileWriter fileWriter) {
+		return new UncompressedIndexWriter(fileWriter);
+	}
+	
+	
+	@Override
+	public String toString() {
+		return "uncompressed";
+	}
+}
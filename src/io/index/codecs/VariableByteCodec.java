@@ -0,0 +1,23 @@
+package io.index.codecs;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+public class VariableByteCodec extends IntBlockCodec {
+
+	@Override
+	protected void encode(int[] values, int length, ByteArrayOutputStream output) {
+		for(int i = 0; i < length; i++) {
+			writeVariableByte(values[i], output);
+		}
+	}
+
+	@Override
+	protected void decode(byte[] bytes, int[] values, int length) throws IOException {
+		int[] result = new int[2];
+		for(int i = 0; i < length; i++) {
+			readVariableByte(bytes, result[1], result);
+			values[i] = result[0];
+		}
+	}
+}
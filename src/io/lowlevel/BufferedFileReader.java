@@ -116,6 +116,41 @@ public class BufferedFileReader implements FileReader {
 		return bytes[0];
 	}
 
+	@Override
+	public FileReader readSlice(int length) throws IOException {
+		// If buffer was not initialized yet, fill buffer
+		if(this.buffer.capacity() == 0) {
+			this.fillBuffer();
+		}
+		
+		if(length <= this.buffer.remaining()) {
+			// Return a view on the buffer, since it is never modified once filled
+			ByteBuffer slice = this.buffer.slice();
+			slice.limit(length);
+			this.buffer.position(this.buffer.position() + length);
+			
+			// Check, if buffer has been read completely and needs to be refilled
+			if(this.buffer.remaining() == 0) {
+				this.fillBuffer();
+			}
+			
+			return new ByteBufferReader(slice);
+		}
+		
+		// Slice exceeds the buffer, so it has to be read from file
+		byte[] bytes = new byte[length];
+		if(this.read(bytes) < length) {
+			throw new EOFException();
+		}
+		
+		return new ByteBufferReader(bytes);
+	}
+	
+	@Override
+	public FileReader duplicate() throws IOException {
+		return new BufferedFileReader(this.fileReader.duplicate(), this.bufferLength);
+	}
+	
 	private void fillBuffer() throws IOException {
 		byte[] fileBytes = new byte[this.bufferLength];
 		int length = this.fileReader.read(fileBytes);
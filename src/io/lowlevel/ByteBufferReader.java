@@ -1,10 +1,11 @@
 package io.lowlevel;
 
+import java.io.EOFException;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 
 public class ByteBufferReader implements FileReader {
-	
+
 	/**
 	 * Contains the memory byte buffer.
 	 */
@@ -16,7 +17,15 @@ public class ByteBufferReader implements FileReader {
 	 * @param buffer
 	 */
 	public ByteBufferReader(byte[] buffer) {
-		this.buffer = ByteBuffer.wrap(buffer);
+		this(ByteBuffer.wrap(buffer));
+	}
+	
+	/**
+	 * Creates a new ByteBufferReader instance for the given byte buffer. Position 0 of the reader corresponds to the current position of the buffer.
+	 * @param buffer
+	 */
+	public ByteBufferReader(ByteBuffer buffer) {
+		this.buffer = buffer.slice();
 	}
 	
 
@@ -27,7 +36,7 @@ public class ByteBufferReader implements FileReader {
 
 	@Override
 	public void seek(long pos) throws IOException {
-		this.buffer.position((int)pos);
+		this.buffer.position((int)Math.min(pos, this.buffer.limit()));
 	}
 
 	@Override
@@ -42,10 +51,11 @@ public class ByteBufferReader implements FileReader {
 
 	@Override
 	public int read(byte[] bytes) throws IOException {
-		int length = bytes.length;
-		if(bytes.length < this.buffer.remaining()) {
-			length = this.buffer.remaining();
+		if(!this.buffer.hasRemaining()) {
+			return -1;
 		}
+		
+		int length = Math.min(bytes.length, this.buffer.remaining());
 		this.buffer.get(bytes, 0, length);
 		
 		return length;
@@ -53,11 +63,39 @@ public class ByteBufferReader implements FileReader {
 
 	@Override
 	public byte readByte() throws IOException {
+		if(!this.buffer.hasRemaining()) {
+			throw new EOFException();
+		}
+		
 		return this.buffer.get();
 	}
 
 	@Override
 	public byte[] readToEnd() throws IOException {
-		return this.buffer.array();
+		byte[] bytes = new byte[this.buffer.remaining()];
+		this.buffer.get(bytes);
+		
+		return bytes;
+	}
+	
+	@Override
+	public FileReader readSlice(int length) throws IOException {
+		if(length > this.buffer.remaining()) {
+			throw new EOFException();
+		}
+		
+		ByteBuffer slice = this.buffer.slice();
+		slice.limit(length);
+		this.buffer.position(this.buffer.position() + length);
+		
+		return new ByteBufferReader(slice);
+	}
+	
+	@Override
+	public FileReader duplicate() throws IOException {
+		ByteBuffer buffer = this.buffer.duplicate();
+		buffer.position(0);
+		
+		return new ByteBufferReader(buffer);
 	}
 }
@@ -0,0 +1,125 @@
+package io.lowlevel;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+public class ChannelFileReader implements FileReader {
+
+	/**
+	 * Contains the channel of the file, which might be shared with other readers.
+	 */
+	private final FileChannel channel;
+
+	/**
+	 * Contains the current position of this reader.
+	 * Since all reads are positional, it is independent of the position of the channel and of other readers.
+	 */
+	private long position = 0;
+
+
+	/**
+	 * Creates a new ChannelFileReader instance for the given file channel.
+	 * @param channel
+	 */
+	public ChannelFileReader(FileChannel channel) {
+		this.channel = channel;
+	}
+
+
+	/**
+	 * Reads bytes at the current position into the given buffer until it is full or the end of file has been reached.
+	 * Returns the number of bytes read.
+	 * @param buffer
+	 * @return
+	 * @throws IOException
+	 */
+	private int readFully(ByteBuffer buffer) throws IOException {
+		int offset = 0;
+		while(buffer.hasRemaining()) {
+			int length = this.channel.read(buffer, this.position + offset);
+			if(length < 0) {
+				break;
+			}
+			offset += length;
+		}
+		this.position += offset;
+
+		return offset;
+	}
+
+
+	@Override
+	public int read(byte[] bytes) throws IOException {
+		int length = this.readFully(ByteBuffer.wrap(bytes));
+		if(length == 0 && bytes.length > 0) {
+			return -1;
+		}
+
+		return length;
+	}
+
+	@Override
+	public byte readByte() throws IOException {
+		byte[] bytes = new byte[1];
+		if(this.read(bytes) < 1) {
+			throw new EOFException();
+		}
+
+		return bytes[0];
+	}
+
+	@Override
+	public byte[] readToEnd() throws IOException {
+		long length = this.length() - this.position;
+		if(length > Integer.MAX_VALUE) {
+			throw new IOException("Number of remaining bytes is larger than Integer.MAX_VALUE.");
+		}
+		byte[] bytes = new byte[(int)Math.max(0, length)];
+		this.readFully(ByteBuffer.wrap(bytes));
+
+		return bytes;
+	}
+
+	@Override
+	public FileReader readSlice(int length) throws IOException {
+		byte[] bytes = new byte[length];
+		if(this.readFully(ByteBuffer.wrap(bytes)) < length) {
+			throw new EOFException();
+		}
+
+		return new ByteBufferReader(bytes);
+	}
+
+	@Override
+	public FileReader duplicate() throws IOException {
+		return new ChannelFileReader(this.channel);
+	}
+
+	@Override
+	public void seek(long pos) throws IOException {
+		if(pos < 0) {
+			throw new IOException("pos must be 0 or greater.");
+		}
+
+		this.position = pos;
+	}
+
+	@Override
+	public long getFilePointer() throws IOException {
+		return this.position;
+	}
+
+	@Override
+	public long length() throws IOException {
+		return this.channel.size();
+	}
+
+	/**
+	 * Does not close the channel, since it is owned by the reader, that created this one.
+	 */
+	@Override
+	public void close() throws IOException {
+	}
+}
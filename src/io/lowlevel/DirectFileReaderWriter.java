@@ -44,6 +44,19 @@ public class DirectFileReaderWriter implements FileReader, FileWriter {
 		
 		return buffer;
 	}
+	
+	@Override
+	public FileReader readSlice(int length) throws IOException {
+		byte[] buffer = new byte[length];
+		this.file.readFully(buffer);
+		
+		return new ByteBufferReader(buffer);
+	}
+
+	@Override
+	public FileReader duplicate() throws IOException {
+		return new ChannelFileReader(this.file.getChannel());
+	}
 
 	@Override
 	public void write(byte[] bytes) throws IOException {
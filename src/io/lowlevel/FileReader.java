@@ -22,4 +22,21 @@ public interface FileReader extends FileOperator {
 	 * Reads complete file from current position to end.
 	 */
 	public byte[] readToEnd() throws IOException;
+	
+	/**
+	 * Returns a reader for the next bytes of this file limited to the given length and moves the file pointer behind them.
+	 * If possible, the returned reader is a view on the data of this reader instead of a copy.
+	 * @param length
+	 * @return
+	 * @throws IOException
+	 */
+	public FileReader readSlice(int length) throws IOException;
+	
+	/**
+	 * Creates a reader of the same file with its own file pointer, which starts at the beginning of the file.
+	 * The returned reader can be used by another thread concurrently to this one. Closing it does not close the file.
+	 * @return
+	 * @throws IOException
+	 */
+	public FileReader duplicate() throws IOException;
 }
@@ -4,50 +4,132 @@ import java.io.EOFException;
 import java.io.File;
 import java.io.IOException;
 import java.io.RandomAccessFile;
-import java.nio.MappedByteBuffer;
+import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
 
 public class MemoryMappedFileReaderWriter implements FileReader, FileWriter {
 
 	/**
-	 * Contains the actual file.
+	 * Contains the number of bits of a file position, that address a byte within a single chunk.
+	 */
+	private static final int CHUNK_BITS = 30;
+	
+	/**
+	 * Contains the maximum number of bytes, that are mapped by a single buffer.
+	 */
+	private static final long CHUNK_SIZE = 1L << CHUNK_BITS;
+	
+	/**
+	 * Contains the mask to extract the position within a chunk from a file position.
+	 */
+	private static final long CHUNK_MASK = CHUNK_SIZE - 1;
+	
+	/**
+	 * Contains the actual file. Duplicates do not own the file, so it is null for them.
 	 */
 	private RandomAccessFile file;
 	
 	/**
-	 * Contains the memory-mapped byte buffer of the file.
+	 * Contains the memory-mapped byte buffers of the file. Since a single buffer can only address 2 GB, the file is split into multiple chunks.
+	 */
+	private ByteBuffer[] chunks;
+	
+	/**
+	 * Contains the index of the chunk containing the current file position.
+	 */
+	private int chunkIndex = 0;
+	
+	/**
+	 * Contains the chunk containing the current file position.
 	 */
-	private MappedByteBuffer buffer;
+	private ByteBuffer buffer;
+	
+	/**
+	 * Contains the length of the mapped file.
+	 */
+	private long length;
 	
 
 	/**
 	 * Creates a new MemoryMappedFileReaderWriter instance for the given file.
 	 * @param file
 	 * @param mode
-	 * @throws IOException 
+	 * @throws IOException
 	 */
 	public MemoryMappedFileReaderWriter(File file, String mode) throws IOException {
 		this.file = new RandomAccessFile(file, mode);
 		
 		FileChannel fileChannel = this.file.getChannel();
-		FileChannel.MapMode mapMode = mode == "rw" ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY;
-		this.buffer = fileChannel.map(mapMode, 0, fileChannel.size());
+		FileChannel.MapMode mapMode = "rw".equals(mode) ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY;
+		this.length = fileChannel.size();
+		
+		// Map file chunk by chunk
+		int chunksCount = (int)Math.max(1, (this.length + CHUNK_SIZE - 1) / CHUNK_SIZE);
+		this.chunks = new ByteBuffer[chunksCount];
+		for(int i = 0; i < chunksCount; i++) {
+			long offset = i * CHUNK_SIZE;
+			long size = Math.min(CHUNK_SIZE, this.length - offset);
+			this.chunks[i] = fileChannel.map(mapMode, offset, size);
+		}
+		this.buffer = this.chunks[0];
+	}
+	
+	/**
+	 * Creates a new MemoryMappedFileReaderWriter instance for the given chunks of an already mapped file.
+	 * @param chunks
+	 * @param length
+	 */
+	private MemoryMappedFileReaderWriter(ByteBuffer[] chunks, long length) {
+		this.file = null;
+		this.chunks = chunks;
+		this.length = length;
+		this.buffer = this.chunks[0];
+	}
+	
+	
+	/**
+	 * Moves to the beginning of the next chunk. Returns false, if the current chunk is the last one.
+	 * @return
+	 */
+	private boolean nextChunk() {
+		if(this.chunkIndex + 1 >= this.chunks.length) {
+			return false;
+		}
+		
+		this.chunkIndex++;
+		this.buffer = this.chunks[this.chunkIndex];
+		this.buffer.position(0);
+		
+		return true;
 	}
 	
 	
 	@Override
 	public void writeByte(byte value) throws IOException {
+		if(!this.buffer.hasRemaining() && !this.nextChunk()) {
+			throw new EOFException();
+		}
+		
 		this.buffer.put(value);
 	}
 	
 	@Override
 	public void write(byte[] bytes) throws IOException {
-		this.buffer.put(bytes);
+		int offset = 0;
+		while(offset < bytes.length) {
+			if(!this.buffer.hasRemaining() && !this.nextChunk()) {
+				throw new EOFException();
+			}
+			
+			int length = Math.min(bytes.length - offset, this.buffer.remaining());
+			this.buffer.put(bytes, offset, length);
+			offset += length;
+		}
 	}
 	
 	@Override
 	public byte readByte() throws IOException {
-		if(!this.buffer.hasRemaining()) {
+		if(!this.buffer.hasRemaining() && !this.nextChunk()) {
 			throw new EOFException();
 		}
 		
@@ -56,38 +138,103 @@ public class MemoryMappedFileReaderWriter implements FileReader, FileWriter {
 	
 	@Override
 	public int read(byte[] bytes) throws IOException {
-		if(!this.buffer.hasRemaining()) {
-			return -1;
+		int offset = 0;
+		while(offset < bytes.length) {
+			if(!this.buffer.hasRemaining() && !this.nextChunk()) {
+				break;
+			}
+			
+			int length = Math.min(bytes.length - offset, this.buffer.remaining());
+			this.buffer.get(bytes, offset, length);
+			offset += length;
 		}
 		
-		int length = Math.min(bytes.length, this.buffer.remaining());
-		this.buffer.get(bytes, 0, length);
+		if(offset == 0 && bytes.length > 0) {
+			return -1;
+		}
 		
-		return length;
+		return offset;
 	}
 
 	@Override
 	public byte[] readToEnd() throws IOException {
-		return this.buffer.array();
+		long length = this.length() - this.getFilePointer();
+		if(length > Integer.MAX_VALUE) {
+			throw new IOException("Number of remaining bytes is larger than Integer.MAX_VALUE.");
+		}
+		byte[] bytes = new byte[(int)length];
+		this.read(bytes);
+		
+		return bytes;
+	}
+	
+	@Override
+	public FileReader readSlice(int length) throws IOException {
+		if(length <= this.buffer.remaining()) {
+			// Return a view on the current chunk
+			ByteBuffer slice = this.buffer.slice();
+			slice.limit(length);
+			this.buffer.position(this.buffer.position() + length);
+			
+			return new ByteBufferReader(slice);
+		}
+		
+		// Slice spans multiple chunks, so it has to be copied
+		byte[] bytes = new byte[length];
+		if(this.read(bytes) < length) {
+			throw new EOFException();
+		}
+		
+		return new ByteBufferReader(bytes);
+	}
+	
+	@Override
+	public FileReader duplicate() throws IOException {
+		// Buffer duplicates share the mapped memory, but have their own positions
+		ByteBuffer[] chunks = new ByteBuffer[this.chunks.length];
+		for(int i = 0; i < chunks.length; i++) {
+			chunks[i] = this.chunks[i].duplicate();
+			chunks[i].position(0);
+		}
+		
+		return new MemoryMappedFileReaderWriter(chunks, this.length);
 	}
 	
 	@Override
 	public long getFilePointer() throws IOException {
-		return this.buffer.position();
+		return this.chunkIndex * CHUNK_SIZE + this.buffer.position();
 	}
 
 	@Override
 	public void seek(long pos) throws IOException {
-		this.buffer.position((int)pos);
+		if(pos < 0) {
+			throw new IOException("pos must be 0 or greater.");
+		}
+		
+		if(pos >= this.length) {
+			// Move to end of file
+			this.chunkIndex = this.chunks.length - 1;
+			this.buffer = this.chunks[this.chunkIndex];
+			this.buffer.position(this.buffer.limit());
+		}
+		else {
+			this.chunkIndex = (int)(pos >>> CHUNK_BITS);
+			this.buffer = this.chunks[this.chunkIndex];
+			this.buffer.position((int)(pos & CHUNK_MASK));
+		}
 	}
 	
 	@Override
 	public long length() throws IOException {
-		return this.buffer.limit();
+		return this.length;
 	}
 
 	@Override
 	public void close() throws IOException {
-		this.file.close();
+		if(this.file != null) {
+			this.file.close();
+		}
+		this.chunks = null;
+		this.buffer = null;
 	}
 }
@@ -0,0 +1,299 @@
+package postings;
+
+import java.io.IOException;
+
+import io.index.IndexReader;
+import io.index.codecs.IntBlockCodec;
+import postings.positions.LazyPositionMap;
+import postings.positions.PositionMap;
+
+public class BlockPostingsIterator implements PostingsIterator {
+
+	/**
+	 * Contain the file readers for frequency and positional index. The frequency index reader is limited to the postings of a single token.
+	 */
+	private final IndexReader frequencyIndexReader;
+	private final IndexReader positionalIndexReader;
+	
+	/**
+	 * Contains the codec, that is used for blocks of document ids and positions in compressed indexes.
+	 */
+	private final IntBlockCodec codec;
+	
+	/**
+	 * Determines, whether positions should be loaded eagerly, when they are requested.
+	 */
+	private final boolean loadPositions;
+	
+	/**
+	 * Contains the number of occurrences of the token in the whole collection.
+	 */
+	private final int totalOccurrencesCount;
+	
+	/**
+	 * Contains the number of documents containing the token.
+	 */
+	private final int documentFrequency;
+	
+	/**
+	 * Contains the maximum number of occurrences of the token in a single document.
+	 */
+	private final int maxFrequency;
+	
+	/**
+	 * Contains per content type the maximum ratio of token occurrences to document length among all postings.
+	 */
+	private final float[] maxOccurrenceRatios;
+	
+	/**
+	 * Contain the range of the positions of the token in the positional index. Offsets of single position maps are relative to its start.
+	 */
+	private final long positionsOffset;
+	private final long positionsLength;
+	
+	/**
+	 * Contains the id of the last document of the current block.
+	 */
+	private int blockLastDocumentId = 0;
+	
+	/**
+	 * Contains the file pointer, at which the current block ends.
+	 */
+	private long blockEndOffset;
+	
+	/**
+	 * Contains the number of documents, that are stored in blocks following the current one.
+	 */
+	private int remainingDocumentsCount;
+	
+	/**
+	 * Contains the ids of the documents of the current block, which are decoded at once, when the first document of the block is requested.
+	 */
+	private final int[] blockDocumentIds = new int[TokenPostings.BLOCK_SIZE];
+	private int blockDocumentsCount = 0;
+	private int blockDocumentIndex = 0;
+	private boolean areBlockDocumentIdsDecoded = true;
+	
+	/**
+	 * Contains the id of the current document.
+	 */
+	private int documentId = -1;
+	
+	/**
+	 * Contains the positions of the current document.
+	 */
+	private PositionMap positions = null;
+	
+	/**
+	 * Determines, whether the positions of the current document have already been loaded.
+	 */
+	private boolean arePositionsLoaded = false;
+	
+	
+	/**
+	 * Creates a new BlockPostingsIterator instance. The file pointer of the frequency index reader has to be at the beginning of the postings.
+	 * @param frequencyIndexReader
+	 * @param positionalIndexReader
+	 * @param loadPositions
+	 * @param codec
+	 * @throws IOException
+	 */
+	public BlockPostingsIterator(IndexReader frequencyIndexReader, IndexReader positionalIndexReader, boolean loadPositions, IntBlockCodec codec) throws IOException {
+		this.frequencyIndexReader = frequencyIndexReader;
+		this.positionalIndexReader = positionalIndexReader;
+		this.loadPositions = loadPositions;
+		this.codec = codec;
+		
+		// Read header
+		this.totalOccurrencesCount = frequencyIndexReader.readInt();
+		this.documentFrequency = frequencyIndexReader.readInt();
+		this.maxFrequency = frequencyIndexReader.readInt();
+		this.maxOccurrenceRatios = new float[ContentType.orderedValues().length];
+		for(ContentType contentType: ContentType.orderedValues()) {
+			this.maxOccurrenceRatios[contentType.ordinal()] = frequencyIndexReader.readFloat();
+		}
+		this.positionsOffset = frequencyIndexReader.readLong();
+		this.positionsLength = frequencyIndexReader.readLong();
+		this.blockEndOffset = frequencyIndexReader.getFilePointer();
+		this.remainingDocumentsCount = this.documentFrequency;
+	}
+	
+	
+	@Override
+	public int getTotalOccurrencesCount() {
+		return this.totalOccurrencesCount;
+	}
+	
+	@Override
+	public int getDocumentFrequency() {
+		return this.documentFrequency;
+	}
+	
+	@Override
+	public float getMaxOccurrenceRatio(ContentType contentType) {
+		return this.maxOccurrenceRatios[contentType.ordinal()];
+	}
+	
+	/**
+	 * Gets the statistics of the token, which are stored in the header of its postings.
+	 * @return
+	 */
+	public TermStatistics getStatistics() {
+		return new TermStatistics(this.documentFrequency, this.totalOccurrencesCount, this.maxFrequency, this.maxOccurrenceRatios.clone());
+	}
+	
+	/**
+	 * Gets the offset of the positions of the token in the positional index.
+	 * @return
+	 */
+	public long getPositionsOffset() {
+		return this.positionsOffset;
+	}
+	
+	/**
+	 * Gets the length of the positions of the token in the positional index.
+	 * @return
+	 */
+	public long getPositionsLength() {
+		return this.positionsLength;
+	}
+	
+	
+	@Override
+	public int documentId() {
+		return this.documentId;
+	}
+	
+	@Override
+	public int frequency() {
+		return this.positions.size();
+	}
+	
+	@Override
+	public int frequency(ContentType contentType) {
+		return this.positions.size(contentType);
+	}
+	
+	@Override
+	public PositionMap positions() throws IOException {
+		if(this.loadPositions && !this.arePositionsLoaded && this.positions != null) {
+			this.positions = ((LazyPositionMap)this.positions).toEagerPositionMap();
+			this.arePositionsLoaded = true;
+		}
+		
+		return this.positions;
+	}
+	
+	
+	@Override
+	public int nextDocument() throws IOException {
+		if(this.documentId == NO_MORE_DOCUMENTS) {
+			return NO_MORE_DOCUMENTS;
+		}
+		
+		// Move to next block, if current one is exhausted
+		if(this.blockDocumentIndex >= this.blockDocumentsCount && !this.nextBlock()) {
+			return this.exhaust();
+		}
+		if(!this.areBlockDocumentIdsDecoded) {
+			this.decodeBlockDocumentIds();
+		}
+		
+		// Get document id
+		this.documentId = this.blockDocumentIds[this.blockDocumentIndex++];
+		
+		// Read position information, positions themselves are only loaded on demand
+		this.positions = LazyPositionMap.load(this.frequencyIndexReader, this.positionalIndexReader, this.positionsOffset, this.codec);
+		this.arePositionsLoaded = false;
+		
+		return this.documentId;
+	}
+	
+	@Override
+	public int advance(int targetDocumentId) throws IOException {
+		if(this.documentId >= targetDocumentId) {
+			return this.documentId;
+		}
+		
+		// Skip blocks, whose documents are all smaller than the target
+		if(this.blockLastDocumentId < targetDocumentId) {
+			do {
+				this.frequencyIndexReader.seek(this.blockEndOffset);
+				if(!this.nextBlock()) {
+					return this.exhaust();
+				}
+			} while(this.blockLastDocumentId < targetDocumentId);
+		}
+		
+		// Scan block containing the target
+		while(this.nextDocument() < targetDocumentId);
+		
+		return this.documentId;
+	}
+	
+	/**
+	 * Reads the header of the next block. Document ids of the block are not decoded yet, so that skipped blocks are never decoded. 
+	 * Returns false, if there are no more blocks.
+	 * @return
+	 * @throws IOException
+	 */
+	private boolean nextBlock() throws IOException {
+		if(this.remainingDocumentsCount <= 0 || this.frequencyIndexReader.getFilePointer() >= this.frequencyIndexReader.length()) {
+			return false;
+		}
+		
+		// Read id of last document in block, which is the skip pointer
+		int previousBlockLastDocumentId = this.blockLastDocumentId;
+		int blockLastDocumentId = this.frequencyIndexReader.readInt();
+		if(this.frequencyIndexReader.isCompressed()) {
+			blockLastDocumentId += previousBlockLastDocumentId;
+		}
+		this.blockLastDocumentId = blockLastDocumentId;
+		
+		// Read length of block
+		int blockLength = this.frequencyIndexReader.getSkippingAreaLength();
+		this.blockEndOffset = this.frequencyIndexReader.getFilePointer() + blockLength;
+		
+		// Store id of the last document of the previous block, which is the base of delta encoded ids
+		this.blockDocumentIds[0] = previousBlockLastDocumentId;
+		this.blockDocumentsCount = Math.min(TokenPostings.BLOCK_SIZE, this.remainingDocumentsCount);
+		this.blockDocumentIndex = 0;
+		this.areBlockDocumentIdsDecoded = false;
+		this.remainingDocumentsCount -= this.blockDocumentsCount;
+		
+		return true;
+	}
+	
+	/**
+	 * Decodes the ids of all documents of the current block, which are stored in front of their position information. 
+	 * In compressed indexes, they are stored as deltas using the codec of the index.
+	 * @throws IOException
+	 */
+	private void decodeBlockDocumentIds() throws IOException {
+		if(this.frequencyIndexReader.isCompressed()) {
+			int lastDocumentId = this.blockDocumentIds[0];
+			this.codec.read(this.frequencyIndexReader, this.blockDocumentIds, this.blockDocumentsCount);
+			for(int i = 0; i < this.blockDocumentsCount; i++) {
+				lastDocumentId += this.blockDocumentIds[i];
+				this.blockDocumentIds[i] = lastDocumentId;
+			}
+		}
+		else {
+			for(int i = 0; i < this.blockDocumentsCount; i++) {
+				this.blockDocumentIds[i] = this.frequencyIndexReader.readInt();
+			}
+		}
+		this.areBlockDocumentIdsDecoded = true;
+	}
+	
+	/**
+	 * Marks the iterator as exhausted.
+	 * @return
+	 */
+	private int exhaust() {
+		this.documentId = NO_MORE_DOCUMENTS;
+		this.positions = null;
+		
+		return NO_MORE_DOCUMENTS;
+	}
+}
@@ -0,0 +1,175 @@
+package postings;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import postings.positions.PositionMap;
+
+public class MultiPostingsIterator implements PostingsIterator {
+
+	/**
+	 * Contains the iterators over the postings of the same token in different index segments.
+	 */
+	private final PostingsIterator[] iterators;
+
+	/**
+	 * Contains the iterator, that is positioned at the current document.
+	 */
+	private PostingsIterator currentIterator = null;
+
+	/**
+	 * Contains the id of the current document.
+	 */
+	private int documentId = -1;
+
+
+	/**
+	 * Creates a new MultiPostingsIterator instance. Documents, that are contained in multiple iterators, are returned once
+	 * with the postings of the first of these iterators.
+	 * @param iterators
+	 */
+	public MultiPostingsIterator(List<PostingsIterator> iterators) {
+		this.iterators = iterators.toArray(new PostingsIterator[iterators.size()]);
+	}
+	
+	
+	/**
+	 * Merges the given iterators per token of multiple index segments into a single iterator per token. 
+	 * Iterators of tokens, that only occur in one segment, are returned as they are.
+	 * @param segmentIterators
+	 * @return
+	 */
+	public static Map<String, PostingsIterator> merge(List<Map<String, PostingsIterator>> segmentIterators) {
+		if(segmentIterators.size() == 1) {
+			return segmentIterators.get(0);
+		}
+		
+		// Collect iterators of all segments per token
+		Map<String, List<PostingsIterator>> tokenIterators = new HashMap<String, List<PostingsIterator>>();
+		for(Map<String, PostingsIterator> iterators: segmentIterators) {
+			for(Map.Entry<String, PostingsIterator> entry: iterators.entrySet()) {
+				tokenIterators.putIfAbsent(entry.getKey(), new ArrayList<PostingsIterator>());
+				tokenIterators.get(entry.getKey()).add(entry.getValue());
+			}
+		}
+		
+		// Merge iterators of tokens, that occur in multiple segments
+		Map<String, PostingsIterator> iterators = new HashMap<String, PostingsIterator>();
+		for(Map.Entry<String, List<PostingsIterator>> entry: tokenIterators.entrySet()) {
+			if(entry.getValue().size() == 1) {
+				iterators.put(entry.getKey(), entry.getValue().get(0));
+			}
+			else {
+				iterators.put(entry.getKey(), new MultiPostingsIterator(entry.getValue()));
+			}
+		}
+		
+		return iterators;
+	}
+
+
+	@Override
+	public int getTotalOccurrencesCount() {
+		int totalOccurrencesCount = 0;
+		for(PostingsIterator iterator: this.iterators) {
+			totalOccurrencesCount += iterator.getTotalOccurrencesCount();
+		}
+
+		return totalOccurrencesCount;
+	}
+
+	@Override
+	public int getDocumentFrequency() {
+		int documentFrequency = 0;
+		for(PostingsIterator iterator: this.iterators) {
+			documentFrequency += iterator.getDocumentFrequency();
+		}
+
+		return documentFrequency;
+	}
+
+	@Override
+	public float getMaxOccurrenceRatio(ContentType contentType) {
+		float maxOccurrenceRatio = 0;
+		for(PostingsIterator iterator: this.iterators) {
+			maxOccurrenceRatio = Math.max(maxOccurrenceRatio, iterator.getMaxOccurrenceRatio(contentType));
+		}
+
+		return maxOccurrenceRatio;
+	}
+
+
+	@Override
+	public int documentId() {
+		return this.documentId;
+	}
+
+	@Override
+	public int frequency() {
+		return this.currentIterator.frequency();
+	}
+
+	@Override
+	public int frequency(ContentType contentType) {
+		return this.currentIterator.frequency(contentType);
+	}
+
+	@Override
+	public PositionMap positions() throws IOException {
+		if(this.currentIterator == null) {
+			return null;
+		}
+
+		return this.currentIterator.positions();
+	}
+
+
+	@Override
+	public int nextDocument() throws IOException {
+		if(this.documentId == NO_MORE_DOCUMENTS) {
+			return NO_MORE_DOCUMENTS;
+		}
+
+		// Move all iterators, that are positioned at the current document
+		for(PostingsIterator iterator: this.iterators) {
+			if(iterator.documentId() <= this.documentId) {
+				iterator.nextDocument();
+			}
+		}
+
+		return this.updateCurrentDocument();
+	}
+
+	@Override
+	public int advance(int targetDocumentId) throws IOException {
+		if(this.documentId >= targetDocumentId) {
+			return this.documentId;
+		}
+
+		for(PostingsIterator iterator: this.iterators) {
+			iterator.advance(targetDocumentId);
+		}
+
+		return this.updateCurrentDocument();
+	}
+
+	/**
+	 * Sets the current document to the smallest document id among all iterators and returns it.
+	 * @return
+	 */
+	private int updateCurrentDocument() {
+		this.currentIterator = null;
+		this.documentId = NO_MORE_DOCUMENTS;
+		for(PostingsIterator iterator: this.iterators) {
+			if(iterator.documentId() < this.documentId) {
+				this.documentId = iterator.documentId();
+				this.currentIterator = iterator;
+			}
+		}
+
+		return this.documentId;
+	}
+}
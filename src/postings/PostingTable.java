@@ -1,26 +1,51 @@
 package postings;
 
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
-import com.google.common.collect.HashBasedTable;
-import com.google.common.collect.Table;
-
+import gnu.trove.TDecorators;
+import gnu.trove.impl.Constants;
+import gnu.trove.map.TIntObjectMap;
+import gnu.trove.map.TObjectIntMap;
+import gnu.trove.map.hash.TIntObjectHashMap;
+import gnu.trove.map.hash.TObjectIntHashMap;
 import postings.positions.EagerPositionMap;
 import postings.positions.PositionMap;
+import utilities.SortedIntArrays;
 
 public class PostingTable {
+
+	/**
+	 * Contains the tokens of the table. The index of a token in this list is its ordinal.
+	 */
+	private List<String> tokens;
+	
+	/**
+	 * Contains the ordinal of each token of the table.
+	 */
+	private TObjectIntMap<String> tokenOrdinals;
+	
+	/**
+	 * Contains the postings of each token mapped by document id. The index of a row is the ordinal of its token.
+	 */
+	private List<TIntObjectMap<PositionMap>> rows;
 	
-	private final Table<String, Integer, PositionMap> table;
+	/**
+	 * Contains the sorted document ids of each row. Entries are null, if they have not been computed since the last modification of the row.
+	 */
+	private List<int[]> sortedRowDocumentIds;
 	
 	
 	/**
 	 * Creates a new, empty PostingTable instance.
 	 */
 	public PostingTable() {
-		this.table = HashBasedTable.<String, Integer, PositionMap>create();
+		this.clear();
 	}
 	
 	
@@ -29,7 +54,14 @@ public class PostingTable {
 	 * @return
 	 */
 	public Set<String> tokenSet() {
-		return this.table.rowKeySet();
+		Set<String> tokens = new LinkedHashSet<String>();
+		for(int ordinal = 0; ordinal < this.tokens.size(); ordinal++) {
+			if(!this.rows.get(ordinal).isEmpty()) {
+				tokens.add(this.tokens.get(ordinal));
+			}
+		}
+		
+		return tokens;
 	}
 	
 	/**
@@ -37,7 +69,39 @@ public class PostingTable {
 	 * @return
 	 */
 	public Set<Integer> documentIdSet() {
-		return this.table.columnKeySet();
+		Set<Integer> documentIds = new LinkedHashSet<Integer>();
+		for(int documentId: this.documentIds()) {
+			documentIds.add(documentId);
+		}
+		
+		return documentIds;
+	}
+	
+	/**
+	 * Gets the sorted array of all document ids contained in this table.
+	 * @return
+	 */
+	public int[] documentIds() {
+		int[][] rowDocumentIds = new int[this.tokens.size()][];
+		for(int ordinal = 0; ordinal < this.tokens.size(); ordinal++) {
+			rowDocumentIds[ordinal] = this.sortedDocumentIds(ordinal);
+		}
+		
+		return SortedIntArrays.union(rowDocumentIds);
+	}
+	
+	/**
+	 * Gets the sorted array of document ids of the given token.
+	 * @param token
+	 * @return
+	 */
+	public int[] documentIds(String token) {
+		int ordinal = this.tokenOrdinals.get(token);
+		if(ordinal < 0) {
+			return new int[0];
+		}
+		
+		return this.sortedDocumentIds(ordinal);
 	}
 	
 	
@@ -47,7 +111,12 @@ public class PostingTable {
 	 * @return
 	 */
 	public TokenPostings ofToken(String token) {
-		return new TokenPostings(this.table.row(token));
+		int ordinal = this.tokenOrdinals.get(token);
+		if(ordinal < 0) {
+			return new TokenPostings(new HashMap<Integer, PositionMap>());
+		}
+		
+		return new TokenPostings(TDecorators.wrap(this.rows.get(ordinal)));
 	}
 	
 	/**
@@ -56,7 +125,15 @@ public class PostingTable {
 	 * @return
 	 */
 	public DocumentPostings ofDocument(int documentId) {
-		return new DocumentPostings(this.table.column(documentId));
+		Map<String, PositionMap> postings = new HashMap<String, PositionMap>();
+		for(int ordinal = 0; ordinal < this.tokens.size(); ordinal++) {
+			PositionMap positions = this.rows.get(ordinal).get(documentId);
+			if(positions != null) {
+				postings.put(this.tokens.get(ordinal), positions);
+			}
+		}
+		
+		return new DocumentPostings(postings);
 	}
 	
 	
@@ -66,7 +143,8 @@ public class PostingTable {
 	 * @return
 	 */
 	public boolean containsToken(String token) {
-		return this.table.containsRow(token);
+		int ordinal = this.tokenOrdinals.get(token);
+		return ordinal >= 0 && !this.rows.get(ordinal).isEmpty();
 	}
 	
 	/**
@@ -75,7 +153,13 @@ public class PostingTable {
 	 * @return
 	 */
 	public boolean containsDocument(int documentId) {
-		return this.table.containsColumn(documentId);
+		for(TIntObjectMap<PositionMap> row: this.rows) {
+			if(row.containsKey(documentId)) {
+				return true;
+			}
+		}
+		
+		return false;
 	}
 	
 	/**
@@ -85,7 +169,8 @@ public class PostingTable {
 	 * @return
 	 */
 	public boolean contains(String token, int documentId) {
-		return this.table.contains(token, documentId);
+		int ordinal = this.tokenOrdinals.get(token);
+		return ordinal >= 0 && this.rows.get(ordinal).containsKey(documentId);
 	}
 
 	
@@ -97,10 +182,13 @@ public class PostingTable {
 	 * @param position
 	 */
 	public void put(String token, int documentId, ContentType contentType, int position) {
-		// Create position map
-		PositionMap positions = new EagerPositionMap();
+		TIntObjectMap<PositionMap> row = this.getOrCreateRow(token);
+		PositionMap positions = row.get(documentId);
+		if(positions == null) {
+			positions = new EagerPositionMap();
+			this.putCell(this.tokenOrdinals.get(token), documentId, positions);
+		}
 		positions.put(contentType, position);
-		this.put(token, documentId, positions);
 	}
 	
 	/**
@@ -110,11 +198,13 @@ public class PostingTable {
 	 * @param positions
 	 */
 	public void put(String token, int documentId, PositionMap positions) {
-		if(this.contains(token, documentId)) {
-			this.table.get(token, documentId).putAll(positions);
+		TIntObjectMap<PositionMap> row = this.getOrCreateRow(token);
+		PositionMap existingPositions = row.get(documentId);
+		if(existingPositions != null) {
+			existingPositions.putAll(positions);
 		}
 		else {
-			this.table.put(token, documentId, positions);
+			this.putCell(this.tokenOrdinals.get(token), documentId, positions);
 		}
 	}
 	
@@ -124,10 +214,10 @@ public class PostingTable {
 	 * @param postings
 	 */
 	public void putAll(String token, TokenPostings postings) {
+		this.getOrCreateRow(token);
+		int ordinal = this.tokenOrdinals.get(token);
 		for(Map.Entry<Integer, PositionMap> entry: postings.entrySet()) {
-			int documentId = entry.getKey();
-			PositionMap positions = entry.getValue();
-			this.table.put(token, documentId, positions);
+			this.putCell(ordinal, entry.getKey(), entry.getValue());
 		}
 	}
 	
@@ -138,9 +228,8 @@ public class PostingTable {
 	 */
 	public void putAll(int documentId, DocumentPostings postings) {
 		for(Map.Entry<String, PositionMap> entry: postings.entrySet()) {
-			String token = entry.getKey();
-			PositionMap positions = entry.getValue();
-			this.table.put(token, documentId, positions);
+			this.getOrCreateRow(entry.getKey());
+			this.putCell(this.tokenOrdinals.get(entry.getKey()), documentId, entry.getValue());
 		}
 	}
 	
@@ -149,7 +238,15 @@ public class PostingTable {
 	 * @param postingTable
 	 */
 	public void putAll(PostingTable postingTable) {
-		this.table.putAll(postingTable.table);
+		for(int otherOrdinal = 0; otherOrdinal < postingTable.tokens.size(); otherOrdinal++) {
+			TIntObjectMap<PositionMap> otherRow = postingTable.rows.get(otherOrdinal);
+			if(otherRow.isEmpty()) {
+				continue;
+			}
+			
+			this.getOrCreateRow(postingTable.tokens.get(otherOrdinal)).putAll(otherRow);
+			this.sortedRowDocumentIds.set(this.tokenOrdinals.get(postingTable.tokens.get(otherOrdinal)), null);
+		}
 	}
 	
 	
@@ -158,7 +255,11 @@ public class PostingTable {
 	 * @param token
 	 */
 	public void remove(String token) {
-		this.table.row(token).clear();
+		int ordinal = this.tokenOrdinals.get(token);
+		if(ordinal >= 0) {
+			this.rows.get(ordinal).clear();
+			this.sortedRowDocumentIds.set(ordinal, null);
+		}
 	}
 	
 	/**
@@ -166,7 +267,11 @@ public class PostingTable {
 	 * @param documentId
 	 */
 	public void remove(int documentId) {
-		this.table.column(documentId).clear();
+		for(int ordinal = 0; ordinal < this.tokens.size(); ordinal++) {
+			if(this.rows.get(ordinal).remove(documentId) != null) {
+				this.sortedRowDocumentIds.set(ordinal, null);
+			}
+		}
 	}
 	
 	/**
@@ -175,7 +280,10 @@ public class PostingTable {
 	 * @param documentId
 	 */
 	public void remove(String token, int documentId) {
-		this.table.remove(token, documentId);
+		int ordinal = this.tokenOrdinals.get(token);
+		if(ordinal >= 0 && this.rows.get(ordinal).remove(documentId) != null) {
+			this.sortedRowDocumentIds.set(ordinal, null);
+		}
 	}
 	
 	
@@ -184,7 +292,13 @@ public class PostingTable {
 	 * @return
 	 */
 	public boolean isEmpty() {
-		return this.table.isEmpty();
+		for(TIntObjectMap<PositionMap> row: this.rows) {
+			if(!row.isEmpty()) {
+				return false;
+			}
+		}
+		
+		return true;
 	}
 	
 	/**
@@ -192,7 +306,9 @@ public class PostingTable {
 	 * @return
 	 */
 	public int size() {
-		return this.table.size();
+		return this.rows.stream()
+				.mapToInt(row -> row.size())
+				.sum();
 	}
 	
 	/**
@@ -200,7 +316,8 @@ public class PostingTable {
 	 * @return
 	 */
 	public int totalTokenOccurencesCount() {
-		return this.table.values().stream()
+		return this.rows.stream()
+				.flatMap(row -> row.valueCollection().stream())
 				.mapToInt(positionMap -> positionMap.size())
 				.sum();
 	}
@@ -209,12 +326,70 @@ public class PostingTable {
 	 * Deletes all postings from this table.
 	 */
 	public void clear() {
-		this.table.clear();
+		this.tokens = new ArrayList<String>();
+		this.tokenOrdinals = new TObjectIntHashMap<String>(Constants.DEFAULT_CAPACITY, Constants.DEFAULT_LOAD_FACTOR, -1);
+		this.rows = new ArrayList<TIntObjectMap<PositionMap>>();
+		this.sortedRowDocumentIds = new ArrayList<int[]>();
 	}
 	
 	@Override
 	public String toString() {
-		return this.table.toString();
+		StringBuilder builder = new StringBuilder("{");
+		for(String token: this.tokenSet()) {
+			if(builder.length() > 1) {
+				builder.append(", ");
+			}
+			builder.append(token).append('=').append(this.rows.get(this.tokenOrdinals.get(token)));
+		}
+		
+		return builder.append('}').toString();
+	}
+	
+	
+	/**
+	 * Gets the row of the given token. If the token is not part of the table yet, a new row is created.
+	 * @param token
+	 * @return
+	 */
+	private TIntObjectMap<PositionMap> getOrCreateRow(String token) {
+		int ordinal = this.tokenOrdinals.get(token);
+		if(ordinal < 0) {
+			ordinal = this.tokens.size();
+			this.tokens.add(token);
+			this.tokenOrdinals.put(token, ordinal);
+			this.rows.add(new TIntObjectHashMap<PositionMap>());
+			this.sortedRowDocumentIds.add(null);
+		}
+		
+		return this.rows.get(ordinal);
+	}
+	
+	/**
+	 * Sets the positions of the given token ordinal and document id, existing positions are overwritten.
+	 * @param ordinal
+	 * @param documentId
+	 * @param positions
+	 */
+	private void putCell(int ordinal, int documentId, PositionMap positions) {
+		if(this.rows.get(ordinal).put(documentId, positions) == null) {
+			this.sortedRowDocumentIds.set(ordinal, null);
+		}
+	}
+	
+	/**
+	 * Gets the sorted document ids of the row with the given ordinal.
+	 * @param ordinal
+	 * @return
+	 */
+	private int[] sortedDocumentIds(int ordinal) {
+		int[] documentIds = this.sortedRowDocumentIds.get(ordinal);
+		if(documentIds == null) {
+			documentIds = this.rows.get(ordinal).keys();
+			Arrays.sort(documentIds);
+			this.sortedRowDocumentIds.set(ordinal, documentIds);
+		}
+		
+		return documentIds;
 	}
 	
 	
@@ -237,11 +412,11 @@ public class PostingTable {
 	 * @param postingTables
 	 * @return
 	 */
-	public static PostingTable conjunct(PostingTable...postingTables) {	
+	public static PostingTable conjunct(PostingTable...postingTables) {
 		// Get intersection of document ids
-		Set<Integer> documentIds = new HashSet<Integer>(postingTables[0].documentIdSet());
+		int[] documentIds = postingTables[0].documentIds();
 		for(int i = 1; i < postingTables.length; i++) {
-			documentIds.retainAll(postingTables[i].documentIdSet());
+			documentIds = SortedIntArrays.intersect(documentIds, postingTables[i].documentIds());
 		}
 
 		return PostingTable.disjunctRetained(documentIds, postingTables);
@@ -252,11 +427,11 @@ public class PostingTable {
 	 * @param postingTables
 	 * @return
 	 */
-	public static PostingTable relativeComplement(PostingTable...postingTables) {		
+	public static PostingTable relativeComplement(PostingTable...postingTables) {
 		// Get complement of document ids
-		Set<Integer> documentIds = new HashSet<Integer>(postingTables[0].documentIdSet());
+		int[] documentIds = postingTables[0].documentIds();
 		for(int i = 1; i < postingTables.length; i++) {
-			documentIds.removeAll(postingTables[i].documentIdSet());
+			documentIds = SortedIntArrays.difference(documentIds, postingTables[i].documentIds());
 		}
 
 		return PostingTable.disjunctRetained(documentIds, postingTables);
@@ -269,11 +444,28 @@ public class PostingTable {
 	 * @return
 	 */
 	public static PostingTable disjunctRetained(Set<Integer> documentIds, PostingTable...postingTables) {
+		return PostingTable.disjunctRetained(SortedIntArrays.of(documentIds), postingTables);
+	}
+	
+	/**
+	 * Disjuncts the given posting tables and retains only the given sorted document ids.
+	 * @param documentIds
+	 * @param postingTables
+	 * @return
+	 */
+	public static PostingTable disjunctRetained(int[] documentIds, PostingTable...postingTables) {
 		PostingTable result = new PostingTable();
-		Arrays.stream(postingTables)
-				.flatMap(postingTable -> postingTable.table.cellSet().stream())
-				.filter(cell -> documentIds.contains(cell.getColumnKey()))
-				.forEach(cell -> result.put(cell.getRowKey(), cell.getColumnKey(), cell.getValue()));
+		for(PostingTable postingTable: postingTables) {
+			for(int ordinal = 0; ordinal < postingTable.tokens.size(); ordinal++) {
+				String token = postingTable.tokens.get(ordinal);
+				TIntObjectMap<PositionMap> row = postingTable.rows.get(ordinal);
+				
+				// Intersect document ids of row with retained document ids
+				for(int documentId: SortedIntArrays.intersect(postingTable.sortedDocumentIds(ordinal), documentIds)) {
+					result.put(token, documentId, row.get(documentId));
+				}
+			}
+		}
 
 		return result;
 	}
@@ -0,0 +1,78 @@
+package postings;
+
+import java.io.IOException;
+
+import postings.positions.PositionMap;
+
+public interface PostingsIterator {
+
+	/**
+	 * Contains the document id, that is returned, if the iterator is exhausted.
+	 */
+	public static final int NO_MORE_DOCUMENTS = Integer.MAX_VALUE;
+
+
+	/**
+	 * Gets the number of occurrences of the token in the whole collection.
+	 * @return
+	 */
+	public int getTotalOccurrencesCount();
+
+	/**
+	 * Gets the number of documents containing the token.
+	 * @return
+	 */
+	public int getDocumentFrequency();
+
+	/**
+	 * Gets the maximum ratio of token occurrences to document length among all postings for the given content type.
+	 * @param contentType
+	 * @return
+	 */
+	public float getMaxOccurrenceRatio(ContentType contentType);
+
+
+	/**
+	 * Gets the id of the current document. Returns -1, if iteration has not been started yet,
+	 * and NO_MORE_DOCUMENTS, if the iterator is exhausted.
+	 * @return
+	 */
+	public int documentId();
+
+	/**
+	 * Gets the number of occurrences of the token in the current document.
+	 * @return
+	 */
+	public int frequency();
+
+	/**
+	 * Gets the number of occurrences of the token in the given content type of the current document.
+	 * @param contentType
+	 * @return
+	 */
+	public int frequency(ContentType contentType);
+
+	/**
+	 * Gets the positions of the current document.
+	 * @return
+	 * @throws IOException
+	 */
+	public PositionMap positions() throws IOException;
+
+
+	/**
+	 * Moves to the next document and returns its id. If there are no more documents, NO_MORE_DOCUMENTS is returned.
+	 * @return
+	 * @throws IOException
+	 */
+	public int nextDocument() throws IOException;
+
+	/**
+	 * Moves to the first document, whose id is greater than or equal to the given target, and returns its id.
+	 * If there is no such document, NO_MORE_DOCUMENTS is returned.
+	 * @param targetDocumentId
+	 * @return
+	 * @throws IOException
+	 */
+	public int advance(int targetDocumentId) throws IOException;
+}
@@ -0,0 +1,141 @@
+package postings;
+
+import java.io.IOException;
+
+import io.index.IndexReader;
+import io.index.IndexWriter;
+
+public class TermStatistics {
+
+	/**
+	 * Contains the statistics of a token, that is not contained in the index.
+	 */
+	public static final TermStatistics EMPTY = new TermStatistics(0, 0, 0, new float[ContentType.orderedValues().length]);
+
+	/**
+	 * Contains the number of documents containing the token.
+	 */
+	private final int documentFrequency;
+
+	/**
+	 * Contains the number of occurrences of the token in the whole collection.
+	 */
+	private final int collectionFrequency;
+
+	/**
+	 * Contains the maximum number of occurrences of the token in a single document.
+	 */
+	private final int maxFrequency;
+
+	/**
+	 * Contains per content type the maximum ratio of token occurrences to document length among all postings.
+	 * Together with the collection frequency, it determines the upper bound of the score of the token.
+	 */
+	private final float[] maxOccurrenceRatios;
+
+
+	/**
+	 * Creates a new TermStatistics instance.
+	 * @param documentFrequency
+	 * @param collectionFrequency
+	 * @param maxFrequency
+	 * @param maxOccurrenceRatios
+	 */
+	public TermStatistics(int documentFrequency, int collectionFrequency, int maxFrequency, float[] maxOccurrenceRatios) {
+		this.documentFrequency = documentFrequency;
+		this.collectionFrequency = collectionFrequency;
+		this.maxFrequency = maxFrequency;
+		this.maxOccurrenceRatios = maxOccurrenceRatios;
+	}
+
+
+	/**
+	 * Gets the number of documents containing the token.
+	 * @return
+	 */
+	public int getDocumentFrequency() {
+		return this.documentFrequency;
+	}
+
+	/**
+	 * Gets the number of occurrences of the token in the whole collection.
+	 * @return
+	 */
+	public int getCollectionFrequency() {
+		return this.collectionFrequency;
+	}
+
+	/**
+	 * Gets the maximum number of occurrences of the token in a single document.
+	 * @return
+	 */
+	public int getMaxFrequency() {
+		return this.maxFrequency;
+	}
+
+	/**
+	 * Gets the maximum ratio of token occurrences to document length among all postings for the given content type.
+	 * @param contentType
+	 * @return
+	 */
+	public float getMaxOccurrenceRatio(ContentType contentType) {
+		return this.maxOccurrenceRatios[contentType.ordinal()];
+	}
+
+
+	/**
+	 * Combines these statistics with the statistics of the same token in another index segment.
+	 * @param statistics
+	 * @return
+	 */
+	public TermStatistics merge(TermStatistics statistics) {
+		float[] maxOccurrenceRatios = new float[this.maxOccurrenceRatios.length];
+		for(int i = 0; i < maxOccurrenceRatios.length; i++) {
+			maxOccurrenceRatios[i] = Math.max(this.maxOccurrenceRatios[i], statistics.maxOccurrenceRatios[i]);
+		}
+
+		return new TermStatistics(this.documentFrequency + statistics.documentFrequency,
+								  this.collectionFrequency + statistics.collectionFrequency,
+								  Math.max(this.maxFrequency, statistics.maxFrequency),
+								  maxOccurrenceRatios);
+	}
+
+
+	/**
+	 * Loads the statistics using the given reader.
+	 * @param reader
+	 * @return
+	 * @throws IOException
+	 */
+	public static TermStatistics load(IndexReader reader) throws IOException {
+		int documentFrequency = reader.readInt();
+		int collectionFrequency = reader.readInt();
+		int maxFrequency = reader.readInt();
+		float[] maxOccurrenceRatios = new float[ContentType.orderedValues().length];
+		for(ContentType contentType: ContentType.orderedValues()) {
+			maxOccurrenceRatios[contentType.ordinal()] = reader.readFloat();
+		}
+
+		return new TermStatistics(documentFrequency, collectionFrequency, maxFrequency, maxOccurrenceRatios);
+	}
+
+	/**
+	 * Saves the statistics using the given writer.
+	 * @param writer
+	 * @throws IOException
+	 */
+	public void save(IndexWriter writer) throws IOException {
+		writer.writeInt(this.documentFrequency);
+		writer.writeInt(this.collectionFrequency);
+		writer.writeInt(this.maxFrequency);
+		for(ContentType contentType: ContentType.orderedValues()) {
+			writer.writeFloat(this.getMaxOccurrenceRatio(contentType));
+		}
+	}
+
+
+	@Override
+	public String toString() {
+		return String.format("df=%d, cf=%d, max tf=%d", this.documentFrequency, this.collectionFrequency, this.maxFrequency);
+	}
+}
@@ -9,12 +9,16 @@ import java.util.Set;
 import documents.PatentDocument;
 import io.index.IndexReader;
 import io.index.IndexWriter;
-import postings.positions.EagerPositionMap;
-import postings.positions.LazyPositionMap;
+import io.index.codecs.IntBlockCodec;
 import postings.positions.PositionMap;
 
 public class TokenPostings {
 	
+	/**
+	 * Contains the number of documents, that are grouped into a single block of the posting list.
+	 */
+	static final int BLOCK_SIZE = 128;
+	
 	/**
 	 * Contains the number of occurrences of the token in the whole collection.
 	 */
@@ -25,6 +29,12 @@ public class TokenPostings {
 	 */
 	private final Map<Integer, PositionMap> postings;
 	
+	/**
+	 * Contains per content type the maximum ratio of token occurrences to document length among all postings. 
+	 * It is used to compute upper bounds of document scores.
+	 */
+	private final float[] maxOccurrenceRatios;
+	
 	
 	/**
 	 * Creates a new TokenPostings instance.
@@ -40,8 +50,19 @@ public class TokenPostings {
 	 * @param totalOccurrencesCount
 	 */
 	public TokenPostings(Map<Integer, PositionMap> postings, int totalOccurrencesCount) {
+		this(postings, totalOccurrencesCount, new float[ContentType.orderedValues().length]);
+	}
+	
+	/**
+	 * Creates a new TokenPostings instance.
+	 * @param postings
+	 * @param totalOccurrencesCount
+	 * @param maxOccurrenceRatios
+	 */
+	public TokenPostings(Map<Integer, PositionMap> postings, int totalOccurrencesCount, float[] maxOccurrenceRatios) {
 		this.postings = postings;
 		this.totalOccurencesCount = totalOccurrencesCount;
+		this.maxOccurrenceRatios = maxOccurrenceRatios;
 	}
 	
 	
@@ -139,6 +160,10 @@ public class TokenPostings {
 	 */
 	public void putAll(TokenPostings postings) {
 		this.postings.putAll(postings.postings);
+		this.totalOccurencesCount += postings.totalOccurencesCount;
+		for(int i = 0; i < this.maxOccurrenceRatios.length; i++) {
+			this.maxOccurrenceRatios[i] = Math.max(this.maxOccurrenceRatios[i], postings.maxOccurrenceRatios[i]);
+		}
 	}
 	
 	
@@ -167,6 +192,56 @@ public class TokenPostings {
 		return this.totalOccurencesCount;
 	}
 	
+	/**
+	 * Gets the maximum ratio of token occurrences to document length among all postings for the given content type.
+	 * @param contentType
+	 * @return
+	 */
+	public float getMaxOccurrenceRatio(ContentType contentType) {
+		return this.maxOccurrenceRatios[contentType.ordinal()];
+	}
+	
+	/**
+	 * Gets the maximum number of occurrences of the token in a single document.
+	 * @return
+	 */
+	public int getMaxFrequency() {
+		return this.postings.values().stream()
+				.mapToInt(positionMap -> positionMap.size())
+				.max()
+				.orElse(0);
+	}
+	
+	/**
+	 * Gets the statistics of the token, that are stored in the seek list.
+	 * @return
+	 */
+	public TermStatistics getStatistics() {
+		return new TermStatistics(this.size(), this.getTotalOccurencesCount(), this.getMaxFrequency(), this.maxOccurrenceRatios.clone());
+	}
+	
+	/**
+	 * Updates the maximum ratios of token occurrences to document length using the given document lengths per content type.
+	 * @param documentLengths
+	 */
+	public void updateMaxOccurrenceRatios(Map<Integer, Map<ContentType, Integer>> documentLengths) {
+		for(Map.Entry<Integer, PositionMap> entry: this.postings.entrySet()) {
+			Map<ContentType, Integer> lengths = documentLengths.get(entry.getKey());
+			if(lengths == null) {
+				continue;
+			}
+			
+			for(ContentType contentType: entry.getValue().contentTypeSet()) {
+				Integer length = lengths.get(contentType);
+				if(length != null && length > 0) {
+					// Round up, so that the stored ratio remains an upper bound
+					float ratio = Math.nextUp((float)((double)entry.getValue().size(contentType) / length));
+					this.maxOccurrenceRatios[contentType.ordinal()] = Math.max(this.maxOccurrenceRatios[contentType.ordinal()], ratio);
+				}
+			}
+		}
+	}
+	
 	/**
 	 * Gets the number of documents mapped to the current token.
 	 * @return
@@ -186,69 +261,119 @@ public class TokenPostings {
 	 * @param frequencyIndexReader
 	 * @param positionalIndexReader
 	 * @param loadPositions
+	 * @param codec
 	 * @return
 	 * @throws IOException
 	 */
-	public static TokenPostings load(IndexReader frequencyIndexReader, IndexReader positionalIndexReader, boolean loadPositions) throws IOException {
-		// Read total occurrences count
-		int totalOccurrencesCount = frequencyIndexReader.readInt();
+	public static TokenPostings load(IndexReader frequencyIndexReader, IndexReader positionalIndexReader, boolean loadPositions, IntBlockCodec codec) throws IOException {
+		PostingsIterator iterator = new BlockPostingsIterator(frequencyIndexReader, positionalIndexReader, loadPositions, codec);
 		
 		// Load postings
-		int lastDocumentId = 0;
 		Map<Integer, PositionMap> postings = new HashMap<Integer, PositionMap>();
-		while(frequencyIndexReader.getFilePointer() < frequencyIndexReader.length()) {
-			// Read document id
-			int documentId = frequencyIndexReader.readInt();
-			if(frequencyIndexReader.isCompressed()) {
-				documentId += lastDocumentId;
-				lastDocumentId = documentId;
-			}
-			
-			// Read positions grouped by content type
-			PositionMap positionMap; 
-			if(loadPositions) {
-				positionMap = EagerPositionMap.load(frequencyIndexReader, positionalIndexReader);
-			}
-			else {
-				positionMap = LazyPositionMap.load(frequencyIndexReader, positionalIndexReader);
-			}
-			
-			postings.put(documentId, positionMap);
+		while(iterator.nextDocument() != PostingsIterator.NO_MORE_DOCUMENTS) {
+			postings.put(iterator.documentId(), iterator.positions());
+		}
+		
+		// Read maximum occurrence ratios
+		float[] maxOccurrenceRatios = new float[ContentType.orderedValues().length];
+		for(ContentType contentType: ContentType.orderedValues()) {
+			maxOccurrenceRatios[contentType.ordinal()] = iterator.getMaxOccurrenceRatio(contentType);
 		}
 		
-		return new TokenPostings(postings, totalOccurrencesCount);
+		return new TokenPostings(postings, iterator.getTotalOccurrencesCount(), maxOccurrenceRatios);
 	}
 	
 	/**
-	 * Saves the postings using the given file writer.
+	 * Saves the postings using the given file writers. Positions of all documents are written to the positional index first, 
+	 * so that the postings header contains their whole range. Documents are grouped into blocks of fixed size, 
+	 * each preceded by the id of its last document, so that readers can skip whole blocks. 
+	 * Offsets of positions are stored relative to the range of the token, so that the postings can be copied as they are.
 	 * @param frequencyIndexWriter
 	 * @param positionalIndexWriter
+	 * @param codec
 	 * @throws IOException
 	 */
-	public void save(IndexWriter frequencyIndexWriter, IndexWriter positionalIndexWriter) throws IOException {		
-		// Write total occurrences count
-		frequencyIndexWriter.writeInt(this.getTotalOccurencesCount());
+	public void save(IndexWriter frequencyIndexWriter, IndexWriter positionalIndexWriter, IntBlockCodec codec) throws IOException {
+		int[] sortedDocumentIds = this.documentIdSet().stream().mapToInt(x -> x.intValue()).sorted().toArray();
+		
+		// Write positions of all documents
+		long positionsBaseOffset = positionalIndexWriter.getFilePointer();
+		long[] positionsOffsets = new long[sortedDocumentIds.length];
+		for(int i = 0; i < sortedDocumentIds.length; i++) {
+			positionsOffsets[i] = positionalIndexWriter.getFilePointer() - positionsBaseOffset;
+			positionalIndexWriter.startSkippingArea();
+			this.ofDocument(sortedDocumentIds[i]).savePositions(positionalIndexWriter, codec);
+			positionalIndexWriter.endSkippingArea();
+		}
+		long positionsLength = positionalIndexWriter.getFilePointer() - positionsBaseOffset;
+		
+		// Write header
+		saveHeader(frequencyIndexWriter, this.getStatistics(), positionsBaseOffset, positionsLength);
 		
-		// Write postings
+		// Write postings block by block
 		int lastDocumentId = 0;
-		int[] sortedDocumentIds = this.documentIdSet().stream().mapToInt(x -> x.intValue()).sorted().toArray();
-		for(int documentId: sortedDocumentIds) {
-			PositionMap positionMap = this.ofDocument(documentId);
+		int[] documentIdGaps = new int[BLOCK_SIZE];
+		for(int blockStart = 0; blockStart < sortedDocumentIds.length; blockStart += BLOCK_SIZE) {
+			int blockEnd = Math.min(blockStart + BLOCK_SIZE, sortedDocumentIds.length);
 			
-			// Write document id
+			// Write id of last document in block
+			int blockLastDocumentId = sortedDocumentIds[blockEnd - 1];
 			if(frequencyIndexWriter.isCompressed()) {
-				int originalDocumentId = documentId;
-				documentId -= lastDocumentId;
-				lastDocumentId = originalDocumentId;
+				frequencyIndexWriter.writeInt(blockLastDocumentId - lastDocumentId);
+			}
+			else {
+				frequencyIndexWriter.writeInt(blockLastDocumentId);
 			}
-			frequencyIndexWriter.writeInt(documentId);
 			
-			// Write positions
-			if(positionalIndexWriter != null) {
-				positionalIndexWriter.startSkippingArea();
-				positionMap.save(frequencyIndexWriter, positionalIndexWriter);
-				positionalIndexWriter.endSkippingArea();
+			// Write document ids of block, compressed indexes store them as deltas using the codec
+			frequencyIndexWriter.startSkippingArea();
+			if(frequencyIndexWriter.isCompressed()) {
+				for(int i = blockStart; i < blockEnd; i++) {
+					documentIdGaps[i - blockStart] = sortedDocumentIds[i] - lastDocumentId;
+					lastDocumentId = sortedDocumentIds[i];
+				}
+				codec.write(documentIdGaps, blockEnd - blockStart, frequencyIndexWriter);
 			}
+			else {
+				for(int i = blockStart; i < blockEnd; i++) {
+					frequencyIndexWriter.writeInt(sortedDocumentIds[i]);
+				}
+				lastDocumentId = blockLastDocumentId;
+			}
+			
+			// Write numbers of positions per content type and relative offsets of positions of block
+			for(int i = blockStart; i < blockEnd; i++) {
+				PositionMap positionMap = this.ofDocument(sortedDocumentIds[i]);
+				for(ContentType contentType: ContentType.orderedValues()) {
+					frequencyIndexWriter.writeInt(positionMap.size(contentType));
+				}
+				frequencyIndexWriter.writeLong(positionsOffsets[i]);
+			}
+			frequencyIndexWriter.endSkippingArea();
 		}
 	}
+	
+	/**
+	 * Writes the header of the postings of a token, which contains its statistics and the range of its positions in the positional index.
+	 * @param frequencyIndexWriter
+	 * @param statistics
+	 * @param positionsOffset
+	 * @param positionsLength
+	 * @throws IOException
+	 */
+	public static void saveHeader(IndexWriter frequencyIndexWriter, TermStatistics statistics, long positionsOffset, long positionsLength) throws IOException {
+		// Write total occurrences count, document frequency and maximum frequency
+		frequencyIndexWriter.writeInt(statistics.getCollectionFrequency());
+		frequencyIndexWriter.writeInt(statistics.getDocumentFrequency());
+		frequencyIndexWriter.writeInt(statistics.getMaxFrequency());
+		
+		// Write maximum occurrence ratios
+		for(ContentType contentType: ContentType.orderedValues()) {
+			frequencyIndexWriter.writeFloat(statistics.getMaxOccurrenceRatio(contentType));
+		}
+		
+		// Write range of positions
+		frequencyIndexWriter.writeLong(positionsOffset);
+		frequencyIndexWriter.writeLong(positionsLength);
+	}
 }
@@ -10,6 +10,7 @@ import gnu.trove.list.TIntList;
 import gnu.trove.list.array.TIntArrayList;
 import io.index.IndexReader;
 import io.index.IndexWriter;
+import io.index.codecs.IntBlockCodec;
 import postings.ContentType;
 
 public class EagerPositionMap implements PositionMap {
@@ -75,7 +76,9 @@ public class EagerPositionMap implements PositionMap {
 	
 	@Override
 	public int size() {
-		return this.positions.size();
+		return this.positions.values().stream()
+					.mapToInt(TIntList::size)
+					.sum();
 	}
 
 	@Override
@@ -99,10 +102,12 @@ public class EagerPositionMap implements PositionMap {
 	 * Loads positions from given file readers. File pointer has to be at the beginning of the position map.
 	 * @param frequencyIndexReader
 	 * @param positionalIndexReader
+	 * @param positionsBaseOffset Offset of the positions of the token, which the offset of this position map is relative to
+	 * @param codec
 	 * @return
 	 * @throws IOException
 	 */
-	public static EagerPositionMap load(IndexReader frequencyIndexReader, IndexReader positionalIndexReader) throws IOException {
+	public static EagerPositionMap load(IndexReader frequencyIndexReader, IndexReader positionalIndexReader, long positionsBaseOffset, IntBlockCodec codec) throws IOException {
 		// Read numbers of positions per content type
 		Map<ContentType, Integer> positionCounts = new HashMap<ContentType, Integer>();
 		for(ContentType contentType: ContentType.orderedValues()) {
@@ -113,33 +118,37 @@ public class EagerPositionMap implements PositionMap {
 		}
 		
 		// Get offset for corresponding positions in positional index and read those positions
-		long positionsOffset = frequencyIndexReader.readLong();
+		long positionsOffset = positionsBaseOffset + frequencyIndexReader.readLong();
 		positionalIndexReader.seek(positionsOffset);
 		
-		return EagerPositionMap.load(positionalIndexReader.getSkippingAreaReader(), positionCounts);
+		return EagerPositionMap.load(positionalIndexReader.getSkippingAreaReader(), positionCounts, codec);
 	}
 	/**
 	 * Loads positions from given file reader. File pointer has to be directly before the positions.
 	 * @param positionalIndexReader
 	 * @param positionCounts
+	 * @param codec Codec used for positions in compressed indexes
 	 * @return
 	 * @throws IOException
 	 */
-	public static EagerPositionMap load(IndexReader positionalIndexReader, Map<ContentType, Integer> positionCounts) throws IOException {
-		// Read single positions
+	public static EagerPositionMap load(IndexReader positionalIndexReader, Map<ContentType, Integer> positionCounts, IntBlockCodec codec) throws IOException {
+		// Read single positions, compressed indexes store them as deltas using the codec
 		EagerPositionMap positionMap = new EagerPositionMap();
 		for(ContentType contentType: ContentType.orderedValues()) {
 			if(positionCounts.containsKey(contentType)) {
-				int lastPosition = 0;
-				int count = positionCounts.get(contentType);
-				for(int i = 0; i < count; i++) {
-					int position = positionalIndexReader.readInt();
-					if(positionalIndexReader.isCompressed()) {
-						position += lastPosition;
-						lastPosition = position;
+				int[] positions = new int[positionCounts.get(contentType)];
+				if(positionalIndexReader.isCompressed()) {
+					codec.read(positionalIndexReader, positions, positions.length);
+					for(int i = 1; i < positions.length; i++) {
+						positions[i] += positions[i - 1];
 					}
-					positionMap.put(contentType, position);
 				}
+				else {
+					for(int i = 0; i < positions.length; i++) {
+						positions[i] = positionalIndexReader.readInt();
+					}
+				}
+				positionMap.put(contentType, positions);
 			}
 		}
 		
@@ -147,26 +156,22 @@ public class EagerPositionMap implements PositionMap {
 	}
 	
 	@Override
-	public void save(IndexWriter frequencyIndexWriter, IndexWriter positionalIndexWriter) throws IOException {
-		// Write numbers of positions per content type to frequency index
-		for(ContentType contentType: ContentType.orderedValues()) {
-			int count = 0;
-			if(this.containsContentType(contentType)) {
-				count = this.size(contentType);
-			}
-			frequencyIndexWriter.writeInt(count);
-		}
-		
-		// Write single positions to positional index and pointer to frequency index
-		frequencyIndexWriter.writeLong(positionalIndexWriter.getFilePointer());
+	public void savePositions(IndexWriter positionalIndexWriter, IntBlockCodec codec) throws IOException {
+		// Write single positions to positional index
 		for(ContentType contentType: ContentType.orderedValues()) {
 			int[] positions = this.ofContentType(contentType);
-			for(int i = 0; i < positions.length; i++) {
-				int position = positions[i];
-				if(positionalIndexWriter.isCompressed() && i > 0) {
-					position -= positions[i - 1];
+			if(positionalIndexWriter.isCompressed()) {
+				if(positions.length > 0) {
+					for(int i = positions.length - 1; i > 0; i--) {
+						positions[i] -= positions[i - 1];
+					}
+					codec.write(positions, positions.length, positionalIndexWriter);
+				}
+			}
+			else {
+				for(int i = 0; i < positions.length; i++) {
+					positionalIndexWriter.writeInt(positions[i]);
 				}
-				positionalIndexWriter.writeInt(position);
 			}
 		}
 	}
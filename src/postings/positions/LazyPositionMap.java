@@ -8,6 +8,7 @@ import java.util.Set;
 import gnu.trove.list.TIntList;
 import io.index.IndexReader;
 import io.index.IndexWriter;
+import io.index.codecs.IntBlockCodec;
 import postings.ContentType;
 
 public class LazyPositionMap implements PositionMap {
@@ -18,6 +19,8 @@ public class LazyPositionMap implements PositionMap {
 	
 	private Map<ContentType, Integer> positionCounts;
 	
+	private IntBlockCodec codec;
+	
 	private PositionMap positionMap = null;
 	
 	
@@ -26,11 +29,13 @@ public class LazyPositionMap implements PositionMap {
 	 * @param positionalIndexReader
 	 * @param positionsOffset
 	 * @param positionCounts
+	 * @param codec
 	 */
-	private LazyPositionMap(IndexReader positionalIndexReader, long positionsOffset, Map<ContentType, Integer> positionCounts) {
+	private LazyPositionMap(IndexReader positionalIndexReader, long positionsOffset, Map<ContentType, Integer> positionCounts, IntBlockCodec codec) {
 		this.positionalIndexReader = positionalIndexReader;
 		this.positionsOffset = positionsOffset;
 		this.positionCounts = positionCounts;
+		this.codec = codec;
 	}
 	
 
@@ -102,8 +107,7 @@ public class LazyPositionMap implements PositionMap {
 	private PositionMap getPositionMap() {
 		if(this.positionMap == null) {
 			try {
-				this.positionalIndexReader.seek(this.positionsOffset);
-				this.positionMap = EagerPositionMap.load(this.positionalIndexReader.getSkippingAreaReader(), this.positionCounts);
+				this.positionMap = this.toEagerPositionMap();
 			} catch (IOException e) {
 				this.positionMap = null;
 			}
@@ -112,15 +116,27 @@ public class LazyPositionMap implements PositionMap {
 		return this.positionMap;
 	}
 	
+	/**
+	 * Loads the positions from index and returns them as EagerPositionMap.
+	 * @return
+	 * @throws IOException
+	 */
+	public EagerPositionMap toEagerPositionMap() throws IOException {
+		this.positionalIndexReader.seek(this.positionsOffset);
+		return EagerPositionMap.load(this.positionalIndexReader.getSkippingAreaReader(), this.positionCounts, this.codec);
+	}
+	
 	
 	/**
 	 * Loads position information necessary for lazy initialization from given file reader. 
 	 * @param frequencyIndexReader
 	 * @param positionalIndexReader
+	 * @param positionsBaseOffset Offset of the positions of the token, which the offset of this position map is relative to
+	 * @param codec
 	 * @return
 	 * @throws IOException
 	 */
-	public static LazyPositionMap load(IndexReader frequencyIndexReader, IndexReader positionalIndexReader) throws IOException {		
+	public static LazyPositionMap load(IndexReader frequencyIndexReader, IndexReader positionalIndexReader, long positionsBaseOffset, IntBlockCodec codec) throws IOException {		
 		// Load number of positions per content type
 		Map<ContentType, Integer> positionCounts = new HashMap<ContentType, Integer>();
 		for(ContentType contentType: ContentType.orderedValues()) {
@@ -131,13 +147,13 @@ public class LazyPositionMap implements PositionMap {
 		}
 		
 		// Get offset for corresponding positions in positional index.
-		long positionsOffset = frequencyIndexReader.readLong();
+		long positionsOffset = positionsBaseOffset + frequencyIndexReader.readLong();
 		
-		return new LazyPositionMap(positionalIndexReader, positionsOffset, positionCounts);
+		return new LazyPositionMap(positionalIndexReader, positionsOffset, positionCounts, codec);
 	}
 
 	@Override
-	public void save(IndexWriter frequencyIndexWriter, IndexWriter positionalIndexWriter) throws IOException {
-		this.getPositionMap().save(frequencyIndexWriter, positionalIndexWriter);
+	public void savePositions(IndexWriter positionalIndexWriter, IntBlockCodec codec) throws IOException {
+		this.getPositionMap().savePositions(positionalIndexWriter, codec);
 	}
 }
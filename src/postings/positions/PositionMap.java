@@ -6,6 +6,7 @@ import java.util.Set;
 
 import gnu.trove.list.TIntList;
 import io.index.IndexWriter;
+import io.index.codecs.IntBlockCodec;
 import postings.ContentType;
 
 public interface PositionMap {
@@ -74,10 +75,11 @@ public interface PositionMap {
 	public int size(ContentType contentType);
 	
 	/**
-	 * Writes current position map to given index writer.
-	 * @param frequencyIndexWriter
+	 * Writes the positions of current position map to given positional index writer. 
+	 * Numbers of positions per content type and the offset of the positions are written by the postings, that reference them.
 	 * @param positionalIndexWriter
+	 * @param codec Codec used for positions in compressed indexes
 	 * @throws IOException
 	 */
-	public void save(IndexWriter frequencyIndexWriter, IndexWriter positionalIndexWriter) throws IOException;
+	public void savePositions(IndexWriter positionalIndexWriter, IntBlockCodec codec) throws IOException;
 }
@@ -3,26 +3,31 @@ package querying;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 
 import org.apache.commons.lang3.tuple.Pair;
 
-import com.google.common.collect.Sets;
-
 import gnu.trove.map.TObjectIntMap;
+import gnu.trove.map.hash.TObjectIntHashMap;
 import indexing.citations.CitationIndexReader;
 import indexing.invertedindex.InvertedIndexReader;
-import postings.ContentType;
-import postings.DocumentPostings;
+import postings.MultiPostingsIterator;
 import postings.PostingTable;
-import postings.positions.EagerPositionMap;
-import postings.positions.PositionMap;
+import postings.PostingsIterator;
+import postings.TermStatistics;
 import querying.results.UnrankedQueryResult;
+import querying.phrases.PhraseMatcher;
+import querying.planning.QueryPlan;
+import querying.planning.QueryPlanner;
 import querying.queries.BooleanQuery;
 import querying.queries.KeywordQuery;
 import querying.queries.LinkToQuery;
@@ -32,13 +37,14 @@ import querying.queries.PrfQuery;
 import querying.queries.Query;
 import querying.queries.QueryParser;
 import querying.ranking.DocumentRanker;
+import querying.ranking.TopDocumentCollector;
 import querying.results.RankedQueryResult;
 import querying.spellingcorrection.SpellingCorrector;
 import textprocessing.TextPreprocessor;
 import utilities.MapValueComparator;
 import visualization.SnippetGenerator;
 
-public class QueryProcessor {
+public class QueryProcessor implements AutoCloseable {
 	
 	/**
 	 * Contains the number of most frequent tokens that are used for pseudo-relevance-feedback.
@@ -53,6 +59,7 @@ public class QueryProcessor {
 	private DocumentRanker documentRanker;
 	private SpellingCorrector spellingCorrector;
 	private SnippetGenerator snippetGenerator;
+	private QueryPlanner queryPlanner;
 	
 	/**
 	 * Contains necessary index reader services.
@@ -60,6 +67,11 @@ public class QueryProcessor {
 	private InvertedIndexReader invertedIndexReader;
 	private CitationIndexReader citationIndexReader;
 	
+	/**
+	 * Contains the pool, that evaluates queries on multiple index segments in parallel.
+	 */
+	private ForkJoinPool segmentSearchPool;
+	
 	/**
 	 * Creates a new QueryProcessor instance.
 	 * @param invertedIndexReader
@@ -70,10 +82,11 @@ public class QueryProcessor {
 	 * @param documentRanker
 	 * @param snippetGenerator
 	 * @param citationIndexReader
+	 * @param threadsCount
 	 * @throws FileNotFoundException
 	 */
 	public QueryProcessor(InvertedIndexReader invertedIndexReader, CitationIndexReader citationIndexReader, QueryParser queryParser, TextPreprocessor textProcessor, 
-			SpellingCorrector spellingCorrector, DocumentRanker documentRanker, SnippetGenerator snippetGenerator) throws FileNotFoundException {
+			SpellingCorrector spellingCorrector, DocumentRanker documentRanker, SnippetGenerator snippetGenerator, int threadsCount) throws FileNotFoundException {
 		this.queryParser = queryParser;
 		this.textPreprocessor = textProcessor;
 		this.documentRanker = documentRanker;
@@ -81,6 +94,25 @@ public class QueryProcessor {
 		this.snippetGenerator = snippetGenerator;
 		this.invertedIndexReader = invertedIndexReader;
 		this.citationIndexReader = citationIndexReader;
+		this.queryPlanner = new QueryPlanner(invertedIndexReader, textProcessor);
+		this.segmentSearchPool = new ForkJoinPool(Math.max(1, threadsCount));
+	}
+	
+	/**
+	 * Creates a new QueryProcessor instance, that uses the services of the given one, but reads the index using the given reader.
+	 * @param queryProcessor
+	 * @param invertedIndexReader
+	 */
+	private QueryProcessor(QueryProcessor queryProcessor, InvertedIndexReader invertedIndexReader) {
+		this.queryParser = queryProcessor.queryParser;
+		this.textPreprocessor = queryProcessor.textPreprocessor;
+		this.documentRanker = queryProcessor.documentRanker;
+		this.spellingCorrector = queryProcessor.spellingCorrector;
+		this.snippetGenerator = queryProcessor.snippetGenerator;
+		this.invertedIndexReader = invertedIndexReader;
+		this.citationIndexReader = queryProcessor.citationIndexReader;
+		this.queryPlanner = new QueryPlanner(invertedIndexReader, queryProcessor.textPreprocessor);
+		this.segmentSearchPool = queryProcessor.segmentSearchPool;
 	}
 	
 	
@@ -97,6 +129,87 @@ public class QueryProcessor {
 		return this.search(query, resultLimit);
 	}
 	
+	/**
+	 * Searches for all given query strings and returns their results in the same order. Each result is limited to 'resultLimit' documents.
+	 * The postings of all tokens of the queries are read once in the order of the index and shared by all queries, 
+	 * which reduces reading overlapping tokens of many queries. Positions are still read per query on demand.
+	 * @param queryStrings
+	 * @param resultLimit
+	 * @return
+	 * @throws IOException
+	 */
+	public List<RankedQueryResult> searchBatch(List<String> queryStrings, int resultLimit) throws IOException {
+		// Parse all queries
+		List<Query> queries = new ArrayList<Query>(queryStrings.size());
+		for(String queryString: queryStrings) {
+			queries.add(this.queryParser.parse(queryString));
+		}
+		
+		// Collect distinct tokens and prefixes of all queries
+		Set<String> tokens = new HashSet<String>();
+		Set<String> prefixes = new HashSet<String>();
+		for(Query query: queries) {
+			this.collectTokens(query, tokens, prefixes);
+		}
+		
+		// Read postings once and evaluate queries on them
+		QueryProcessor batchProcessor = new QueryProcessor(this, this.invertedIndexReader.prefetch(tokens, prefixes));
+		List<RankedQueryResult> results = new ArrayList<RankedQueryResult>(queries.size());
+		for(Query query: queries) {
+			results.add(batchProcessor.search(query, resultLimit));
+		}
+		
+		return results;
+	}
+	
+	/**
+	 * Adds the tokens of the given query to the given sets, as they are looked up in the index. 
+	 * Tokens ending with a wildcard character are added to the prefixes, other tokens are stemmed.
+	 * @param query
+	 * @param tokens
+	 * @param prefixes
+	 */
+	private void collectTokens(Query query, Set<String> tokens, Set<String> prefixes) {
+		switch(query.getType()) {
+			case BooleanQuery.TYPE:
+				this.collectTokens(((BooleanQuery)query).getLeftQuery(), tokens, prefixes);
+				this.collectTokens(((BooleanQuery)query).getRightQuery(), tokens, prefixes);
+				break;
+				
+			case MixedQuery.TYPE:
+				for(Query subQuery: ((MixedQuery)query).getQueries()) {
+					this.collectTokens(subQuery, tokens, prefixes);
+				}
+				break;
+				
+			case KeywordQuery.TYPE:
+			case PhraseQuery.TYPE:
+				for(String token: ((KeywordQuery)query).getQueryTokens()) {
+					if(token.endsWith("*")) {
+						prefixes.add(token.substring(0, token.length() - 1));
+					}
+					else {
+						tokens.add(this.textPreprocessor.stem(token));
+					}
+				}
+				break;
+				
+			default:
+				break;
+		}
+	}
+	
+	/**
+	 * Creates the plan, that is used to evaluate the given query string, without evaluating it.
+	 * @param queryString
+	 * @return
+	 * @throws IOException
+	 */
+	public QueryPlan explain(String queryString) throws IOException {
+		Query query = this.queryParser.parse(queryString);
+		return this.queryPlanner.plan(query);
+	}
+	
 	/**
 	 * Searches for a given query in the document collection and weights resulting documents.
 	 * @param query
@@ -105,7 +218,7 @@ public class QueryProcessor {
 	 * @throws IOException
 	 */
 	private RankedQueryResult search(Query query, int resultLimit) throws IOException {
-		UnrankedQueryResult unrankedResult = this.searchUnweighted(query, resultLimit);
+		UnrankedQueryResult unrankedResult = this.searchCandidates(query, resultLimit);
 		
 		// Rank result depending on query type
 		RankedQueryResult result;
@@ -121,7 +234,7 @@ public class QueryProcessor {
 			PrfQuery prfQuery = (PrfQuery)query;
 			if(prfQuery.getPrf() > 0) {
 				PrfQuery extendedQuery = this.extendPrfQuery(prfQuery, result);
-				unrankedResult = UnrankedQueryResult.fromResults(this.searchUnweighted(extendedQuery, resultLimit), result);
+				unrankedResult = UnrankedQueryResult.fromResults(this.searchCandidates(extendedQuery, resultLimit), result);
 				result = this.documentRanker.weightResult(unrankedResult, resultLimit, this.invertedIndexReader.getTotalTokenCount());
 			}
 		}
@@ -129,6 +242,22 @@ public class QueryProcessor {
 		return result;
 	}
 	
+	/**
+	 * Searches for a given query in the document collection and returns the documents, that are candidates for the ranked result. 
+	 * For keyword queries, only the documents with the highest weights are returned, other queries are evaluated completely.
+	 * @param query
+	 * @param resultLimit
+	 * @return
+	 * @throws IOException
+	 */
+	private UnrankedQueryResult searchCandidates(Query query, int resultLimit) throws IOException {
+		if(query.getType() == KeywordQuery.TYPE && resultLimit >= 0) {
+			return this.searchTopDocuments((KeywordQuery)query, resultLimit);
+		}
+		
+		return this.searchUnweighted(query, resultLimit);
+	}
+	
 	/**
 	 * Searches for a given query in the document collection without weighting resulting documents.
 	 * @param query
@@ -185,126 +314,156 @@ public class QueryProcessor {
 	
 	
 	/**
-	 * Evaluates the given boolean query. 
+	 * Evaluates the given boolean query using the plan created by the query planner.
 	 * @param query
 	 * @param resultLimit
 	 * @return
 	 * @throws IOException
 	 */
 	private UnrankedQueryResult search(BooleanQuery query, int resultLimit) throws IOException {
-		UnrankedQueryResult result;
-		switch(query.getOperator()) {		
+		return this.search(this.queryPlanner.plan(query), null, true);
+	}
+	
+	/**
+	 * Evaluates the given query plan. If a candidate result is given, only documents of this result need to be looked up, 
+	 * so the returned result may lack documents, that are not part of the candidate result. The candidate result must not be empty.
+	 * @param plan
+	 * @param candidateResult Candidate result or null, if all documents should be looked up
+	 * @param loadPositions
+	 * @return
+	 * @throws IOException
+	 */
+	private UnrankedQueryResult search(QueryPlan plan, UnrankedQueryResult candidateResult, boolean loadPositions) throws IOException {
+		if(plan.isLeaf()) {
+			return this.searchLeaf(plan.getQuery(), candidateResult, loadPositions);
+		}
+		
+		switch(plan.getOperator()) {
 			case Or:
-				result = UnrankedQueryResult.disjunct(this.searchAllUnweighted(query.getLeftQuery(), query.getRightQuery()));
-				break;
+				UnrankedQueryResult[] results = new UnrankedQueryResult[plan.getOperands().size()];
+				for(int i = 0; i < results.length; i++) {
+					results[i] = this.search(plan.getOperands().get(i), candidateResult, loadPositions);
+				}
+				return UnrankedQueryResult.disjunct(results);
 				
 			case And:
-				result = UnrankedQueryResult.conjunct(this.searchAllUnweighted(query.getLeftQuery(), query.getRightQuery()));
-				break;
-				
-			case Not:
-				result = UnrankedQueryResult.relativeComplement(this.searchAllUnweighted(query.getLeftQuery(), query.getRightQuery()));
-				break;
+				return this.searchConjunction(plan, candidateResult, loadPositions);
 				
 			default:
 				return new UnrankedQueryResult();
 		}
+	}
+	
+	/**
+	 * Evaluates the given conjunction. Operands are evaluated in the order of the plan, each one only on the documents matching 
+	 * all previous operands. Evaluation stops, as soon as no document is left. Excluded operands are evaluated last 
+	 * and only on the remaining documents.
+	 * @param plan
+	 * @param candidateResult Candidate result or null, if all documents should be looked up
+	 * @param loadPositions
+	 * @return
+	 * @throws IOException
+	 */
+	private UnrankedQueryResult searchConjunction(QueryPlan plan, UnrankedQueryResult candidateResult, boolean loadPositions) throws IOException {
+		// Intersect operands
+		UnrankedQueryResult result = null;
+		for(QueryPlan operand: plan.getOperands()) {
+			UnrankedQueryResult operandResult = this.search(operand, result != null ? result : candidateResult, loadPositions);
+			if(operandResult.documentIds().length == 0) {
+				return new UnrankedQueryResult();
+			}
+			
+			result = result != null ? UnrankedQueryResult.conjunct(result, operandResult) : operandResult;
+		}
+		if(result == null) {
+			return new UnrankedQueryResult();
+		}
+		
+		// Remove documents of excluded operands, whose positions are not needed
+		for(QueryPlan excludedOperand: plan.getExcludedOperands()) {
+			if(result.documentIds().length == 0) {
+				break;
+			}
+			
+			UnrankedQueryResult excludedResult = this.search(excludedOperand, result, false);
+			result = UnrankedQueryResult.relativeComplement(result, excludedResult);
+		}
 		
 		return result;
 	}
 	
+	/**
+	 * Evaluates the given query, that is a leaf of a query plan. If a candidate result is given, keyword and phrase queries 
+	 * only look up documents of this result.
+	 * @param query
+	 * @param candidateResult Candidate result or null, if all documents should be looked up
+	 * @param loadPositions
+	 * @return
+	 * @throws IOException
+	 */
+	private UnrankedQueryResult searchLeaf(Query query, UnrankedQueryResult candidateResult, boolean loadPositions) throws IOException {
+		if(candidateResult != null) {
+			switch(query.getType()) {
+				case KeywordQuery.TYPE:
+					return this.searchWithin((KeywordQuery)query, candidateResult, loadPositions);
+					
+				case PhraseQuery.TYPE:
+					return this.search((PhraseQuery)query, candidateResult.documentIds());
+					
+				default:
+					break;
+			}
+		}
+		
+		return this.searchUnweighted(query, -1);
+	}
+	
 	
 	/**
 	 * Searched for a phrase of tokens in the document collection. Only document, containing the tokens in the given order are returned.
+	 * Matching is done by PhraseMatcher, which only decodes positions of documents containing all tokens.
 	 * @param tokens
 	 * @return
 	 * @throws IOException
 	 */
 	private UnrankedQueryResult search(PhraseQuery query) throws IOException {
-		PostingTable resultTokenPostings = null;
-		PostingTable lastTokenPostings = null;
-		Map<String, String> spellingCorrections = null;
-		TObjectIntMap<String> collectionFrequencies = null;
+		return this.search(query, null);
+	}
+	
+	/**
+	 * Searched for a phrase of tokens in the given candidate documents. If no candidates are given, all documents are searched.
+	 * @param query
+	 * @param candidateDocumentIds Sorted array of document ids, or null if all documents should be searched
+	 * @return
+	 * @throws IOException
+	 */
+	private UnrankedQueryResult search(PhraseQuery query, int[] candidateDocumentIds) throws IOException {
+		Map<String, String> spellingCorrections = new HashMap<String, String>();
+		TObjectIntMap<String> collectionFrequencies = new TObjectIntHashMap<String>();
 		
+		// Get posting iterators for each token of the phrase
+		List<Map<String, PostingsIterator>> tokenIterators = new ArrayList<Map<String, PostingsIterator>>();
 		for(String token: query.getQueryTokens()) {
-			// Search for token
-			UnrankedQueryResult result = this.searchToken(token, true);
-			
-			if(resultTokenPostings == null) {
-				// Add all postings of first token
-				resultTokenPostings = lastTokenPostings = result.getPostings();
-				spellingCorrections = result.getSpellingCorrections();
-				collectionFrequencies = result.getCollectionFrequencies();
-			}
-			else {
-				// Filter out those tokens, that are not part of the phrase and store valid postings in a new table
-				Set<Integer> documentIds = result.getPostings().documentIdSet();
-				PostingTable newTokenPostings = new PostingTable();
-				for(int documentId: documentIds) {
-					DocumentPostings tokenPositions = result.getPostings().ofDocument(documentId);
-					for(String currentToken: tokenPositions.tokenSet()) {
-						PositionMap positionMap = tokenPositions.ofToken(currentToken);
-						for(ContentType contentType: positionMap.contentTypeSet()) {
-							int[] currentPositions = positionMap.ofContentType(contentType);
-							if(lastTokenPostings.containsDocument(documentId)) {
-								int[] lastPositions = lastTokenPostings.ofDocument(documentId).positions().stream()
-														.flatMapToInt(x -> Arrays.stream(x.ofContentType(contentType)))
-														.toArray();
-								
-								if(this.areSuccessive(lastPositions, currentPositions)) {
-									PositionMap currentPositionMap = new EagerPositionMap();
-									currentPositionMap.put(contentType, currentPositions);
-									
-									newTokenPostings.put(currentToken, documentId, currentPositionMap);
-								}
-							}
-						}
-					}
-				}
-	
-				// Remove invalid, existing entries from result
-				Set<Integer> abadonedDocumentIds = Sets.difference(resultTokenPostings.documentIdSet(), newTokenPostings.documentIdSet()).immutableCopy();
-				for(int documentId: abadonedDocumentIds) {
-					resultTokenPostings.remove(documentId);
-				}
-				
-				// Insert new, valid postings to result
-				resultTokenPostings.putAll(newTokenPostings);
-				if(resultTokenPostings.isEmpty()) {
-					// If no phrases were found, return empty result
-					return new UnrankedQueryResult();
-				}
-				
-				// Add spelling corrections and collection frequencies
-				spellingCorrections.putAll(result.getSpellingCorrections());
-				collectionFrequencies.putAll(result.getCollectionFrequencies());
-				
-				// Overwrite lastPostings with new ones for the next iteration
-				lastTokenPostings = newTokenPostings; 
+			Map<String, PostingsIterator> iterators = this.getPostingsIterators(token, true, spellingCorrections, collectionFrequencies);
+			if(iterators.isEmpty()) {
+				// If a token is not present at all, no phrases can be found
+				return new UnrankedQueryResult();
 			}
+			tokenIterators.add(iterators);
 		}
 		
-		// If no phrases were found, return empty result
-		if(resultTokenPostings == null) {
+		// If no tokens are given, return empty result
+		if(tokenIterators.isEmpty()) {
 			return new UnrankedQueryResult();
 		}
 		
+		// Find documents, that contain all tokens, and check their positions
+		PhraseMatcher phraseMatcher = new PhraseMatcher(tokenIterators);
+		PostingTable resultTokenPostings = candidateDocumentIds != null ? phraseMatcher.match(candidateDocumentIds) : phraseMatcher.match();
+		
 		return new UnrankedQueryResult(resultTokenPostings, spellingCorrections, collectionFrequencies);
 	}
 	
-	/**
-	 * Determines, whether position1 contains at least one position that is predecessor of a position if positions2. 
-	 * @param posting1
-	 * @param posting2
-	 * @return boolean
-	 */
-	private boolean areSuccessive(int[] positions1, int[] positions2) {
-		return Arrays.stream(positions1)
-					.anyMatch(pos1 -> Arrays.stream(positions2)
-								.anyMatch(pos2 -> pos2 == pos1 + 1));
-	}
-	
-	
 	/**
 	 * Evaluates the given link to query.
 	 * @param query
@@ -348,6 +507,148 @@ public class QueryProcessor {
 		return UnrankedQueryResult.disjunct(results);
 	}
 	
+	/**
+	 * Evaluates the given keyword query document-at-a-time and only returns the documents with the highest weights.
+	 * If the index consists of multiple segments, the top documents of each segment are selected in parallel and merged afterwards. 
+	 * Weights are always based on the collection statistics of the whole index.
+	 * @param query
+	 * @param resultLimit
+	 * @return
+	 * @throws IOException
+	 */
+	private UnrankedQueryResult searchTopDocuments(KeywordQuery query, int resultLimit) throws IOException {
+		Map<String, String> spellingCorrections = new HashMap<String, String>();
+		TObjectIntMap<String> collectionFrequencies = new TObjectIntHashMap<String>();
+		
+		// Get posting iterators of all tokens per segment
+		int segmentsCount = this.invertedIndexReader.getSegmentsCount();
+		List<Map<String, PostingsIterator>> segmentIterators = new ArrayList<Map<String, PostingsIterator>>(segmentsCount);
+		for(int segment = 0; segment < segmentsCount; segment++) {
+			segmentIterators.add(new HashMap<String, PostingsIterator>());
+		}
+		for(String token: query.getQueryTokens()) {
+			try {
+				List<Map<String, PostingsIterator>> tokenIterators = this.getSegmentPostingsIterators(token, null, false, spellingCorrections, collectionFrequencies);
+				for(int segment = 0; segment < segmentsCount; segment++) {
+					segmentIterators.get(segment).putAll(tokenIterators.get(segment));
+				}
+			}
+			catch(IOException e) {
+				continue;
+			}
+		}
+		
+		// Get statistics of all tokens from the term dictionary
+		Map<String, TermStatistics> tokenStatistics = new HashMap<String, TermStatistics>();
+		for(Map<String, PostingsIterator> tokenIterators: segmentIterators) {
+			for(String token: tokenIterators.keySet()) {
+				tokenStatistics.computeIfAbsent(token, this.invertedIndexReader::getTermStatistics);
+			}
+		}
+		
+		// Select top documents
+		int collectionTokenCount = this.invertedIndexReader.getTotalTokenCount();
+		if(segmentsCount == 1) {
+			TopDocumentCollector collector = new TopDocumentCollector(resultLimit);
+			PostingTable postings = this.documentRanker.selectTopDocuments(segmentIterators.get(0), collector, tokenStatistics, collectionTokenCount);
+			
+			return new UnrankedQueryResult(postings, spellingCorrections, collectionFrequencies);
+		}
+		
+		List<Callable<Pair<TopDocumentCollector, PostingTable>>> segmentSearches = new ArrayList<Callable<Pair<TopDocumentCollector, PostingTable>>>(segmentsCount);
+		for(int segment = 0; segment < segmentsCount; segment++) {
+			DocumentRanker segmentRanker = this.documentRanker.forSegment(segment);
+			Map<String, PostingsIterator> tokenIterators = segmentIterators.get(segment);
+			segmentSearches.add(() -> {
+				TopDocumentCollector collector = new TopDocumentCollector(resultLimit);
+				return Pair.of(collector, segmentRanker.selectTopDocuments(tokenIterators, collector, tokenStatistics, collectionTokenCount));
+			});
+		}
+		PostingTable postings = this.mergeTopDocuments(this.invokeAll(segmentSearches), resultLimit);
+		
+		return new UnrankedQueryResult(postings, spellingCorrections, collectionFrequencies);
+	}
+	
+	/**
+	 * Merges the top documents of multiple index segments and returns the postings of the documents with the highest weights. 
+	 * If a document is contained in multiple segments, the first segment is preferred.
+	 * @param segmentResults
+	 * @param resultLimit
+	 * @return
+	 */
+	private PostingTable mergeTopDocuments(List<Pair<TopDocumentCollector, PostingTable>> segmentResults, int resultLimit) {
+		TopDocumentCollector collector = new TopDocumentCollector(resultLimit);
+		PostingTable collectedPostings = new PostingTable();
+		for(Pair<TopDocumentCollector, PostingTable> segmentResult: segmentResults) {
+			int[] documentIds = segmentResult.getLeft().getDocumentIds();
+			double[] scores = segmentResult.getLeft().getScores();
+			for(int i = 0; i < documentIds.length; i++) {
+				if(!collectedPostings.containsDocument(documentIds[i])) {
+					collector.collect(documentIds[i], scores[i]);
+					collectedPostings.putAll(documentIds[i], segmentResult.getRight().ofDocument(documentIds[i]));
+				}
+			}
+		}
+		
+		// Keep postings of selected documents only
+		PostingTable postings = new PostingTable();
+		for(int documentId: collector.getDocumentIds()) {
+			postings.putAll(documentId, collectedPostings.ofDocument(documentId));
+		}
+		
+		return postings;
+	}
+	
+	/**
+	 * Executes the given searches in parallel and returns their results in the same order.
+	 * @param searches
+	 * @return
+	 * @throws IOException
+	 */
+	private <T> List<T> invokeAll(List<Callable<T>> searches) throws IOException {
+		List<T> results = new ArrayList<T>(searches.size());
+		try {
+			for(Future<T> future: this.segmentSearchPool.invokeAll(searches)) {
+				results.add(future.get());
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Searching index segments was interrupted.", e);
+		} catch (ExecutionException e) {
+			if(e.getCause() instanceof IOException) {
+				throw (IOException)e.getCause();
+			}
+			throw new IOException(e.getCause());
+		}
+		
+		return results;
+	}
+	
+	/**
+	 * Evaluates the given keyword query, but only looks up those documents, that are part of the given result. 
+	 * Postings of other documents are skipped. If the given result is empty, the keyword query is evaluated completely.
+	 * @param query
+	 * @param candidateResult
+	 * @param loadPositions
+	 * @return
+	 * @throws IOException
+	 */
+	private UnrankedQueryResult searchWithin(KeywordQuery query, UnrankedQueryResult candidateResult, boolean loadPositions) throws IOException {
+		int[] candidateDocumentIds = candidateResult.documentIds();
+		if(candidateDocumentIds.length == 0) {
+			return this.search(query);
+		}
+		
+		// Search for tokens
+		List<String> queryTokens = query.getQueryTokens();
+		UnrankedQueryResult[] results = new UnrankedQueryResult[queryTokens.size()];
+		for(int i = 0; i < queryTokens.size(); i++) {
+			results[i] = this.searchToken(queryTokens.get(i), loadPositions, candidateDocumentIds);
+		}
+		
+		return UnrankedQueryResult.disjunct(results);
+	}
+	
 	
 	/**
 	 * Gets all postings of a given token from index.
@@ -366,56 +667,132 @@ public class QueryProcessor {
 	 * @return 
 	 */
 	private UnrankedQueryResult searchToken(String token, boolean loadPositions) {
-		return this.searchToken(token, null, loadPositions);
+		return this.searchToken(token, loadPositions, null);
 	}
 	
 	/**
-	 * Gets all postings of a given (possibly corrected) token from index. 
-	 * The original misspelled token has to be passed as second argument.
+	 * Gets the postings of a given token from index. If candidate document ids are given, only postings of these documents are returned.
 	 * @param token
-	 * @param misspelledToken
+	 * @param loadPositions
+	 * @param candidateDocumentIds Sorted array of document ids, or null if all postings should be returned
 	 * @return 
 	 */
-	private UnrankedQueryResult searchToken(String token, String misspelledToken, boolean loadPositions) {
+	private UnrankedQueryResult searchToken(String token, boolean loadPositions, int[] candidateDocumentIds) {
 		try {
-			// Stem token or remove wildcard character (if prefix search)
-			boolean prefixSearch = token.endsWith("*");
-			if(prefixSearch) {
-				token = token.substring(0, token.length() - 1);
-			}
-			else {
-				token = this.textPreprocessor.stem(token);
-			}
-			
-			// Get postings and collection frequencies
-			Pair<PostingTable, TObjectIntMap<String>> indexEntries = this.invertedIndexReader.getPostings(token, prefixSearch, loadPositions);
-			PostingTable postings = indexEntries.getLeft();
-			TObjectIntMap<String> collectionFrequencies = indexEntries.getRight();
+			Map<String, String> spellingCorrections = new HashMap<String, String>();
+			TObjectIntMap<String> collectionFrequencies = new TObjectIntHashMap<String>();
+			Map<String, PostingsIterator> iterators = this.getPostingsIterators(token, loadPositions, spellingCorrections, collectionFrequencies);
 			
-			// Spelling correction
-			if(!prefixSearch && postings.isEmpty()) {
-				String correctedToken = this.spellingCorrector.correctToken(token); 
-				if(correctedToken != null) {
-					return searchToken(correctedToken, token, loadPositions);
+			// Stream postings into table
+			PostingTable postings = new PostingTable();
+			for(Map.Entry<String, PostingsIterator> entry: iterators.entrySet()) {
+				PostingsIterator iterator = entry.getValue();
+				if(candidateDocumentIds == null) {
+					while(iterator.nextDocument() != PostingsIterator.NO_MORE_DOCUMENTS) {
+						postings.put(entry.getKey(), iterator.documentId(), iterator.positions());
+					}
+				}
+				else {
+					for(int documentId: candidateDocumentIds) {
+						if(iterator.advance(documentId) == PostingsIterator.NO_MORE_DOCUMENTS) {
+							break;
+						}
+						if(iterator.documentId() == documentId) {
+							postings.put(entry.getKey(), documentId, iterator.positions());
+						}
+					}
 				}
 			}
 			
-			// If token was corrected, include correction map to result
-			if(misspelledToken != null) {				
-				Map<String, String> spellingCorrections = new HashMap<String, String>();
-				spellingCorrections.put(token, misspelledToken);
-				
-				return new UnrankedQueryResult(postings, spellingCorrections, collectionFrequencies);				
-			}
-			
-			return new UnrankedQueryResult(postings, collectionFrequencies);
-			
+			return new UnrankedQueryResult(postings, spellingCorrections, collectionFrequencies);
 		}
 		catch(IOException e) {
 			return new UnrankedQueryResult();
 		}
 	}
 	
+	/**
+	 * Gets iterators over the postings of a given token from index. Spelling corrections and collection frequencies of the found tokens 
+	 * are added to the given maps.
+	 * @param token
+	 * @param loadPositions
+	 * @param spellingCorrections
+	 * @param collectionFrequencies
+	 * @return
+	 * @throws IOException
+	 */
+	private Map<String, PostingsIterator> getPostingsIterators(String token, boolean loadPositions, 
+			Map<String, String> spellingCorrections, TObjectIntMap<String> collectionFrequencies) throws IOException {
+		return this.getPostingsIterators(token, null, loadPositions, spellingCorrections, collectionFrequencies);
+	}
+	
+	/**
+	 * Gets iterators over the postings of a given (possibly corrected) token from index. 
+	 * The original misspelled token has to be passed as second argument.
+	 * @param token
+	 * @param misspelledToken
+	 * @param loadPositions
+	 * @param spellingCorrections
+	 * @param collectionFrequencies
+	 * @return
+	 * @throws IOException
+	 */
+	private Map<String, PostingsIterator> getPostingsIterators(String token, String misspelledToken, boolean loadPositions, 
+			Map<String, String> spellingCorrections, TObjectIntMap<String> collectionFrequencies) throws IOException {
+		return MultiPostingsIterator.merge(this.getSegmentPostingsIterators(token, misspelledToken, loadPositions, spellingCorrections, collectionFrequencies));
+	}
+	
+	/**
+	 * Gets iterators over the postings of a given (possibly corrected) token separately for each index segment. 
+	 * The original misspelled token has to be passed as second argument. Collection frequencies are summed up over all segments.
+	 * @param token
+	 * @param misspelledToken
+	 * @param loadPositions
+	 * @param spellingCorrections
+	 * @param collectionFrequencies
+	 * @return
+	 * @throws IOException
+	 */
+	private List<Map<String, PostingsIterator>> getSegmentPostingsIterators(String token, String misspelledToken, boolean loadPositions, 
+			Map<String, String> spellingCorrections, TObjectIntMap<String> collectionFrequencies) throws IOException {
+		// Stem token or remove wildcard character (if prefix search)
+		boolean prefixSearch = token.endsWith("*");
+		if(prefixSearch) {
+			token = token.substring(0, token.length() - 1);
+		}
+		else {
+			token = this.textPreprocessor.stem(token);
+		}
+		
+		// Get posting iterators
+		List<Map<String, PostingsIterator>> segmentIterators = this.invertedIndexReader.getSegmentPostingsIterators(token, prefixSearch, loadPositions);
+		
+		// Spelling correction
+		if(!prefixSearch && segmentIterators.stream().allMatch(Map::isEmpty)) {
+			String correctedToken = this.spellingCorrector.correctToken(token); 
+			if(correctedToken != null) {
+				return this.getSegmentPostingsIterators(correctedToken, token, loadPositions, spellingCorrections, collectionFrequencies);
+			}
+		}
+		
+		// If token was corrected, include correction
+		if(misspelledToken != null) {
+			spellingCorrections.put(token, misspelledToken);
+		}
+		
+		// Add collection frequencies of all segments
+		TObjectIntMap<String> tokenCollectionFrequencies = new TObjectIntHashMap<String>();
+		for(Map<String, PostingsIterator> iterators: segmentIterators) {
+			for(Map.Entry<String, PostingsIterator> entry: iterators.entrySet()) {
+				int occurrencesCount = entry.getValue().getTotalOccurrencesCount();
+				tokenCollectionFrequencies.adjustOrPutValue(entry.getKey(), occurrencesCount, occurrencesCount);
+			}
+		}
+		collectionFrequencies.putAll(tokenCollectionFrequencies);
+		
+		return segmentIterators;
+	}
+	
 	
 	/**
 	 * Extend the query by most frequent tokens of the snippets of the top documents of the original query (pseudo relevance feedback).
@@ -464,4 +841,14 @@ public class QueryProcessor {
 				.limit(limit)
 				.collect(Collectors.toList());
 	}
+	
+	
+	/**
+	 * Stops the threads, that evaluate queries on multiple index segments in parallel. 
+	 * Queries can not be evaluated afterwards. The index readers are not closed, since they are owned by the caller.
+	 */
+	@Override
+	public void close() {
+		this.segmentSearchPool.shutdown();
+	}
 }
@@ -0,0 +1,229 @@
+package querying.phrases;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import gnu.trove.list.TIntList;
+import gnu.trove.list.array.TIntArrayList;
+import postings.ContentType;
+import postings.DocumentPostings;
+import postings.PostingTable;
+import postings.PostingsIterator;
+import postings.positions.EagerPositionMap;
+import postings.positions.PositionMap;
+import utilities.SortedIntArrays;
+
+public class PhraseMatcher {
+
+	/**
+	 * Contains the postings iterators per phrase token. Each token may have multiple variants (e.g. due to prefix search or spelling correction).
+	 */
+	private final List<Map<String, PostingsIterator>> tokenIterators;
+	
+	
+	/**
+	 * Creates a new PhraseMatcher instance.
+	 * @param tokenIterators Postings iterators of all variants per phrase token, ordered as in the phrase
+	 */
+	public PhraseMatcher(List<Map<String, PostingsIterator>> tokenIterators) {
+		this.tokenIterators = tokenIterators;
+	}
+	
+	
+	/**
+	 * Finds all documents containing the phrase. Document ids of all tokens are intersected first,
+	 * so that only positions of documents containing all tokens are decoded.
+	 * The resulting table contains only those positions, that belong to an occurrence of the phrase.
+	 * @return
+	 * @throws IOException
+	 */
+	public PostingTable match() throws IOException {
+		PostingTable result = new PostingTable();
+		if(this.tokenIterators.isEmpty()) {
+			return result;
+		}
+		
+		int documentId = this.advance(this.tokenIterators.get(0).values(), 0);
+		while(documentId != PostingsIterator.NO_MORE_DOCUMENTS) {
+			int nextDocumentId = documentId;
+			for(int i = 1; i < this.tokenIterators.size() && nextDocumentId == documentId; i++) {
+				nextDocumentId = this.advance(this.tokenIterators.get(i).values(), documentId);
+			}
+			
+			if(nextDocumentId == documentId) {
+				// All tokens are present in the current document
+				DocumentPostings documentPostings = this.matchDocument(documentId);
+				if(documentPostings != null) {
+					result.putAll(documentId, documentPostings);
+				}
+				nextDocumentId = documentId + 1;
+			}
+			
+			documentId = this.advance(this.tokenIterators.get(0).values(), nextDocumentId);
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * Finds the documents containing the phrase among the given candidates. Postings of other documents are skipped.
+	 * @param candidateDocumentIds Sorted array of document ids
+	 * @return
+	 * @throws IOException
+	 */
+	public PostingTable match(int[] candidateDocumentIds) throws IOException {
+		PostingTable result = new PostingTable();
+		if(this.tokenIterators.isEmpty()) {
+			return result;
+		}
+		
+		for(int candidateDocumentId: candidateDocumentIds) {
+			int documentId = candidateDocumentId;
+			for(int i = 0; i < this.tokenIterators.size() && documentId == candidateDocumentId; i++) {
+				documentId = this.advance(this.tokenIterators.get(i).values(), candidateDocumentId);
+			}
+			if(documentId == PostingsIterator.NO_MORE_DOCUMENTS) {
+				break;
+			}
+			
+			if(documentId == candidateDocumentId) {
+				// All tokens are present in the candidate document
+				DocumentPostings documentPostings = this.matchDocument(candidateDocumentId);
+				if(documentPostings != null) {
+					result.putAll(candidateDocumentId, documentPostings);
+				}
+			}
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * Checks, whether the phrase occurs in the given document, which has to be the current document of the iterators.
+	 * Returns the postings of the phrase occurrences, or null if the phrase does not occur.
+	 * @param documentId
+	 * @return
+	 * @throws IOException
+	 */
+	private DocumentPostings matchDocument(int documentId) throws IOException {
+		// Get positions of all token variants present in the current document
+		List<Map<String, PositionMap>> tokenPositions = new ArrayList<Map<String, PositionMap>>(this.tokenIterators.size());
+		for(Map<String, PostingsIterator> iterators: this.tokenIterators) {
+			Map<String, PositionMap> variantPositions = new HashMap<String, PositionMap>();
+			for(Map.Entry<String, PostingsIterator> entry: iterators.entrySet()) {
+				if(entry.getValue().documentId() == documentId) {
+					variantPositions.put(entry.getKey(), entry.getValue().positions());
+				}
+			}
+			tokenPositions.add(variantPositions);
+		}
+		
+		Map<String, PositionMap> postings = new HashMap<String, PositionMap>();
+		for(ContentType contentType: ContentType.orderedValues()) {
+			// Merge positions of all variants per token
+			int[][] positions = new int[tokenPositions.size()][];
+			for(int i = 0; i < tokenPositions.size(); i++) {
+				int[][] variantPositions = tokenPositions.get(i).values().stream()
+												.map(x -> x.ofContentType(contentType))
+												.toArray(int[][]::new);
+				positions[i] = SortedIntArrays.union(variantPositions);
+			}
+			
+			int[] phraseStarts = findPhraseStarts(positions);
+			if(phraseStarts.length == 0) {
+				continue;
+			}
+			
+			// Add positions of phrase occurrences to the variants they belong to
+			for(int i = 0; i < tokenPositions.size(); i++) {
+				int[] occurrencePositions = new int[phraseStarts.length];
+				for(int j = 0; j < phraseStarts.length; j++) {
+					occurrencePositions[j] = phraseStarts[j] + i;
+				}
+				
+				for(Map.Entry<String, PositionMap> entry: tokenPositions.get(i).entrySet()) {
+					int[] matchedPositions = SortedIntArrays.intersect(entry.getValue().ofContentType(contentType), occurrencePositions);
+					if(matchedPositions.length > 0) {
+						postings.putIfAbsent(entry.getKey(), new EagerPositionMap());
+						postings.get(entry.getKey()).put(contentType, matchedPositions);
+					}
+				}
+			}
+		}
+		
+		if(postings.isEmpty()) {
+			return null;
+		}
+		
+		return new DocumentPostings(postings);
+	}
+	
+	/**
+	 * Finds all positions, at which the phrase starts. The sorted position arrays of all tokens are walked simultaneously in a single linear pass:
+	 * A candidate start position is verified token by token. If a token does not occur at the expected position,
+	 * the candidate is moved forward to the next position of this token.
+	 * @param positions Sorted positions per phrase token
+	 * @return
+	 */
+	private static int[] findPhraseStarts(int[][] positions) {
+		for(int[] tokenPositions: positions) {
+			if(tokenPositions.length == 0) {
+				return new int[0];
+			}
+		}
+		
+		TIntList phraseStarts = new TIntArrayList();
+		int[] offsets = new int[positions.length];
+		int start = positions[0][0];
+		int matchedTokensCount = 0;
+		for(int i = 0; ; i = (i + 1) % positions.length) {
+			// Move to first position of the current token, that is not less than the expected one
+			int[] tokenPositions = positions[i];
+			int expectedPosition = start + i;
+			while(offsets[i] < tokenPositions.length && tokenPositions[offsets[i]] < expectedPosition) {
+				offsets[i]++;
+			}
+			if(offsets[i] >= tokenPositions.length) {
+				break;
+			}
+			
+			if(tokenPositions[offsets[i]] == expectedPosition) {
+				matchedTokensCount++;
+			}
+			else {
+				// Move candidate, so that it is aligned with the current token
+				start = tokenPositions[offsets[i]] - i;
+				matchedTokensCount = 1;
+			}
+			
+			// If all tokens have been verified for the current candidate, the phrase occurs
+			if(matchedTokensCount == positions.length) {
+				phraseStarts.add(start);
+				start++;
+				matchedTokensCount = 0;
+			}
+		}
+		
+		return phraseStarts.toArray();
+	}
+	
+	/**
+	 * Advances all given iterators to the given target document and returns the smallest resulting document id.
+	 * @param iterators
+	 * @param targetDocumentId
+	 * @return
+	 * @throws IOException
+	 */
+	private int advance(Collection<PostingsIterator> iterators, int targetDocumentId) throws IOException {
+		int documentId = PostingsIterator.NO_MORE_DOCUMENTS;
+		for(PostingsIterator iterator: iterators) {
+			documentId = Math.min(documentId, iterator.advance(targetDocumentId));
+		}
+		
+		return documentId;
+	}
+}
@@ -0,0 +1,183 @@
+package querying.planning;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import querying.queries.BooleanOperator;
+import querying.queries.Query;
+
+public class QueryPlan {
+
+	/**
+	 * Contains the operator of the node. Leaves, that evaluate a single query, do not have an operator.
+	 */
+	private final BooleanOperator operator;
+
+	/**
+	 * Contains the query evaluated by a leaf.
+	 */
+	private final Query query;
+
+	/**
+	 * Contains the operands of the node. Operands of conjunctions are ordered by ascending cost, so that the rarest operand is evaluated first.
+	 */
+	private final List<QueryPlan> operands;
+
+	/**
+	 * Contains the operands of a conjunction, whose documents are removed from the result.
+	 * They are only evaluated on the documents, that match all other operands.
+	 */
+	private final List<QueryPlan> excludedOperands;
+
+	/**
+	 * Contains the estimated number of documents matching the node.
+	 */
+	private final long cost;
+
+
+	/**
+	 * Creates a new QueryPlan instance.
+	 * @param operator
+	 * @param query
+	 * @param operands
+	 * @param excludedOperands
+	 * @param cost
+	 */
+	private QueryPlan(BooleanOperator operator, Query query, List<QueryPlan> operands, List<QueryPlan> excludedOperands, long cost) {
+		this.operator = operator;
+		this.query = query;
+		this.operands = operands;
+		this.excludedOperands = excludedOperands;
+		this.cost = cost;
+	}
+
+
+	/**
+	 * Creates a leaf, that evaluates the given query.
+	 * @param query
+	 * @param cost
+	 * @return
+	 */
+	public static QueryPlan leaf(Query query, long cost) {
+		return new QueryPlan(null, query, Collections.emptyList(), Collections.emptyList(), cost);
+	}
+
+	/**
+	 * Creates a conjunction of the given operands, that excludes the documents of the given excluded operands.
+	 * Operands are ordered by ascending cost. The cost of the conjunction is the cost of its rarest operand.
+	 * @param operands
+	 * @param excludedOperands
+	 * @return
+	 */
+	public static QueryPlan conjunction(List<QueryPlan> operands, List<QueryPlan> excludedOperands) {
+		List<QueryPlan> sortedOperands = new ArrayList<QueryPlan>(operands);
+		sortedOperands.sort((plan1, plan2) -> Long.compare(plan1.getCost(), plan2.getCost()));
+		List<QueryPlan> sortedExcludedOperands = new ArrayList<QueryPlan>(excludedOperands);
+		sortedExcludedOperands.sort((plan1, plan2) -> Long.compare(plan1.getCost(), plan2.getCost()));
+		long cost = sortedOperands.isEmpty() ? 0 : sortedOperands.get(0).getCost();
+
+		return new QueryPlan(BooleanOperator.And, null, sortedOperands, sortedExcludedOperands, cost);
+	}
+
+	/**
+	 * Creates a disjunction of the given operands. The cost of the disjunction is the sum of the costs of its operands.
+	 * @param operands
+	 * @return
+	 */
+	public static QueryPlan disjunction(List<QueryPlan> operands) {
+		long cost = operands.stream()
+						.mapToLong(QueryPlan::getCost)
+						.sum();
+
+		return new QueryPlan(BooleanOperator.Or, null, new ArrayList<QueryPlan>(operands), Collections.emptyList(), cost);
+	}
+
+
+	/**
+	 * Determines, whether the plan evaluates a single query.
+	 * @return
+	 */
+	public boolean isLeaf() {
+		return this.operator == null;
+	}
+
+	/**
+	 * Gets the operator of the node. Returns null for leaves.
+	 * @return
+	 */
+	public BooleanOperator getOperator() {
+		return this.operator;
+	}
+
+	/**
+	 * Gets the query evaluated by a leaf. Returns null for other nodes.
+	 * @return
+	 */
+	public Query getQuery() {
+		return this.query;
+	}
+
+	/**
+	 * Gets the operands in the order, they are evaluated.
+	 * @return
+	 */
+	public List<QueryPlan> getOperands() {
+		return this.operands;
+	}
+
+	/**
+	 * Gets the operands of a conjunction, whose documents are removed from the result, in the order, they are evaluated.
+	 * @return
+	 */
+	public List<QueryPlan> getExcludedOperands() {
+		return this.excludedOperands;
+	}
+
+	/**
+	 * Gets the estimated number of documents matching the plan.
+	 * @return
+	 */
+	public long getCost() {
+		return this.cost;
+	}
+
+
+	/**
+	 * Describes the plan as indented tree, that lists the nodes in the order, they are evaluated.
+	 * @return
+	 */
+	public String explain() {
+		StringBuilder builder = new StringBuilder();
+		this.explain(builder, "", "");
+
+		return builder.toString();
+	}
+
+	/**
+	 * Appends the description of the plan to the given builder.
+	 * @param builder
+	 * @param indentation
+	 * @param prefix
+	 */
+	private void explain(StringBuilder builder, String indentation, String prefix) {
+		builder.append(indentation).append(prefix);
+		if(this.isLeaf()) {
+			builder.append(String.format("%s %s (cost %d)%n", this.query.getType(), this.query, this.cost));
+			return;
+		}
+
+		builder.append(String.format("%s (cost %d)%n", this.operator.toString().toUpperCase(), this.cost));
+		for(QueryPlan operand: this.operands) {
+			operand.explain(builder, indentation + "  ", "");
+		}
+		for(QueryPlan excludedOperand: this.excludedOperands) {
+			excludedOperand.explain(builder, indentation + "  ", "NOT ");
+		}
+	}
+
+	@Override
+	public String toString() {
+		return this.explain();
+	}
+}
@@ -0,0 +1,201 @@
+package querying.planning;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import indexing.invertedindex.InvertedIndexReader;
+import postings.TermStatistics;
+import querying.queries.BooleanOperator;
+import querying.queries.BooleanQuery;
+import querying.queries.KeywordQuery;
+import querying.queries.LinkToQuery;
+import querying.queries.MixedQuery;
+import querying.queries.PhraseQuery;
+import querying.queries.Query;
+import textprocessing.TextPreprocessor;
+
+public class QueryPlanner {
+
+	/**
+	 * Contains the estimated cost of a link to query, which only requires a single lookup in the citation index.
+	 */
+	private static final long LINK_TO_QUERY_COST = 1;
+
+	/**
+	 * Contains necessary services.
+	 */
+	private final InvertedIndexReader invertedIndexReader;
+	private final TextPreprocessor textPreprocessor;
+
+
+	/**
+	 * Creates a new QueryPlanner instance.
+	 * @param invertedIndexReader
+	 * @param textPreprocessor
+	 */
+	public QueryPlanner(InvertedIndexReader invertedIndexReader, TextPreprocessor textPreprocessor) {
+		this.invertedIndexReader = invertedIndexReader;
+		this.textPreprocessor = textPreprocessor;
+	}
+
+
+	/**
+	 * Creates the plan for the given query. Nested boolean queries are flattened into conjunctions and disjunctions with any number of operands.
+	 * Negated operands become exclusions of the enclosing conjunction. Costs are estimated using the term statistics of the index only.
+	 * @param query
+	 * @return
+	 */
+	public QueryPlan plan(Query query) {
+		if(query.getType() != BooleanQuery.TYPE) {
+			return QueryPlan.leaf(query, this.estimateCost(query));
+		}
+
+		BooleanQuery booleanQuery = (BooleanQuery)query;
+		QueryPlan leftPlan = this.plan(booleanQuery.getLeftQuery());
+		QueryPlan rightPlan = this.plan(booleanQuery.getRightQuery());
+		switch(booleanQuery.getOperator()) {
+			case And:
+				return this.planConjunction(leftPlan, rightPlan, false);
+
+			case Not:
+				return this.planConjunction(leftPlan, rightPlan, true);
+
+			case Or:
+				return this.planDisjunction(leftPlan, rightPlan);
+
+			default:
+				return QueryPlan.conjunction(new ArrayList<QueryPlan>(), new ArrayList<QueryPlan>());
+		}
+	}
+
+
+	/**
+	 * Creates a conjunction of the given plans. If negateRight is set, the documents of the right plan are excluded instead.
+	 * Operands, that are conjunctions themselves, are merged into the new conjunction.
+	 * @param leftPlan
+	 * @param rightPlan
+	 * @param negateRight
+	 * @return
+	 */
+	private QueryPlan planConjunction(QueryPlan leftPlan, QueryPlan rightPlan, boolean negateRight) {
+		List<QueryPlan> operands = new ArrayList<QueryPlan>();
+		List<QueryPlan> excludedOperands = new ArrayList<QueryPlan>();
+		this.addConjunctionOperand(leftPlan, operands, excludedOperands);
+		if(!negateRight) {
+			this.addConjunctionOperand(rightPlan, operands, excludedOperands);
+		}
+		else if(rightPlan.getOperator() == BooleanOperator.Or) {
+			// Excluding a disjunction equals excluding each of its operands
+			excludedOperands.addAll(rightPlan.getOperands());
+		}
+		else {
+			excludedOperands.add(rightPlan);
+		}
+
+		// A conjunction of a single operand is the operand itself
+		if(operands.size() == 1 && excludedOperands.isEmpty()) {
+			return operands.get(0);
+		}
+
+		return QueryPlan.conjunction(operands, excludedOperands);
+	}
+
+	/**
+	 * Adds the given plan to the operands of a conjunction. Keyword queries without any tokens (e.g. consisting of stop words only)
+	 * do not restrict the result, so they are omitted.
+	 * @param plan
+	 * @param operands
+	 * @param excludedOperands
+	 */
+	private void addConjunctionOperand(QueryPlan plan, List<QueryPlan> operands, List<QueryPlan> excludedOperands) {
+		if(plan.getOperator() == BooleanOperator.And) {
+			operands.addAll(plan.getOperands());
+			excludedOperands.addAll(plan.getExcludedOperands());
+		}
+		else if(!this.isEmptyKeywordQuery(plan)) {
+			operands.add(plan);
+		}
+	}
+
+	/**
+	 * Creates a disjunction of the given plans. Operands, that are disjunctions themselves, are merged into the new disjunction.
+	 * @param leftPlan
+	 * @param rightPlan
+	 * @return
+	 */
+	private QueryPlan planDisjunction(QueryPlan leftPlan, QueryPlan rightPlan) {
+		List<QueryPlan> operands = new ArrayList<QueryPlan>();
+		for(QueryPlan plan: Arrays.asList(leftPlan, rightPlan)) {
+			if(plan.getOperator() == BooleanOperator.Or) {
+				operands.addAll(plan.getOperands());
+			}
+			else {
+				operands.add(plan);
+			}
+		}
+
+		return QueryPlan.disjunction(operands);
+	}
+
+	/**
+	 * Determines, whether the given plan evaluates a keyword query without any tokens.
+	 * @param plan
+	 * @return
+	 */
+	private boolean isEmptyKeywordQuery(QueryPlan plan) {
+		return plan.isLeaf()
+				&& plan.getQuery().getType() == KeywordQuery.TYPE
+				&& ((KeywordQuery)plan.getQuery()).getQueryTokens().isEmpty();
+	}
+
+
+	/**
+	 * Estimates the number of documents matching the given query, that is not a boolean query.
+	 * @param query
+	 * @return
+	 */
+	private long estimateCost(Query query) {
+		switch(query.getType()) {
+			case KeywordQuery.TYPE:
+				// Documents containing any of the tokens
+				return ((KeywordQuery)query).getQueryTokens().stream()
+						.mapToLong(this::getDocumentFrequency)
+						.sum();
+
+			case PhraseQuery.TYPE:
+				// Documents containing all of the tokens
+				return ((PhraseQuery)query).getQueryTokens().stream()
+						.mapToLong(this::getDocumentFrequency)
+						.min()
+						.orElse(0);
+
+			case MixedQuery.TYPE:
+				return Arrays.stream(((MixedQuery)query).getQueries())
+						.mapToLong(this::estimateCost)
+						.sum();
+
+			case LinkToQuery.TYPE:
+				return LINK_TO_QUERY_COST;
+
+			default:
+				return 0;
+		}
+	}
+
+	/**
+	 * Gets the number of documents containing the given query token. Tokens ending with a wildcard character
+	 * are looked up using prefix search, other tokens are stemmed like during query evaluation.
+	 * @param token
+	 * @return
+	 */
+	private long getDocumentFrequency(String token) {
+		if(token.endsWith("*")) {
+			return this.invertedIndexReader.getTermStatistics(token.substring(0, token.length() - 1), true).values().stream()
+					.mapToLong(TermStatistics::getDocumentFrequency)
+					.sum();
+		}
+
+		return this.invertedIndexReader.getTermStatistics(this.textPreprocessor.stem(token)).getDocumentFrequency();
+	}
+}
@@ -35,4 +35,9 @@ public class LinkToQuery implements Query {
 	public String getType() {
 		return TYPE;
 	}
+	
+	@Override
+	public String toString() {
+		return Integer.toString(this.getDocumentId());
+	}
 }
@@ -3,13 +3,12 @@ package querying.ranking;
 
 import java.io.IOException;
 import java.util.Arrays;
-import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
-import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import com.google.common.collect.Sets;
@@ -19,11 +18,12 @@ import indexing.documentmap.DocumentMapReader;
 import postings.ContentType;
 import postings.DocumentPostings;
 import postings.PostingTable;
+import postings.PostingsIterator;
+import postings.TermStatistics;
 import postings.positions.PositionMap;
 import querying.results.QueryResult;
 import querying.results.RankedQueryResult;
 import querying.results.UnrankedQueryResult;
-import utilities.MapValueComparator;
 
 public class DocumentRanker {
 	
@@ -52,6 +52,16 @@ public class DocumentRanker {
 	}
 
 	
+	/**
+	 * Gets a ranker, that only loads documents from the given index segment. Rankers of different segments can be used concurrently.
+	 * @param segment
+	 * @return
+	 */
+	public DocumentRanker forSegment(int segment) {
+		return new DocumentRanker(this.documentMapReader.getSegmentReader(segment));
+	}
+
+	
 	/**
 	 * Weights the given query result using query-likelihood and page rank measures.
 	 * @param result
@@ -60,40 +70,107 @@ public class DocumentRanker {
 	 * @return
 	 */
 	public RankedQueryResult weightResult(UnrankedQueryResult result, int resultLimit, int collectionTokenCount) {
-		PostingTable resultPostings = result.getPostings();
+		// Weight all candidates, so that documents matching only some of the query tokens are ranked by their weight as well
+		Set<Integer> rankingDocumentIds = Sets.union(result.getPostings().documentIdSet(), result.getLinkingDocuments());
 		
-		// Narrow range of document to the ones, which contain most of the query tokens
-		Set<Integer> rankingDocumentIds = resultPostings.documentIdSet();
-		if(rankingDocumentIds.size() > resultLimit) {
-			int i = resultPostings.tokenSet().size();
-			rankingDocumentIds = new HashSet<Integer>();
-			while(rankingDocumentIds.size() < resultLimit && i > 0)
-			{
-				final int count = i;
-				rankingDocumentIds.addAll(resultPostings.documentIdSet().stream()
-													.filter(document -> resultPostings.ofDocument(document).tokenSet().size() == count)
-													.collect(Collectors.toSet()));
-				i--;
+		// Calculate weights for each document and keep the ones with highest weights
+		TopDocumentCollector collector = new TopDocumentCollector(this.getCollectorLimit(resultLimit, rankingDocumentIds.size()));
+		for(int documentId: rankingDocumentIds) {
+			int[] tokensCounts = this.loadTokensCounts(documentId);
+			if(tokensCounts != null) {
+				collector.collect(documentId, this.weightDocument(documentId, tokensCounts, result, collectionTokenCount));
 			}
 		}
-		rankingDocumentIds = Sets.union(rankingDocumentIds, result.getLinkingDocuments());
 		
-		// Calculate weights for each document
-		Map<PatentDocument, Double> weights = rankingDocumentIds.stream()
-													.map(this::loadDocument)
-													.filter(Objects::nonNull)
-													.collect(Collectors.toMap(
-															Function.identity(), 
-															document -> this.weightDocument(document, result, collectionTokenCount)));
+		return this.buildRankedResult(result, this.loadDocuments(collector.getDocumentIds()));
+	}
+	
+	/**
+	 * Selects the documents with the highest query-likelihood-weight for the given token postings using the WAND algorithm. 
+	 * Documents, whose upper bound score cannot exceed the score of the currently collected documents, are skipped without loading them.
+	 * Selected documents are added to the given collector and their postings are returned. Statistics of the tokens are taken from 
+	 * the term dictionary of the whole index, so that the postings of a single index segment are weighted like in the whole index 
+	 * and upper bounds are known without reading any postings.
+	 * @param tokenIterators
+	 * @param collector
+	 * @param tokenStatistics
+	 * @param collectionTokenCount
+	 * @return
+	 * @throws IOException
+	 */
+	public PostingTable selectTopDocuments(Map<String, PostingsIterator> tokenIterators, TopDocumentCollector collector, 
+			Map<String, TermStatistics> tokenStatistics, int collectionTokenCount) throws IOException {
+		// Initialize cursors with their upper bounds
+		String[] tokens = tokenIterators.keySet().toArray(new String[tokenIterators.size()]);
+		PostingsIterator[] iterators = new PostingsIterator[tokens.length];
+		int[] tokenCollectionFrequencies = new int[tokens.length];
+		double[] upperBounds = new double[tokens.length];
+		for(int i = 0; i < tokens.length; i++) {
+			TermStatistics statistics = tokenStatistics.getOrDefault(tokens[i], TermStatistics.EMPTY);
+			iterators[i] = tokenIterators.get(tokens[i]);
+			tokenCollectionFrequencies[i] = statistics.getCollectionFrequency();
+			upperBounds[i] = this.getUpperBound(statistics, collectionTokenCount);
+			iterators[i].nextDocument();
+		}
+		
+		Map<Integer, Map<String, PositionMap>> collectedPostings = new HashMap<Integer, Map<String, PositionMap>>();
+		while(true) {
+			this.sortByDocumentId(tokens, iterators, tokenCollectionFrequencies, upperBounds);
+			
+			// Find pivot, which is the first cursor, at which the sum of upper bounds reaches the threshold
+			double threshold = collector.getThreshold();
+			double upperBoundSum = 0;
+			int pivot = -1;
+			for(int i = 0; i < iterators.length && iterators[i].documentId() != PostingsIterator.NO_MORE_DOCUMENTS; i++) {
+				upperBoundSum += upperBounds[i];
+				if(upperBoundSum >= threshold) {
+					pivot = i;
+					break;
+				}
+			}
+			if(pivot < 0) {
+				break;
+			}
+			
+			int pivotDocumentId = iterators[pivot].documentId();
+			if(iterators[0].documentId() == pivotDocumentId) {
+				// All preceding cursors are positioned on the pivot document, so calculate its actual weight
+				int[] tokensCounts = this.loadTokensCounts(pivotDocumentId);
+				if(tokensCounts != null) {
+					Map<String, PositionMap> documentPostings = new HashMap<String, PositionMap>();
+					double weight = 0;
+					for(int i = 0; i < iterators.length && iterators[i].documentId() == pivotDocumentId; i++) {
+						weight += this.weightToken(tokensCounts, iterators[i], tokenCollectionFrequencies[i], collectionTokenCount);
+						documentPostings.put(tokens[i], iterators[i].positions());
+					}
+					
+					int removedDocumentId = collector.collect(pivotDocumentId, weight);
+					if(removedDocumentId != pivotDocumentId) {
+						collectedPostings.put(pivotDocumentId, documentPostings);
+						collectedPostings.remove(removedDocumentId);
+					}
+				}
+				
+				// Move on to next documents
+				for(int i = 0; i < iterators.length && iterators[i].documentId() == pivotDocumentId; i++) {
+					iterators[i].nextDocument();
+				}
+			}
+			else {
+				// Documents before the pivot document cannot reach the threshold, so skip them
+				for(int i = 0; i < pivot; i++) {
+					iterators[i].advance(pivotDocumentId);
+				}
+			}
+		}
 		
-		// Sort documents by weight and limit to given parameter
-		List<PatentDocument> rankedDocuments = weights.entrySet().stream()
-													.sorted(MapValueComparator.reverse())
-													.limit(resultLimit)
-													.map(e -> e.getKey())
-													.collect(Collectors.toList());
+		// Build postings of selected documents
+		PostingTable postings = new PostingTable();
+		for(int documentId: collector.getDocumentIds()) {
+			postings.putAll(documentId, new DocumentPostings(collectedPostings.get(documentId)));
+		}
 		
-		return this.buildRankedResult(result, rankedDocuments);
+		return postings;
 	}
 	
 	/**
@@ -103,14 +180,28 @@ public class DocumentRanker {
 	 * @return
 	 */
 	public RankedQueryResult limitResult(UnrankedQueryResult result, int resultLimit) {
-		List<PatentDocument> documents = Sets.union(result.getPostings().documentIdSet(), result.getLinkingDocuments()).stream()
-												.sorted(Collections.reverseOrder())
-												.limit(resultLimit)
-												.map(this::loadDocument)
-												.filter(Objects::nonNull)
-												.collect(Collectors.toList());
+		// Keep documents with highest ids
+		Set<Integer> documentIds = Sets.union(result.getPostings().documentIdSet(), result.getLinkingDocuments());
+		TopDocumentCollector collector = new TopDocumentCollector(this.getCollectorLimit(resultLimit, documentIds.size()));
+		for(int documentId: documentIds) {
+			collector.collect(documentId, documentId);
+		}
+		
+		return this.buildRankedResult(result, this.loadDocuments(collector.getDocumentIds()));
+	}
+	
+	/**
+	 * Gets the number of documents, that have to be collected for the given result limit. If the limit is less than 0, all documents are collected.
+	 * @param resultLimit
+	 * @param documentsCount
+	 * @return
+	 */
+	private int getCollectorLimit(int resultLimit, int documentsCount) {
+		if(resultLimit < 0) {
+			return documentsCount;
+		}
 		
-		return this.buildRankedResult(result, documents);
+		return Math.min(resultLimit, documentsCount);
 	}
 	
 	
@@ -127,19 +218,44 @@ public class DocumentRanker {
 		}
 	}
 	
+	/**
+	 * Loads the given documents from document map. Documents, that cannot be loaded, are skipped.
+	 * @param documentIds
+	 * @return
+	 */
+	private List<PatentDocument> loadDocuments(int[] documentIds) {
+		return Arrays.stream(documentIds)
+				.mapToObj(this::loadDocument)
+				.filter(Objects::nonNull)
+				.collect(Collectors.toList());
+	}
+	
+	/**
+	 * Loads the number of tokens per content type of the specified document from document map.
+	 * @param documentId
+	 * @return
+	 */
+	private int[] loadTokensCounts(int documentId) {
+		try {
+			return this.documentMapReader.getTokensCounts(documentId);
+		} catch (IOException e) {
+			return null;
+		}
+	}
+	
 	/**
 	 * Calculates the query-likelihood-weight for a given document.
-	 * @param document
-	 * @param tokenPostings
+	 * @param documentId
+	 * @param tokensCounts
 	 * @param result
 	 * @param collectionTokenCount
 	 * @return
 	 */	
-	private double weightDocument(PatentDocument document, UnrankedQueryResult result, int collectionTokenCount) {
+	private double weightDocument(int documentId, int[] tokensCounts, UnrankedQueryResult result, int collectionTokenCount) {
 		// Calculate weight of tokens
 		double tokenWeight = Arrays.stream(ContentType.values())
 								.mapToDouble(contentType -> contentType.getWeightingFactor() * 
-															this.weightDocumentByTokens(document, contentType, result, collectionTokenCount))
+															this.weightDocumentByTokens(documentId, tokensCounts[contentType.ordinal()], contentType, result, collectionTokenCount))
 								.sum();
 		
 		return tokenWeight;
@@ -147,25 +263,91 @@ public class DocumentRanker {
 	
 	/**
 	 * Calculates the query-likelihood-weight for a specific content type of a given document.
-	 * @param document
-	 * @param tokenPostings
+	 * @param documentId
+	 * @param tokensCount
+	 * @param contentType
 	 * @param result
 	 * @param collectionTokenCount
 	 * @return
 	 */	
-	private double weightDocumentByTokens(PatentDocument document, ContentType contentType, UnrankedQueryResult result, int collectionTokenCount) {
-		DocumentPostings documentPostings = result.getPostings().ofDocument(document.getId());
+	private double weightDocumentByTokens(int documentId, int tokensCount, ContentType contentType, UnrankedQueryResult result, int collectionTokenCount) {
+		DocumentPostings documentPostings = result.getPostings().ofDocument(documentId);
 		return result.getPostings().tokenSet().stream()
 						.mapToDouble(token -> this.getPrfFactor(token, result) * 
 											  this.queryLikelihood(
 												this.countTokenOccurrences(token, documentPostings, contentType), 
-												document.getTokensCount(contentType), 
+												tokensCount, 
 												result.getCollectionFrequencies().get(token), 
 												collectionTokenCount))
 						.map(Math::log)
 						.sum();
 	}
 	
+	/**
+	 * Calculates the amount, by which the token of the given iterator increases the query-likelihood-weight of the given document 
+	 * compared to a document not containing the token. The iterator has to be positioned on the document.
+	 * @param tokensCounts
+	 * @param iterator
+	 * @param tokenCollectionFrequency
+	 * @param collectionTokenCount
+	 * @return
+	 */
+	private double weightToken(int[] tokensCounts, PostingsIterator iterator, int tokenCollectionFrequency, int collectionTokenCount) {
+		return Arrays.stream(ContentType.values())
+				.mapToDouble(contentType -> contentType.getWeightingFactor() * 
+											this.queryLikelihoodGain(
+												(double)iterator.frequency(contentType) / tokensCounts[contentType.ordinal()],
+												tokenCollectionFrequency,
+												collectionTokenCount))
+				.sum();
+	}
+	
+	/**
+	 * Calculates the maximum amount, by which a token with the given statistics can increase the query-likelihood-weight of a document.
+	 * The statistics have to cover the whole index, so that the bound can be computed without accessing any postings.
+	 * @param statistics
+	 * @param collectionTokenCount
+	 * @return
+	 */
+	private double getUpperBound(TermStatistics statistics, int collectionTokenCount) {
+		return Arrays.stream(ContentType.values())
+				.mapToDouble(contentType -> contentType.getWeightingFactor() * 
+											this.queryLikelihoodGain(
+												statistics.getMaxOccurrenceRatio(contentType),
+												statistics.getCollectionFrequency(),
+												collectionTokenCount))
+				.sum();
+	}
+	
+	/**
+	 * Sorts the given cursors by the id of their current document using insertion sort, since there are only a few of them.
+	 * @param tokens
+	 * @param iterators
+	 * @param tokenCollectionFrequencies
+	 * @param upperBounds
+	 */
+	private void sortByDocumentId(String[] tokens, PostingsIterator[] iterators, int[] tokenCollectionFrequencies, double[] upperBounds) {
+		for(int i = 1; i < iterators.length; i++) {
+			String token = tokens[i];
+			PostingsIterator iterator = iterators[i];
+			int tokenCollectionFrequency = tokenCollectionFrequencies[i];
+			double upperBound = upperBounds[i];
+			
+			int j = i - 1;
+			while(j >= 0 && iterators[j].documentId() > iterator.documentId()) {
+				tokens[j + 1] = tokens[j];
+				iterators[j + 1] = iterators[j];
+				tokenCollectionFrequencies[j + 1] = tokenCollectionFrequencies[j];
+				upperBounds[j + 1] = upperBounds[j];
+				j--;
+			}
+			tokens[j + 1] = token;
+			iterators[j + 1] = iterator;
+			tokenCollectionFrequencies[j + 1] = tokenCollectionFrequency;
+			upperBounds[j + 1] = upperBound;
+		}
+	}
+	
 	/**
 	 * Returns a factor for weighting of tokens.
 	 * @param token
@@ -212,6 +394,23 @@ public class DocumentRanker {
 		return (1 - QL_LAMBDA) * (tokenDocumentFrequency / documentsLength) + QL_LAMBDA * (tokenCollectionFrequency / collectionLength);
 	}
 	
+	/**
+	 * Calculates the difference between the logarithmic query-likelihood-ranking of a token occurring with the given ratio of token frequency 
+	 * to document length and the one of a token, that does not occur in the document. Since this difference is never negative, 
+	 * it can be used for dynamic pruning.
+	 * @param occurrenceRatio
+	 * @param tokenCollectionFrequency
+	 * @param collectionLength
+	 * @return
+	 */
+	private double queryLikelihoodGain(double occurrenceRatio, double tokenCollectionFrequency, double collectionLength) {
+		if(Double.isNaN(occurrenceRatio) || occurrenceRatio <= 0) {
+			return 0;
+		}
+		
+		return Math.log1p((1 - QL_LAMBDA) * occurrenceRatio / (QL_LAMBDA * (tokenCollectionFrequency / collectionLength)));
+	}
+	
 	
 	/**
 	 * Creates a RankedQueryResult instance for the given result and order of ranked documents.
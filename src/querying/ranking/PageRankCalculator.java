@@ -14,6 +14,8 @@ import gnu.trove.list.TIntList;
 import gnu.trove.map.TIntObjectMap;
 import gnu.trove.map.hash.TIntObjectHashMap;
 import gnu.trove.procedure.TIntProcedure;
+import gnu.trove.set.TIntSet;
+import gnu.trove.set.hash.TIntHashSet;
 
 public class PageRankCalculator {
 	
@@ -29,11 +31,16 @@ public class PageRankCalculator {
 	
 	
 	/**
-	 * Calculates the page rank score for each of the given documents.
+	 * Calculates the page rank score for each of the given documents. Citations of documents, that are not given, 
+	 * only reduce the weight of the other citations of the citing document.
 	 * @param linkedDocuments
 	 * @return
 	 */
 	public List<PatentDocument> calculate(Map<PatentDocument, TIntList> linkedDocuments) {
+		if(linkedDocuments.isEmpty()) {
+			return new ArrayList<PatentDocument>();
+		}
+		
 		// Create id-document mapping and extract min and max document id
 		int minDocumentId = Integer.MAX_VALUE;
 		int maxDocumentId = Integer.MIN_VALUE;
@@ -53,20 +60,20 @@ public class PageRankCalculator {
 		// Initialize adjacency matrix
 		final int finalMinDocumentId = minDocumentId;
 		int documentsCount = linkedDocuments.keySet().size();
-		int matrixSize = maxDocumentId - minDocumentId;
+		int matrixSize = maxDocumentId - minDocumentId + 1;
 		Matrix adjacencyMatrix = new CCSMatrix(matrixSize, matrixSize);
 		for(Map.Entry<PatentDocument, TIntList> entry: linkedDocuments.entrySet()) {
 			int j = entry.getKey().getId() - minDocumentId;
-			TIntList linkedDocumentIds = entry.getValue();
+			TIntSet linkedDocumentIds = new TIntHashSet(entry.getValue());
 			double citationsCount = linkedDocumentIds.size();
 			linkedDocumentIds.forEach(new TIntProcedure() {
 				@Override
 				public boolean execute(int documentId) {
+					// Skip citations of documents outside the matrix
 					int i = documentId - finalMinDocumentId;
-					if(i < 0) {
-						return false;
+					if(i >= 0 && i < matrixSize) {
+						adjacencyMatrix.set(i, j, 1/citationsCount);
 					}
-					adjacencyMatrix.set(i, j, 1/citationsCount);
 					return true;
 				}
 			});
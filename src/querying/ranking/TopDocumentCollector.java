@@ -0,0 +1,216 @@
+package querying.ranking;
+
+public class TopDocumentCollector {
+
+	/**
+	 * Contains the ids and scores of the collected documents, organized as binary min-heap by score.
+	 */
+	private final int[] documentIds;
+	private final double[] scores;
+	
+	/**
+	 * Contains the number of collected documents.
+	 */
+	private int size = 0;
+	
+	
+	/**
+	 * Creates a new TopDocumentCollector instance, that collects at most 'limit' documents.
+	 * @param limit
+	 */
+	public TopDocumentCollector(int limit) {
+		this.documentIds = new int[limit];
+		this.scores = new double[limit];
+	}
+	
+	
+	/**
+	 * Determines, whether the maximum number of documents has been collected.
+	 * @return
+	 */
+	public boolean isFull() {
+		return this.size == this.documentIds.length;
+	}
+	
+	/**
+	 * Gets the number of collected documents.
+	 * @return
+	 */
+	public int size() {
+		return this.size;
+	}
+	
+	/**
+	 * Gets the score, that a document has to exceed to be collected. If the collector is not full yet, negative infinity is returned.
+	 * @return
+	 */
+	public double getThreshold() {
+		if(!this.isFull()) {
+			return Double.NEGATIVE_INFINITY;
+		}
+		if(this.size == 0) {
+			return Double.POSITIVE_INFINITY;
+		}
+		
+		return this.scores[0];
+	}
+	
+	
+	/**
+	 * Collects the given document. If the collector is full, the document with the lowest score is removed.
+	 * Returns the id of the document, that is not collected anymore, or -1 if no document was removed.
+	 * @param documentId
+	 * @param score
+	 * @return
+	 */
+	public int collect(int documentId, double score) {
+		if(!this.isFull()) {
+			// Append document and restore heap order
+			this.documentIds[this.size] = documentId;
+			this.scores[this.size] = score;
+			this.siftUp(this.size);
+			this.size++;
+			
+			return -1;
+		}
+		
+		if(this.size == 0 || !this.isGreater(documentId, score, this.documentIds[0], this.scores[0])) {
+			return documentId;
+		}
+		
+		// Replace document with lowest score
+		int removedDocumentId = this.documentIds[0];
+		this.documentIds[0] = documentId;
+		this.scores[0] = score;
+		this.siftDown(0);
+		
+		return removedDocumentId;
+	}
+	
+	/**
+	 * Returns the ids of the collected documents ordered by descending score.
+	 * @return
+	 */
+	public int[] getDocumentIds() {
+		// Sort copy of heap by repeatedly removing the minimum
+		int[] documentIds = new int[this.size];
+		TopDocumentCollector heap = this.copy();
+		for(int i = this.size - 1; i >= 0; i--) {
+			documentIds[i] = heap.documentIds[0];
+			heap.removeMinimum();
+		}
+		
+		return documentIds;
+	}
+	
+	/**
+	 * Returns the scores of the collected documents in descending order, so that they correspond to the result of getDocumentIds.
+	 * @return
+	 */
+	public double[] getScores() {
+		// Sort copy of heap by repeatedly removing the minimum
+		double[] scores = new double[this.size];
+		TopDocumentCollector heap = this.copy();
+		for(int i = this.size - 1; i >= 0; i--) {
+			scores[i] = heap.scores[0];
+			heap.removeMinimum();
+		}
+		
+		return scores;
+	}
+	
+	
+	/**
+	 * Creates a copy of the current collector.
+	 * @return
+	 */
+	private TopDocumentCollector copy() {
+		TopDocumentCollector collector = new TopDocumentCollector(this.documentIds.length);
+		System.arraycopy(this.documentIds, 0, collector.documentIds, 0, this.size);
+		System.arraycopy(this.scores, 0, collector.scores, 0, this.size);
+		collector.size = this.size;
+		
+		return collector;
+	}
+	
+	/**
+	 * Removes the document with the lowest score.
+	 */
+	private void removeMinimum() {
+		this.size--;
+		this.documentIds[0] = this.documentIds[this.size];
+		this.scores[0] = this.scores[this.size];
+		this.siftDown(0);
+	}
+	
+	/**
+	 * Moves the entry at the given index up, until the heap order is restored.
+	 * @param index
+	 */
+	private void siftUp(int index) {
+		while(index > 0) {
+			int parent = (index - 1) / 2;
+			if(!this.isGreater(this.documentIds[parent], this.scores[parent], this.documentIds[index], this.scores[index])) {
+				break;
+			}
+			
+			this.swap(parent, index);
+			index = parent;
+		}
+	}
+	
+	/**
+	 * Moves the entry at the given index down, until the heap order is restored.
+	 * @param index
+	 */
+	private void siftDown(int index) {
+		while(true) {
+			int smallest = index;
+			int left = 2 * index + 1;
+			int right = left + 1;
+			if(left < this.size && this.isGreater(this.documentIds[smallest], this.scores[smallest], this.documentIds[left], this.scores[left])) {
+				smallest = left;
+			}
+			if(right < this.size && this.isGreater(this.documentIds[smallest], this.scores[smallest], this.documentIds[right], this.scores[right])) {
+				smallest = right;
+			}
+			if(smallest == index) {
+				break;
+			}
+			
+			this.swap(smallest, index);
+			index = smallest;
+		}
+	}
+	
+	/**
+	 * Swaps the entries at the given indexes.
+	 * @param i
+	 * @param j
+	 */
+	private void swap(int i, int j) {
+		int documentId = this.documentIds[i];
+		this.documentIds[i] = this.documentIds[j];
+		this.documentIds[j] = documentId;
+		
+		double score = this.scores[i];
+		this.scores[i] = this.scores[j];
+		this.scores[j] = score;
+	}
+	
+	/**
+	 * Determines, whether the first document ranks higher than the second one. Ties are broken by preferring higher (more recent) document ids.
+	 * @param documentId1
+	 * @param score1
+	 * @param documentId2
+	 * @param score2
+	 * @return
+	 */
+	private boolean isGreater(int documentId1, double score1, int documentId2, double score2) {
+		if(score1 != score2) {
+			return score1 > score2;
+		}
+		
+		return documentId1 > documentId2;
+	}
+}
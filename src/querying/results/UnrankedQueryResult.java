@@ -3,16 +3,14 @@ package querying.results;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
-import com.google.common.collect.Sets;
-
 import gnu.trove.map.TObjectIntMap;
 import gnu.trove.map.hash.TObjectIntHashMap;
 import postings.PostingTable;
+import utilities.SortedIntArrays;
 
 public class UnrankedQueryResult implements QueryResult {
 	
@@ -161,6 +159,14 @@ public class UnrankedQueryResult implements QueryResult {
 		return this.originalQueryResult;
 	}
 	
+	/**
+	 * Gets the sorted ids of all documents contained in this result, i.e. documents having postings or matching a LinkTo-query.
+	 * @return
+	 */
+	public int[] documentIds() {
+		return SortedIntArrays.union(this.tokenPostings.documentIds(), SortedIntArrays.of(this.linkingDocuments));
+	}
+	
 
 	/**
 	 * Disjuncts multiple QueryResult instances.
@@ -186,29 +192,19 @@ public class UnrankedQueryResult implements QueryResult {
 	}
 	
 	/**
-	 * Conjuncts multiple QueryResult instances.
+	 * Conjuncts multiple QueryResult instances. Empty results are ignored.
 	 * @param results
 	 * @return
 	 */
 	public static UnrankedQueryResult conjunct(UnrankedQueryResult...results) {
-		// Get intersection of document ids
-		Set<Integer> documentIds = intersectDocumentIds(Arrays.asList(
-										intersectDocumentIds(Arrays.stream(results).map(result -> result.getPostings().documentIdSet()).collect(Collectors.toList())),
-										intersectDocumentIds(Arrays.stream(results).map(result -> result.getLinkingDocuments()).collect(Collectors.toList()))));
-		
-		// Conjunct postings
-		PostingTable[] postingTables = Arrays.stream(results).map(x -> x.getPostings()).toArray(PostingTable[]::new);
-		PostingTable conjunctedTokenPostings = PostingTable.disjunctRetained(documentIds, postingTables);
+		// Get intersection of document ids of non-empty results
+		int[][] resultDocumentIds = Arrays.stream(results)
+										.map(result -> result.documentIds())
+										.filter(documentIds -> documentIds.length > 0)
+										.toArray(int[][]::new);
+		int[] documentIds = SortedIntArrays.intersect(resultDocumentIds);
 		
-		// Conjunct linked documents
-		Set<Integer> linkingDocuments = new HashSet<Integer>();
-		for(UnrankedQueryResult result: results) {
-			linkingDocuments.addAll(result.getLinkingDocuments());
-		}
-		linkingDocuments.retainAll(documentIds);
-		
-		return new UnrankedQueryResult(conjunctedTokenPostings, linkingDocuments, 
-				disjunctSpellingCorrections(results), disjunctCollectionFrequencies(results));
+		return retain(documentIds, results);
 	}
 	
 	/**
@@ -218,44 +214,37 @@ public class UnrankedQueryResult implements QueryResult {
 	 */
 	public static UnrankedQueryResult relativeComplement(UnrankedQueryResult...results) {
 		// Relative complement of document ids
-		Set<Integer> documentIds = new HashSet<Integer>(Sets.union(results[0].getPostings().documentIdSet(), results[0].getLinkingDocuments()));
-		for(int i = 1; i < results.length; i++) {
-			documentIds.removeAll(results[i].getPostings().documentIdSet());
-			documentIds.removeAll(results[i].getLinkingDocuments());
-		}
-		
-		// Relative complement of postings
-		PostingTable[] postingTables = Arrays.stream(results).map(x -> x.getPostings()).toArray(PostingTable[]::new);
-		PostingTable conjunctedTokenPostings = PostingTable.disjunctRetained(documentIds, postingTables);
-		
-		// Relative complement of linked documents
-		Set<Integer> linkingDocuments = new HashSet<Integer>();
-		for(UnrankedQueryResult result: results) {
-			linkingDocuments.addAll(result.getLinkingDocuments());
-		}
-		linkingDocuments.retainAll(documentIds);		
+		int[][] excludedDocumentIds = Arrays.stream(results)
+										.skip(1)
+										.map(result -> result.documentIds())
+										.toArray(int[][]::new);
+		int[] documentIds = SortedIntArrays.difference(results[0].documentIds(), SortedIntArrays.union(excludedDocumentIds));
 		
-		return new UnrankedQueryResult(conjunctedTokenPostings, linkingDocuments, 
-				disjunctSpellingCorrections(results), disjunctCollectionFrequencies(results));
+		return retain(documentIds, results);
 	}
 	
 	/**
-	 * Intersects the given sets of document ids. Empty sets are ignored.
-	 * @param documentIds
+	 * Creates a new UnrankedQueryResult instance, that contains the postings and linked documents of the given results,
+	 * that belong to the given documents.
+	 * @param documentIds Sorted array of document ids
+	 * @param results
 	 * @return
 	 */
-	private static Set<Integer> intersectDocumentIds(List<Set<Integer>> documentIds) {
-		Set<Integer> intersection = documentIds.get(0);
-		for(Set<Integer> set: documentIds) {
-			if(intersection.isEmpty()) {
-				intersection = set;
-			}
-			else if(!set.isEmpty()) {
-				intersection.retainAll(set);
-			}
-		}
+	private static UnrankedQueryResult retain(int[] documentIds, UnrankedQueryResult...results) {
+		// Retain postings
+		PostingTable[] postingTables = Arrays.stream(results).map(x -> x.getPostings()).toArray(PostingTable[]::new);
+		PostingTable retainedTokenPostings = PostingTable.disjunctRetained(documentIds, postingTables);
+		
+		// Retain linked documents
+		int[][] linkingDocumentIds = Arrays.stream(results)
+										.map(result -> SortedIntArrays.of(result.getLinkingDocuments()))
+										.toArray(int[][]::new);
+		Set<Integer> linkingDocuments = Arrays.stream(SortedIntArrays.intersect(SortedIntArrays.union(linkingDocumentIds), documentIds))
+										.boxed()
+										.collect(Collectors.toCollection(HashSet::new));
 		
-		return intersection;
+		return new UnrankedQueryResult(retainedTokenPostings, linkingDocuments, 
+				disjunctSpellingCorrections(results), disjunctCollectionFrequencies(results));
 	}
 	
 	/**
@@ -0,0 +1,372 @@
+package querying.server;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import querying.QueryProcessor;
+import querying.results.RankedQueryResult;
+import visualization.JsonResultFormatter;
+
+public class QueryServer implements AutoCloseable {
+
+	/**
+	 * Contains the number of documents returned per query, if the request does not specify it.
+	 */
+	private static final int DEFAULT_RESULT_LIMIT = 10;
+
+	/**
+	 * Contains the maximum number of documents returned per query, if the server is not configured otherwise.
+	 */
+	private static final int DEFAULT_MAX_RESULT_LIMIT = 1000;
+
+	/**
+	 * Contains the HTTP status codes used by the server.
+	 */
+	private static final int STATUS_OK = 200;
+	private static final int STATUS_BAD_REQUEST = 400;
+	private static final int STATUS_METHOD_NOT_ALLOWED = 405;
+	private static final int STATUS_INTERNAL_ERROR = 500;
+	private static final int STATUS_UNAVAILABLE = 503;
+
+	/**
+	 * Contains necessary services.
+	 */
+	private final QueryProcessor queryProcessor;
+	private final JsonResultFormatter resultFormatter = new JsonResultFormatter();
+
+	/**
+	 * Contains the underlying HTTP server.
+	 */
+	private final HttpServer server;
+
+	/**
+	 * Contains the executor, that handles requests. Handlers mostly wait for their queries, so each request gets a thread of its own.
+	 */
+	private final ExecutorService requestExecutor;
+
+	/**
+	 * Contains the executor, that evaluates requests. It runs at most 'concurrency' requests at once
+	 * and rejects requests, if its queue is full, which is the admission control of the server.
+	 */
+	private final ThreadPoolExecutor queryExecutor;
+
+	/**
+	 * Contains the maximum number of requests waiting for evaluation.
+	 */
+	private final int queueCapacity;
+
+	/**
+	 * Contains the maximum number of documents returned per query. Larger limits requested by clients are reduced to it.
+	 */
+	private final int maxResultLimit;
+
+
+	/**
+	 * Creates a new QueryServer instance, that serves queries on the given address once started.
+	 * @param queryProcessor
+	 * @param address
+	 * @param concurrency Maximum number of requests evaluated at once
+	 * @param queueCapacity Maximum number of requests waiting for evaluation, further requests are rejected
+	 * @throws IOException
+	 */
+	public QueryServer(QueryProcessor queryProcessor, InetSocketAddress address, int concurrency, int queueCapacity) throws IOException {
+		this(queryProcessor, address, concurrency, queueCapacity, DEFAULT_MAX_RESULT_LIMIT);
+	}
+
+	/**
+	 * Creates a new QueryServer instance, that serves queries on the given address once started.
+	 * @param queryProcessor
+	 * @param address
+	 * @param concurrency Maximum number of requests evaluated at once
+	 * @param queueCapacity Maximum number of requests waiting for evaluation, further requests are rejected
+	 * @param maxResultLimit Maximum number of documents returned per query
+	 * @throws IOException
+	 */
+	public QueryServer(QueryProcessor queryProcessor, InetSocketAddress address, int concurrency, int queueCapacity, int maxResultLimit) throws IOException {
+		this.queryProcessor = queryProcessor;
+		this.queueCapacity = Math.max(1, queueCapacity);
+		this.maxResultLimit = Math.max(1, maxResultLimit);
+
+		AtomicInteger threadsCount = new AtomicInteger();
+		this.queryExecutor = new ThreadPoolExecutor(Math.max(1, concurrency), Math.max(1, concurrency), 0L, TimeUnit.MILLISECONDS,
+									new ArrayBlockingQueue<Runnable>(this.queueCapacity),
+									runnable -> {
+										Thread thread = new Thread(runnable, "query-worker-" + threadsCount.incrementAndGet());
+										thread.setDaemon(true);
+										return thread;
+									});
+		this.requestExecutor = createRequestExecutor();
+
+		this.server = HttpServer.create(address, 0);
+		this.server.setExecutor(this.requestExecutor);
+		this.server.createContext("/search", this::handleSearch);
+		this.server.createContext("/status", this::handleStatus);
+	}
+
+	/**
+	 * Creates the executor for request handlers, that uses virtual threads, if the runtime supports them.
+	 * Otherwise, a cached pool of daemon threads is used.
+	 * @return
+	 */
+	private static ExecutorService createRequestExecutor() {
+		try {
+			return (ExecutorService)Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		} catch (ReflectiveOperationException e) {
+			return Executors.newCachedThreadPool(runnable -> {
+				Thread thread = new Thread(runnable, "query-request");
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+	}
+
+
+	/**
+	 * Starts serving requests.
+	 */
+	public void start() {
+		this.server.start();
+	}
+
+	/**
+	 * Gets the address, the server is listening on.
+	 * @return
+	 */
+	public InetSocketAddress getAddress() {
+		return this.server.getAddress();
+	}
+
+	/**
+	 * Gets the maximum number of requests evaluated at once.
+	 * @return
+	 */
+	public int getConcurrency() {
+		return this.queryExecutor.getMaximumPoolSize();
+	}
+
+	/**
+	 * Gets the maximum number of requests waiting for evaluation.
+	 * @return
+	 */
+	public int getQueueCapacity() {
+		return this.queueCapacity;
+	}
+
+	/**
+	 * Gets the maximum number of documents returned per query.
+	 * @return
+	 */
+	public int getMaxResultLimit() {
+		return this.maxResultLimit;
+	}
+
+
+	/**
+	 * Handles search requests. A GET request evaluates the query given by parameter 'q' and returns its result as JSON object.
+	 * A POST request evaluates a batch of queries, one per line of the body, and returns their results as JSON array.
+	 * A batch is admitted like a single query, regardless of its size.
+	 * Parameter 'topK' limits the number of documents per query. It has to be positive and is reduced to the configured maximum.
+	 * @param exchange
+	 * @throws IOException
+	 */
+	private void handleSearch(HttpExchange exchange) throws IOException {
+		try {
+			Map<String, String> parameters;
+			try {
+				parameters = parseParameters(exchange.getRequestURI().getRawQuery());
+			} catch (IllegalArgumentException e) {
+				this.sendError(exchange, STATUS_BAD_REQUEST, "Parameters are not correctly URL encoded.");
+				return;
+			}
+			int resultLimit = Integer.parseInt(parameters.getOrDefault("topK", Integer.toString(DEFAULT_RESULT_LIMIT)));
+			if(resultLimit <= 0) {
+				this.sendError(exchange, STATUS_BAD_REQUEST, "Parameter topK has to be positive.");
+				return;
+			}
+			resultLimit = Math.min(resultLimit, this.maxResultLimit);
+
+			if("GET".equalsIgnoreCase(exchange.getRequestMethod())) {
+				String query = parameters.get("q");
+				if(query == null || query.trim().isEmpty()) {
+					this.sendError(exchange, STATUS_BAD_REQUEST, "Parameter q is missing.");
+					return;
+				}
+
+				List<RankedQueryResult> results = this.search(Arrays.asList(query), resultLimit);
+				this.send(exchange, STATUS_OK, this.resultFormatter.format(query, results.get(0)));
+			}
+			else if("POST".equalsIgnoreCase(exchange.getRequestMethod())) {
+				List<String> queries = Arrays.stream(readBody(exchange).split("\\r?\\n"))
+											.map(String::trim)
+											.filter(query -> !query.isEmpty())
+											.collect(Collectors.toList());
+				List<RankedQueryResult> results = this.search(queries, resultLimit);
+				this.send(exchange, STATUS_OK, this.resultFormatter.format(queries, results));
+			}
+			else {
+				this.sendError(exchange, STATUS_METHOD_NOT_ALLOWED, "Only GET and POST are supported.");
+			}
+		} catch (NumberFormatException e) {
+			this.sendError(exchange, STATUS_BAD_REQUEST, "Parameter topK has to be a number.");
+		} catch (RejectedExecutionException e) {
+			this.sendError(exchange, STATUS_UNAVAILABLE, "Too many requests are waiting for evaluation.");
+		} catch (IOException e) {
+			this.sendError(exchange, STATUS_INTERNAL_ERROR, String.valueOf(e.getMessage()));
+		} finally {
+			exchange.close();
+		}
+	}
+
+	/**
+	 * Handles status requests by returning the configuration and the current load as JSON object.
+	 * @param exchange
+	 * @throws IOException
+	 */
+	private void handleStatus(HttpExchange exchange) throws IOException {
+		try {
+			String status = String.format("{\"concurrency\":%d,\"queueCapacity\":%d,\"maxTopK\":%d,\"activeQueries\":%d,\"queuedQueries\":%d}",
+								this.getConcurrency(), this.getQueueCapacity(), this.getMaxResultLimit(), 
+								this.queryExecutor.getActiveCount(), this.queryExecutor.getQueue().size());
+			this.send(exchange, STATUS_OK, status);
+		} finally {
+			exchange.close();
+		}
+	}
+
+
+	/**
+	 * Evaluates the given queries using the query executor and returns their results in the same order.
+	 * All queries are admitted as a single task, that evaluates them as batch, so that postings of shared tokens are read only once.
+	 * If the queue is full, a RejectedExecutionException is thrown.
+	 * @param queries
+	 * @param resultLimit
+	 * @return
+	 * @throws IOException
+	 */
+	private List<RankedQueryResult> search(List<String> queries, int resultLimit) throws IOException {
+		Future<List<RankedQueryResult>> future;
+		if(queries.size() == 1) {
+			future = this.queryExecutor.submit(() -> Arrays.asList(this.queryProcessor.search(queries.get(0), resultLimit)));
+		}
+		else {
+			future = this.queryExecutor.submit(() -> this.queryProcessor.searchBatch(queries, resultLimit));
+		}
+		
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Waiting for query results was interrupted.", e);
+		} catch (ExecutionException e) {
+			if(e.getCause() instanceof IOException) {
+				throw (IOException)e.getCause();
+			}
+			throw new IOException(e.getCause());
+		}
+	}
+
+
+	/**
+	 * Parses the given URL encoded query string into a map of parameters. 
+	 * An IllegalArgumentException is thrown, if the query string contains malformed escape sequences.
+	 * @param rawQuery
+	 * @return
+	 * @throws UnsupportedEncodingException
+	 */
+	private static Map<String, String> parseParameters(String rawQuery) throws UnsupportedEncodingException {
+		Map<String, String> parameters = new HashMap<String, String>();
+		if(rawQuery == null) {
+			return parameters;
+		}
+
+		for(String parameter: rawQuery.split("&")) {
+			int separatorIndex = parameter.indexOf('=');
+			if(separatorIndex > 0) {
+				parameters.put(URLDecoder.decode(parameter.substring(0, separatorIndex), "UTF-8"),
+							   URLDecoder.decode(parameter.substring(separatorIndex + 1), "UTF-8"));
+			}
+		}
+
+		return parameters;
+	}
+
+	/**
+	 * Reads the body of the given request as UTF-8 string.
+	 * @param exchange
+	 * @return
+	 * @throws IOException
+	 */
+	private static String readBody(HttpExchange exchange) throws IOException {
+		try(InputStream body = exchange.getRequestBody()) {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			byte[] buffer = new byte[8192];
+			int length;
+			while((length = body.read(buffer)) > 0) {
+				bytes.write(buffer, 0, length);
+			}
+
+			return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+		}
+	}
+
+	/**
+	 * Sends the given JSON response.
+	 * @param exchange
+	 * @param status
+	 * @param json
+	 * @throws IOException
+	 */
+	private void send(HttpExchange exchange, int status, String json) throws IOException {
+		byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+		exchange.sendResponseHeaders(status, bytes.length);
+		try(OutputStream body = exchange.getResponseBody()) {
+			body.write(bytes);
+		}
+	}
+
+	/**
+	 * Sends the given error message as JSON response.
+	 * @param exchange
+	 * @param status
+	 * @param message
+	 * @throws IOException
+	 */
+	private void sendError(HttpExchange exchange, int status, String message) throws IOException {
+		this.send(exchange, status, this.resultFormatter.formatError(message));
+	}
+
+
+	/**
+	 * Stops serving requests. Queries, that are still evaluated, are finished, but their results are not sent anymore.
+	 */
+	@Override
+	public void close() {
+		this.server.stop(0);
+		this.requestExecutor.shutdown();
+		this.queryExecutor.shutdown();
+	}
+}
@@ -28,9 +28,9 @@ public class TextPreprocessor {
 	private PatentAnalyzer preservingAnalyzer;
 	
 	/**
-	 * Contains a snowball stemmer instance.
+	 * Contains a snowball stemmer instance per thread, since stemmers keep the current token as state.
 	 */
-	private EnglishStemmer stemmer;
+	private final ThreadLocal<EnglishStemmer> stemmer = ThreadLocal.withInitial(EnglishStemmer::new);
 	
 	
 	/**
@@ -39,7 +39,15 @@ public class TextPreprocessor {
 	public TextPreprocessor() {
 		this.defaultAnalyzer = new PatentAnalyzer();
 		this.preservingAnalyzer = new PatentAnalyzer(true);
-		this.stemmer = new EnglishStemmer();
+	}
+	
+	/**
+	 * Creates a new TextPreprocessor instance, that uses the stop words of the given one.
+	 * @param textPreprocessor
+	 */
+	public TextPreprocessor(TextPreprocessor textPreprocessor) {
+		this();
+		this.stopWords = textPreprocessor.stopWords;
 	}
 	
 	
@@ -107,9 +115,10 @@ public class TextPreprocessor {
 	 * @return Stemmed token
 	 */
 	public String stem(String token) {
-		this.stemmer.setCurrent(token);
-		if(this.stemmer.stem()) {
-			return this.stemmer.getCurrent();
+		EnglishStemmer stemmer = this.stemmer.get();
+		stemmer.setCurrent(token);
+		if(stemmer.stem()) {
+			return stemmer.getCurrent();
 		}
 		
 		return token;
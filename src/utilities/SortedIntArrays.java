@@ -0,0 +1,298 @@
+package utilities;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+
+public class SortedIntArrays {
+
+	/**
+	 * Contains the ratio of array lengths, from which on galloping is used instead of a linear merge.
+	 */
+	private static final int GALLOPING_RATIO = 8;
+	
+	
+	/**
+	 * Converts the given collection of integers to a sorted array without duplicates.
+	 * @param values
+	 * @return
+	 */
+	public static int[] of(Collection<Integer> values) {
+		int[] array = values.stream()
+						.mapToInt(x -> x.intValue())
+						.toArray();
+		Arrays.sort(array);
+		
+		return distinct(array);
+	}
+	
+	
+	/**
+	 * Calculates the intersection of multiple sorted arrays. Arrays are processed in ascending order of their lengths,
+	 * so that the intermediate result stays as small as possible.
+	 * @param arrays
+	 * @return
+	 */
+	public static int[] intersect(int[]... arrays) {
+		if(arrays.length == 0) {
+			return new int[0];
+		}
+		
+		int[][] sortedArrays = arrays.clone();
+		Arrays.sort(sortedArrays, Comparator.comparingInt(array -> array.length));
+		
+		int[] result = sortedArrays[0];
+		for(int i = 1; i < sortedArrays.length && result.length > 0; i++) {
+			result = intersect(result, sortedArrays[i]);
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * Calculates the intersection of two sorted arrays. If one array is much shorter than the other one,
+	 * the longer array is searched by galloping instead of scanning it linearly.
+	 * @param array1
+	 * @param array2
+	 * @return
+	 */
+	public static int[] intersect(int[] array1, int[] array2) {
+		int[] shorter = array1.length <= array2.length ? array1 : array2;
+		int[] longer = array1.length <= array2.length ? array2 : array1;
+		boolean gallop = longer.length / GALLOPING_RATIO > shorter.length;
+		
+		int[] result = new int[shorter.length];
+		int count = 0;
+		int j = 0;
+		for(int i = 0; i < shorter.length && j < longer.length; i++) {
+			// Find first value, that is not less than the current one
+			int value = shorter[i];
+			if(gallop) {
+				j = gallop(longer, j, value);
+			}
+			else {
+				while(j < longer.length && longer[j] < value) {
+					j++;
+				}
+			}
+			
+			if(j < longer.length && longer[j] == value) {
+				result[count++] = value;
+				j++;
+			}
+		}
+		
+		return Arrays.copyOf(result, count);
+	}
+	
+	/**
+	 * Calculates the union of multiple sorted arrays using a k-way merge. The result may be one of the given arrays.
+	 * @param arrays
+	 * @return
+	 */
+	public static int[] union(int[]... arrays) {
+		if(arrays.length == 0) {
+			return new int[0];
+		}
+		if(arrays.length == 1) {
+			return arrays[0];
+		}
+		if(arrays.length == 2) {
+			return union(arrays[0], arrays[1]);
+		}
+		
+		// Initialize heap of array indexes ordered by their current values
+		int[] offsets = new int[arrays.length];
+		int[] heap = new int[arrays.length];
+		int heapSize = 0;
+		int totalLength = 0;
+		for(int i = 0; i < arrays.length; i++) {
+			totalLength += arrays[i].length;
+			if(arrays[i].length > 0) {
+				heap[heapSize++] = i;
+			}
+		}
+		for(int i = heapSize / 2 - 1; i >= 0; i--) {
+			siftDown(heap, heapSize, i, arrays, offsets);
+		}
+		
+		// Repeatedly take smallest value
+		int[] result = new int[totalLength];
+		int count = 0;
+		while(heapSize > 0) {
+			int arrayIndex = heap[0];
+			int value = arrays[arrayIndex][offsets[arrayIndex]];
+			if(count == 0 || result[count - 1] != value) {
+				result[count++] = value;
+			}
+			
+			// Move on in array or remove it from heap, if it is exhausted
+			offsets[arrayIndex]++;
+			if(offsets[arrayIndex] >= arrays[arrayIndex].length) {
+				heap[0] = heap[--heapSize];
+			}
+			siftDown(heap, heapSize, 0, arrays, offsets);
+		}
+		
+		return Arrays.copyOf(result, count);
+	}
+	
+	/**
+	 * Calculates the union of two sorted arrays. The result may be one of the given arrays.
+	 * @param array1
+	 * @param array2
+	 * @return
+	 */
+	public static int[] union(int[] array1, int[] array2) {
+		if(array1.length == 0) {
+			return array2;
+		}
+		if(array2.length == 0) {
+			return array1;
+		}
+		
+		int[] result = new int[array1.length + array2.length];
+		int i = 0, j = 0, count = 0;
+		while(i < array1.length && j < array2.length) {
+			if(array1[i] < array2[j]) {
+				result[count++] = array1[i++];
+			}
+			else if(array1[i] > array2[j]) {
+				result[count++] = array2[j++];
+			}
+			else {
+				result[count++] = array1[i++];
+				j++;
+			}
+		}
+		while(i < array1.length) {
+			result[count++] = array1[i++];
+		}
+		while(j < array2.length) {
+			result[count++] = array2[j++];
+		}
+		
+		return Arrays.copyOf(result, count);
+	}
+	
+	/**
+	 * Calculates the difference of two sorted arrays, i.e. all values of the first array, that are not contained in the second one.
+	 * The result may be the first array.
+	 * @param array1
+	 * @param array2
+	 * @return
+	 */
+	public static int[] difference(int[] array1, int[] array2) {
+		if(array1.length == 0 || array2.length == 0) {
+			return array1;
+		}
+		
+		boolean gallop = array2.length / GALLOPING_RATIO > array1.length;
+		int[] result = new int[array1.length];
+		int count = 0;
+		int j = 0;
+		for(int i = 0; i < array1.length; i++) {
+			// Find first value of the second array, that is not less than the current one
+			int value = array1[i];
+			if(gallop) {
+				j = gallop(array2, j, value);
+			}
+			else {
+				while(j < array2.length && array2[j] < value) {
+					j++;
+				}
+			}
+			
+			if(j >= array2.length || array2[j] != value) {
+				result[count++] = value;
+			}
+		}
+		
+		return Arrays.copyOf(result, count);
+	}
+	
+	
+	/**
+	 * Removes duplicates from a sorted array.
+	 * @param array
+	 * @return
+	 */
+	private static int[] distinct(int[] array) {
+		int count = 0;
+		for(int i = 0; i < array.length; i++) {
+			if(count == 0 || array[count - 1] != array[i]) {
+				array[count++] = array[i];
+			}
+		}
+		
+		return Arrays.copyOf(array, count);
+	}
+	
+	/**
+	 * Finds the index of the first value, that is not less than the target, starting at the given index.
+	 * The distance to the start index is doubled, until the target is passed, before the last interval is searched binary.
+	 * @param array
+	 * @param fromIndex
+	 * @param target
+	 * @return
+	 */
+	private static int gallop(int[] array, int fromIndex, int target) {
+		if(fromIndex >= array.length || array[fromIndex] >= target) {
+			return fromIndex;
+		}
+		
+		// Find interval containing the target, array[low] is always less than the target
+		int low = fromIndex;
+		int step = 1;
+		while(low + step < array.length && array[low + step] < target) {
+			low += step;
+			step <<= 1;
+		}
+		int high = Math.min(low + step, array.length);
+		
+		// Binary search within interval (low, high]
+		low++;
+		while(low < high) {
+			int middle = (low + high) >>> 1;
+			if(array[middle] < target) {
+				low = middle + 1;
+			}
+			else {
+				high = middle;
+			}
+		}
+		
+		return low;
+	}
+	
+	/**
+	 * Moves the heap entry at the given index down, until the heap order is restored. The heap contains array indexes,
+	 * which are ordered by the current value of the corresponding array.
+	 * @param heap
+	 * @param heapSize
+	 * @param index
+	 * @param arrays
+	 * @param offsets
+	 */
+	private static void siftDown(int[] heap, int heapSize, int index, int[][] arrays, int[] offsets) {
+		while(true) {
+			int smallest = index;
+			int left = 2 * index + 1;
+			int right = left + 1;
+			if(left < heapSize && arrays[heap[left]][offsets[heap[left]]] < arrays[heap[smallest]][offsets[heap[smallest]]]) {
+				smallest = left;
+			}
+			if(right < heapSize && arrays[heap[right]][offsets[heap[right]]] < arrays[heap[smallest]][offsets[heap[smallest]]]) {
+				smallest = right;
+			}
+			if(smallest == index) {
+				break;
+			}
+			
+			int temp = heap[index];
+			heap[index] = heap[smallest];
+			heap[smallest] = temp;
+			index = smallest;
+		}
+	}
+}
@@ -0,0 +1,137 @@
+package visualization;
+
+import java.util.List;
+import java.util.Map;
+
+import documents.PatentDocument;
+import querying.results.RankedQueryResult;
+
+public class JsonResultFormatter {
+
+	/**
+	 * Formats the result of the given query as JSON object, that contains the ranked documents and spelling corrections.
+	 * @param query
+	 * @param result
+	 * @return
+	 */
+	public String format(String query, RankedQueryResult result) {
+		StringBuilder builder = new StringBuilder();
+		this.appendResult(builder, query, result);
+
+		return builder.toString();
+	}
+
+	/**
+	 * Formats the results of the given queries as JSON array, which is ordered like the queries.
+	 * @param queries
+	 * @param results
+	 * @return
+	 */
+	public String format(List<String> queries, List<RankedQueryResult> results) {
+		StringBuilder builder = new StringBuilder("[");
+		for(int i = 0; i < queries.size(); i++) {
+			if(i > 0) {
+				builder.append(',');
+			}
+			this.appendResult(builder, queries.get(i), results.get(i));
+		}
+
+		return builder.append(']').toString();
+	}
+
+	/**
+	 * Formats an error message as JSON object.
+	 * @param message
+	 * @return
+	 */
+	public String formatError(String message) {
+		StringBuilder builder = new StringBuilder("{\"error\":");
+		this.appendString(builder, message);
+
+		return builder.append('}').toString();
+	}
+
+
+	/**
+	 * Appends the result of the given query as JSON object to the given builder.
+	 * @param builder
+	 * @param query
+	 * @param result
+	 */
+	private void appendResult(StringBuilder builder, String query, RankedQueryResult result) {
+		builder.append("{\"query\":");
+		this.appendString(builder, query);
+
+		// Ranked documents
+		builder.append(",\"documents\":[");
+		List<PatentDocument> documents = result.getRankedDocuments();
+		for(int i = 0; i < documents.size(); i++) {
+			if(i > 0) {
+				builder.append(',');
+			}
+			PatentDocument document = documents.get(i);
+			builder.append("{\"rank\":").append(i + 1)
+				   .append(",\"id\":").append(document.getId())
+				   .append(",\"pageRank\":").append(Double.isFinite(document.getPageRank()) ? document.getPageRank() : 0)
+				   .append('}');
+		}
+		builder.append(']');
+
+		// Spelling corrections
+		builder.append(",\"spellingCorrections\":{");
+		boolean first = true;
+		for(Map.Entry<String, String> correction: result.getSpellingCorrections().entrySet()) {
+			if(!first) {
+				builder.append(',');
+			}
+			this.appendString(builder, correction.getKey());
+			builder.append(':');
+			this.appendString(builder, correction.getValue());
+			first = false;
+		}
+		builder.append("}}");
+	}
+
+	/**
+	 * Appends the given string as quoted and escaped JSON string to the given builder.
+	 * @param builder
+	 * @param value
+	 */
+	private void appendString(StringBuilder builder, String value) {
+		builder.append('"');
+		for(int i = 0; i < value.length(); i++) {
+			char character = value.charAt(i);
+			switch(character) {
+				case '"':
+					builder.append("\\\"");
+					break;
+
+				case '\\':
+					builder.append("\\\\");
+					break;
+
+				case '\n':
+					builder.append("\\n");
+					break;
+
+				case '\r':
+					builder.append("\\r");
+					break;
+
+				case '\t':
+					builder.append("\\t");
+					break;
+
+				default:
+					if(character < 0x20) {
+						builder.append(String.format("\\u%04x", (int)character));
+					}
+					else {
+						builder.append(character);
+					}
+					break;
+			}
+		}
+		builder.append('"');
+	}
+}